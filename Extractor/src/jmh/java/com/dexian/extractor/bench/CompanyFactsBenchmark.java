@@ -0,0 +1,76 @@
+package com.dexian.extractor.bench;
+
+import com.dexian.extractor.dto.CompanyFact;
+import com.dexian.extractor.dto.SecFiling;
+import com.dexian.extractor.service.SecExtractorService;
+import com.dexian.extractor.util.CompanyFactsParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The company_facts JSON path: streaming parse plus mapping of production concepts to metric values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompanyFactsBenchmark {
+
+    private static final String CIK = "34088";
+
+    private byte[] companyFacts;
+    private List<SecFiling> latestFilings;
+    private SecExtractorService service;
+
+    @Setup
+    public void load() throws IOException {
+        companyFacts = Corpus.companyFacts();
+        // Parsing touches no repository or HTTP state
+        service = new SecExtractorService(null, null, null, null, null, null, null, null, null);
+
+        // The four most recent filings reporting oil production, as the submissions feed would list them
+        Map<String, CompanyFact> byAccession = new LinkedHashMap<>();
+        CompanyFactsParser.parse(new ByteArrayInputStream(companyFacts), "us-gaap", Set.of("OilProduction"), fact -> {
+            if (fact.accessionNumber() != null) byAccession.put(fact.accessionNumber(), fact);
+            return true;
+        });
+        List<CompanyFact> facts = new ArrayList<>(byAccession.values());
+        latestFilings = new ArrayList<>();
+        for (int i = facts.size() - 1; i >= 0 && latestFilings.size() < 4; i--) {
+            CompanyFact fact = facts.get(i);
+            latestFilings.add(new SecFiling(fact.accessionNumber(),
+                    fact.filedDate() != null ? LocalDate.parse(fact.filedDate()) : null,
+                    fact.endDate(), fact.form(), "filing.htm"));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Object>> parseLatestQuarters() {
+        return service.parseCompanyFacts(CIK, new ByteArrayInputStream(companyFacts), null);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Object>> parseNewFilings() {
+        return service.parseCompanyFacts(CIK, new ByteArrayInputStream(companyFacts), latestFilings);
+    }
+}
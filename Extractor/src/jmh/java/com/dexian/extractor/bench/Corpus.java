@@ -0,0 +1,63 @@
+package com.dexian.extractor.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Benchmark inputs. The checked-in corpus is synthetic but shaped like EDGAR output; point
+ * {@code -Dbench.filing=/path/to/10-Q.htm} or {@code -Dbench.companyfacts=/path/to/CIK##########.json}
+ * at downloaded documents to measure real ones instead.
+ */
+final class Corpus {
+
+    private Corpus() {
+    }
+
+    /**
+     * A 10-Q made of {@code sections} copies of the sample section (about 120 KB each).
+     */
+    static byte[] filing(int sections) {
+        byte[] override = readOverride("bench.filing");
+        if (override != null) return override;
+
+        String section = new String(resource("10-Q-section.htm"), StandardCharsets.UTF_8);
+        StringBuilder html = new StringBuilder(section.length() * sections + 256)
+                .append("<!DOCTYPE html><html><head><title>10-Q</title>")
+                .append("<style>table { border-collapse: collapse; }</style></head><body>");
+        for (int i = 0; i < sections; i++) {
+            html.append(section);
+        }
+        return html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] companyFacts() {
+        byte[] override = readOverride("bench.companyfacts");
+        return override != null ? override : resource("companyfacts.json");
+    }
+
+    private static byte[] readOverride(String property) {
+        String path = System.getProperty(property);
+        if (path == null || path.isBlank()) return null;
+        try {
+            return Files.readAllBytes(Path.of(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] resource(String name) {
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + name)) {
+            if (in == null) throw new IllegalStateException("Missing corpus file " + name);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
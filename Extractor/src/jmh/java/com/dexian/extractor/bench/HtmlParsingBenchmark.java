@@ -0,0 +1,60 @@
+package com.dexian.extractor.bench;
+
+import com.dexian.extractor.SecProductionDataExtractor;
+import com.dexian.extractor.util.HtmlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Table extraction from a filing held in memory, so only decoding and parsing are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlParsingBenchmark {
+
+    // ~120 KB and ~5 MB documents
+    @Param({"1", "40"})
+    public int sections;
+
+    private byte[] filing;
+
+    @Setup
+    public void load() {
+        filing = Corpus.filing(sections);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseHtmlForMetrics() throws IOException {
+        return HtmlParser.parseHtmlForMetrics(reader());
+    }
+
+    @Benchmark
+    public Map<String, Double> extractProductionData() throws IOException {
+        return SecProductionDataExtractor.extractProductionData(reader());
+    }
+
+    private Reader reader() {
+        return new InputStreamReader(new ByteArrayInputStream(filing), StandardCharsets.UTF_8);
+    }
+}
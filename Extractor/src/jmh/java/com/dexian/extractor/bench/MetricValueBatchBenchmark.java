@@ -0,0 +1,128 @@
+package com.dexian.extractor.bench;
+
+import com.dexian.extractor.model.Company;
+import com.dexian.extractor.model.MetricDefinition;
+import com.dexian.extractor.model.MetricValue;
+import com.dexian.extractor.model.SourceDocument;
+import com.dexian.extractor.repository.MetricValueBatchRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metric value write path against a live database (the schema must exist, e.g. after one
+ * application start). Connection settings default to application.properties and can be overridden
+ * with {@code -Dbench.jdbc.url}, {@code -Dbench.jdbc.user} and {@code -Dbench.jdbc.password}.
+ * Every batch is rolled back, so the table does not grow between iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricValueBatchBenchmark {
+
+    private static final String BENCH_CIK = "JMH-BENCH";
+
+    @Param({"16", "2000"})
+    public int rows;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private MetricValueBatchRepositoryImpl repository;
+    private List<MetricValue> values;
+
+    @Setup
+    public void connect() {
+        dataSource = new SingleConnectionDataSource(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/ong_metrics?reWriteBatchedInserts=true"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "root"),
+                true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        repository = new MetricValueBatchRepositoryImpl(jdbcTemplate);
+
+        deleteFixtures();
+        Company company = new Company();
+        company.setCompanyId(jdbcTemplate.queryForObject("""
+                INSERT INTO cait_dev.companies (company_name, ticker_symbol, sec_cik_number, status, created_at, updated_at)
+                VALUES ('JMH benchmark', ?, ?, true, now(), now()) RETURNING company_id
+                """, Integer.class, BENCH_CIK, BENCH_CIK));
+        MetricDefinition definition = new MetricDefinition();
+        definition.setMetricId(jdbcTemplate.queryForObject("""
+                INSERT INTO cait_dev.metric_definition
+                    (metric_category, metric_name_display, metric_name_internal, is_active, created_at)
+                VALUES ('OPERATIONAL', ?, ?, true, now()) RETURNING metric_id
+                """, Integer.class, BENCH_CIK, BENCH_CIK));
+        SourceDocument document = new SourceDocument();
+        document.setSourceDocumentId(jdbcTemplate.queryForObject("""
+                INSERT INTO cait_dev.source_document (company_id, source_type, filing_date, created_at)
+                VALUES (?, 'SEC_FILING', current_date, now()) RETURNING source_document_id
+                """, Integer.class, company.getCompanyId()));
+
+        values = new ArrayList<>(rows);
+        LocalDate end = LocalDate.of(2025, 9, 30);
+        for (int i = 0; i < rows; i++) {
+            MetricValue mv = new MetricValue();
+            mv.setCompany(company);
+            mv.setMetricDefinition(definition);
+            mv.setSourceDocument(document);
+            // Quarters since 2010 (all within existing partitions), then one segment per pass
+            long quarter = i % 63;
+            mv.setPeriodStartDate(end.minusMonths(3 * (quarter + 1)).plusDays(1));
+            mv.setPeriodEndDate(end.minusMonths(3 * quarter));
+            mv.setExtractedMetricValue(1000.0 + i);
+            mv.setExtractionMethod("SEC_JSON");
+            mv.setExtractionConfidenceScore(1.0);
+            mv.setSegmentName("Upstream " + i / 63);
+            mv.setSourceAccessionNumber("");
+            mv.setCreatedAt(LocalDateTime.now());
+            values.add(mv);
+        }
+    }
+
+    @TearDown
+    public void disconnect() {
+        deleteFixtures();
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public void batchUpsert() {
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.batchUpsert(values);
+            status.setRollbackOnly();
+        });
+    }
+
+    private void deleteFixtures() {
+        jdbcTemplate.update("""
+                DELETE FROM cait_dev.source_document
+                WHERE company_id IN (SELECT company_id FROM cait_dev.companies WHERE sec_cik_number = ?)
+                """, BENCH_CIK);
+        jdbcTemplate.update("DELETE FROM cait_dev.companies WHERE sec_cik_number = ?", BENCH_CIK);
+        jdbcTemplate.update("DELETE FROM cait_dev.metric_definition WHERE metric_name_internal = ?", BENCH_CIK);
+    }
+}
@@ -1,17 +1,24 @@
 package com.dexian.extractor;
 
+import com.dexian.extractor.util.HtmlTableScanner;
+import com.dexian.extractor.util.HttpDiskCache;
+import com.dexian.extractor.util.LabelMatcher;
+import com.dexian.extractor.util.NumberScanner;
+import com.dexian.extractor.util.SecHttpClient;
+import com.dexian.extractor.util.SecMetrics;
+import com.dexian.extractor.util.SecRateLimiter;
 import org.json.JSONObject;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
-import java.util.regex.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 
@@ -33,6 +40,21 @@ public class SecProductionDataExtractor {
             "Total (MBOE)", "Total MBoe"
     };
 
+    // Label dictionary compiled once; categories are checked in this order
+    private static final LabelMatcher<String> PRODUCTION_TAGS = LabelMatcher.<String>builder()
+            .add("Oil Production", OIL_TAGS)
+            .add("Natural Gas Production", GAS_TAGS)
+            .add("Natural Gas Liquid Production", NGL_TAGS)
+            .add("Total", TOTAL_TAGS)
+            .build();
+
+    // One SEC request budget shared by all company workers
+    private static final SecHttpClient HTTP = new SecHttpClient(
+            new SecRateLimiter(8),
+            new HttpDiskCache(Path.of(System.getProperty("sec.http-cache.dir", System.getProperty("user.home") + "/.sec-extractor/http-cache"))),
+            Duration.ofSeconds(20));
+    private static final int COMPANY_CONCURRENCY = 4;
+
     public static void main(String[] args) {
         // Input CIKs
         String[] ciks = {
@@ -42,17 +64,28 @@ public class SecProductionDataExtractor {
 
         JSONObject finalData = new JSONObject();
 
+        ExecutorService workers = Executors.newFixedThreadPool(COMPANY_CONCURRENCY);
+        Map<String, Future<JSONObject>> pending = new LinkedHashMap<>();
         for (String cik : ciks) {
-            System.out.println("🔎 Processing CIK: " + cik);
+            pending.put(cik, workers.submit(() -> {
+                System.out.println("🔎 Processing CIK: " + cik);
+                return processCompany(cik);
+            }));
+        }
+
+        for (Map.Entry<String, Future<JSONObject>> entry : pending.entrySet()) {
+            String cik = entry.getKey();
             try {
-                JSONObject cikData = processCompany(cik);
+                JSONObject cikData = entry.getValue().get();
                 if (cikData.length() > 0) {
                     finalData.put(cik, cikData);
                 }
             } catch (Exception e) {
-                System.out.println("❌ Error for CIK " + cik + ": " + e.getMessage());
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                System.out.println("❌ Error for CIK " + cik + ": " + cause.getMessage());
             }
         }
+        workers.shutdown();
 
         System.out.println("\n✅ Final Extracted Data:\n" + finalData.toString(2));
     }
@@ -103,18 +136,11 @@ public class SecProductionDataExtractor {
 
 
     // =================== UTILITIES ===================
-    private static String fetchJson(String apiUrl) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(apiUrl).openConnection();
-        conn.setRequestProperty("User-Agent", "DataExtractorApp/1.0 (contact: yourname@example.com)");
-        conn.setRequestProperty("Accept", "application/json");
-        conn.setRequestProperty("Connection", "keep-alive");
-        conn.setConnectTimeout(15000);
-        conn.setReadTimeout(15000);
-
-        int status = conn.getResponseCode();
-        InputStream inputStream = (status >= 200 && status < 300)
-                ? conn.getInputStream()
-                : conn.getErrorStream();
+    private static String fetchJson(String apiUrl) throws IOException, InterruptedException {
+        InputStream inputStream = HTTP.open(apiUrl, SecHttpClient.JSON);
+        if (inputStream == null) {
+            throw new IOException("No JSON from SEC. Status=404, URL=[" + apiUrl + "]");
+        }
 
         BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
         StringBuilder sb = new StringBuilder();
@@ -125,76 +151,54 @@ public class SecProductionDataExtractor {
         // Simple check before parsing JSON
         String response = sb.toString().trim();
         if (!response.startsWith("{")) {
-            throw new IOException("Invalid (non-JSON) response from SEC. Status=" + status +
-                    ", Body starts with: " + response.substring(0, Math.min(80, response.length())) +
+            throw new IOException("Invalid (non-JSON) response from SEC." +
+                    " Body starts with: " + response.substring(0, Math.min(80, response.length())) +
                     ", URL=[" + apiUrl + "]");
         }
 
-        // Add gentle rate limiting
-        try { Thread.sleep(1200); } catch (InterruptedException ignored) {}
-
         return response;
     }
 
     private static Map<String, Double> extractProductionData(String url) throws Exception {
+        try (Reader body = new InputStreamReader(openFiling(url), StandardCharsets.UTF_8)) {
+            return extractProductionData(body);
+        }
+    }
+
+    /**
+     * Scan the tables of one filing for production rows. Does not close {@code html}.
+     */
+    public static Map<String, Double> extractProductionData(Reader html) throws IOException {
         Map<String, Double> result = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        int[] rows = {0};
 
-        // Add email-based user-agent
-        Document doc = Jsoup.connect(url)
-                .userAgent("MyCompanyDataApp/1.0 (contact: yourname@example.com)")
-                .timeout(20000)
-                .header("Accept", "text/html")
-                .header("Connection", "keep-alive")
-                .get();
-
-        Elements tables = doc.select("table");
-        for (Element table : tables) {
-            Elements rows = table.select("tr");
-            for (Element row : rows) {
-                Elements cells = row.select("td, th");
-                if (cells.size() < 2) continue;
-
-                String header = cells.get(0).text().trim();
-                String numericStr = extractNumber(cells.text());
-                if (numericStr == null) continue;
-
-                double value = parseDoubleSafe(numericStr);
-
-                if (matchesTag(header, OIL_TAGS)) {
-                    result.put("Oil Production", value);
-                } else if (matchesTag(header, GAS_TAGS)) {
-                    result.put("Natural Gas Production", value);
-                } else if (matchesTag(header, NGL_TAGS)) {
-                    result.put("Natural Gas Liquid Production", value);
-                } else if (matchesTag(header, TOTAL_TAGS)) {
-                    result.put("Total", value);
-                }
-            }
-        }
+        HtmlTableScanner.scan(html, row -> {
+            rows[0]++;
+            if (row.size() < 2) return;
 
-        // Throttle each SEC HTML fetch
-        try { Thread.sleep(1500); } catch (InterruptedException ignored) {}
+            String metric = PRODUCTION_TAGS.match(row.cell(0));
+            if (metric == null) return;
+            SecMetrics.recordTagHit("production", metric);
 
-        return result;
-    }
+            double value = NumberScanner.firstNumber(row.text());
+            if (Double.isNaN(value)) return;
 
-    private static boolean matchesTag(String text, String[] patterns) {
-        for (String pattern : patterns) {
-            if (text.toLowerCase().contains(pattern.toLowerCase())) return true;
-        }
-        return false;
-    }
+            result.put(metric, value);
+        });
+        SecMetrics.recordParse("production", System.nanoTime() - start, rows[0]);
 
-    private static String extractNumber(String text) {
-        Matcher m = Pattern.compile("([0-9]+(?:\\.[0-9]+)?)").matcher(text.replace(",", ""));
-        return m.find() ? m.group(1) : null;
+        return result;
     }
 
-    private static double parseDoubleSafe(String val) {
-        try {
-            return Double.parseDouble(val);
-        } catch (Exception e) {
-            return 0.0;
+    /**
+     * Filing documents under /Archives are immutable, so once cached they are read from disk.
+     */
+    private static InputStream openFiling(String url) throws IOException, InterruptedException {
+        InputStream body = HTTP.open(url, SecHttpClient.HTML);
+        if (body == null) {
+            throw new IOException("HTTP error fetching URL. Status=404, URL=[" + url + "]");
         }
+        return body;
     }
 }
@@ -0,0 +1,58 @@
+package com.dexian.extractor.config;
+
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.schema.spi.SchemaFilter;
+import org.hibernate.tool.schema.spi.SchemaFilterProvider;
+
+/**
+ * Keeps Hibernate's schema tooling away from {@code metric_value}, which is range-partitioned and
+ * created and migrated by {@link com.dexian.extractor.repository.MetricValuePartitionManager}. Hibernate
+ * cannot see the indexes and foreign keys of a partitioned table and would try to add them on every start.
+ * Registered through {@code spring.jpa.properties.hibernate.hbm2ddl.schema_filter_provider}.
+ */
+public class PartitionedTableSchemaFilter implements SchemaFilterProvider {
+
+    private static final SchemaFilter EXCLUDE_PARTITIONED = new SchemaFilter() {
+        @Override
+        public boolean includeNamespace(Namespace namespace) {
+            return true;
+        }
+
+        @Override
+        public boolean includeTable(Table table) {
+            return !"metric_value".equalsIgnoreCase(table.getName());
+        }
+
+        @Override
+        public boolean includeSequence(Sequence sequence) {
+            return true;
+        }
+    };
+
+    @Override
+    public SchemaFilter getCreateFilter() {
+        return EXCLUDE_PARTITIONED;
+    }
+
+    @Override
+    public SchemaFilter getDropFilter() {
+        return EXCLUDE_PARTITIONED;
+    }
+
+    @Override
+    public SchemaFilter getTruncatorFilter() {
+        return EXCLUDE_PARTITIONED;
+    }
+
+    @Override
+    public SchemaFilter getMigrateFilter() {
+        return EXCLUDE_PARTITIONED;
+    }
+
+    @Override
+    public SchemaFilter getValidateFilter() {
+        return EXCLUDE_PARTITIONED;
+    }
+}
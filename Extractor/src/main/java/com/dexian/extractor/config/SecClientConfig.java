@@ -0,0 +1,38 @@
+package com.dexian.extractor.config;
+
+import com.dexian.extractor.service.ClusterRateGovernor;
+import com.dexian.extractor.util.FilingBlobStore;
+import com.dexian.extractor.util.HttpDiskCache;
+import com.dexian.extractor.util.SecHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class SecClientConfig {
+
+    @Bean
+    public HttpDiskCache httpDiskCache(@Value("${sec.http-cache.dir}") String directory) {
+        return new HttpDiskCache(Path.of(directory));
+    }
+
+    /**
+     * Raw documents behind every stored metric, kept compressed and deduplicated by content.
+     */
+    @Bean
+    public FilingBlobStore filingBlobStore(@Value("${sec.blob-store.dir}") String directory) {
+        return new FilingBlobStore(Path.of(directory));
+    }
+
+    /**
+     * Shared connection pool for every request to sec.gov, within the cluster's request budget and through the disk cache.
+     */
+    @Bean
+    public SecHttpClient secHttpClient(ClusterRateGovernor clusterRateGovernor, HttpDiskCache httpDiskCache,
+                                       @Value("${sec.http.timeout-seconds:20}") long timeoutSeconds) {
+        return new SecHttpClient(clusterRateGovernor, httpDiskCache, Duration.ofSeconds(timeoutSeconds));
+    }
+}
@@ -0,0 +1,70 @@
+package com.dexian.extractor.controller;
+
+import com.dexian.extractor.dto.CompanyMetricValue;
+import com.dexian.extractor.dto.KeysetPage;
+import com.dexian.extractor.dto.MetricAggregate;
+import com.dexian.extractor.dto.MetricPoint;
+import com.dexian.extractor.service.MetricQueryService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricController {
+
+    private final MetricQueryService metricQueryService;
+
+    public MetricController(MetricQueryService metricQueryService) {
+        this.metricQueryService = metricQueryService;
+    }
+
+    /**
+     * A company's time series of one metric (e.g. {@code metric=Oil Production}), newest period first.
+     */
+    @GetMapping("/companies/{cik}/series")
+    public KeysetPage<MetricPoint> getSeries(@PathVariable String cik,
+                                             @RequestParam String metric,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer limit) {
+        return metricQueryService.getSeries(cik, metric, from, to, cursor, limit);
+    }
+
+    /**
+     * Every company's value of one metric for the quarter containing {@code periodEnd}, latest filing wins.
+     */
+    @GetMapping("/compare")
+    public KeysetPage<CompanyMetricValue> compare(@RequestParam String metric,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate periodEnd,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limit) {
+        return metricQueryService.compareCompanies(metric, periodEnd, cursor, limit);
+    }
+
+    /**
+     * Aggregate of one metric over every company's periods ending in {@code [from, to]}, served from memory;
+     * with {@code latest=true} only each company's latest period counts.
+     */
+    @GetMapping("/aggregate")
+    public MetricAggregate aggregate(@RequestParam String metric,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                     @RequestParam(defaultValue = "false") boolean latest) {
+        return metricQueryService.aggregate(metric, from, to, latest);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> unavailable(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+}
@@ -1,20 +1,114 @@
 package com.dexian.extractor.controller;
 
-import com.dexian.extractor.service.SecExtractorService;
+import com.dexian.extractor.dto.BackfillResult;
+import com.dexian.extractor.dto.BulkIngestResult;
+import com.dexian.extractor.dto.FrameRefreshResult;
+import com.dexian.extractor.model.ExtractionJob;
+import com.dexian.extractor.service.BackfillService;
+import com.dexian.extractor.service.BulkIngestService;
+import com.dexian.extractor.service.ExtractionJobService;
+import com.dexian.extractor.service.FrameRefreshService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/sec")
 public class SecExtractorController {
 
-    private final SecExtractorService extractorService;
+    private final ExtractionJobService extractionJobService;
+    private final BulkIngestService bulkIngestService;
+    private final BackfillService backfillService;
+    private final FrameRefreshService frameRefreshService;
 
-    public SecExtractorController(SecExtractorService extractorService) {
-        this.extractorService = extractorService;
+    public SecExtractorController(ExtractionJobService extractionJobService, BulkIngestService bulkIngestService,
+                                  BackfillService backfillService, FrameRefreshService frameRefreshService) {
+        this.extractionJobService = extractionJobService;
+        this.bulkIngestService = bulkIngestService;
+        this.backfillService = backfillService;
+        this.frameRefreshService = frameRefreshService;
     }
 
     @PostMapping("/extract")
-    public String extractByCik(@RequestParam String cik) {
-        return extractorService.extractAndStoreData(cik);
+    public ResponseEntity<ExtractionJob> extractByCik(@RequestParam String cik) {
+        return ResponseEntity.accepted().body(extractionJobService.submit(cik));
+    }
+
+    /**
+     * Queue an extraction job per CIK; the workers of every node share them.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<List<ExtractionJob>> submitJobs(@RequestBody List<String> ciks) {
+        return ResponseEntity.accepted().body(extractionJobService.submitAll(ciks));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ExtractionJob> getJob(@PathVariable Long jobId) {
+        return ResponseEntity.of(extractionJobService.find(jobId));
+    }
+
+    /**
+     * Same as {@code POST /jobs}: the CIKs are queued, never extracted on the request thread, so a CIK leased
+     * by another node is not processed twice.
+     */
+    @PostMapping("/extract/batch")
+    public ResponseEntity<List<ExtractionJob>> extractBatch(@RequestBody List<String> ciks) {
+        return ResponseEntity.accepted().body(extractionJobService.submitAll(ciks));
+    }
+
+    /**
+     * Backfill from archives already downloaded to this server's ingest directory ({@code sec.bulk.ingest-dir});
+     * names are relative to it, and anything outside it is refused.
+     */
+    @PostMapping("/ingest/companyfacts")
+    public ResponseEntity<BulkIngestResult> ingestCompanyFacts(@RequestParam String path,
+                                                               @RequestParam(required = false) String submissions)
+            throws IOException, InterruptedException {
+        Path companyFactsZip = bulkIngestService.resolveArchive(path);
+        Path submissionsZip = submissions != null ? bulkIngestService.resolveArchive(submissions) : null;
+        if (companyFactsZip == null || (submissions != null && submissionsZip == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bulkIngestService.ingestCompanyFacts(companyFactsZip, submissionsZip));
+    }
+
+    /**
+     * Refresh a calendar period ({@code CY2025Q2}, {@code CY2024}; the last quarter by default) for every active
+     * company from the XBRL frames API.
+     */
+    @PostMapping("/frames")
+    public ResponseEntity<FrameRefreshResult> refreshFrames(@RequestParam(required = false) String period)
+            throws InterruptedException {
+        String framePeriod = period != null ? period : FrameRefreshService.previousQuarter(LocalDate.now());
+        if (!FrameRefreshService.isValidPeriod(framePeriod)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(frameRefreshService.refresh(framePeriod));
+    }
+
+    /**
+     * Re-extract filings already in the blob store under a new extraction-method version; 409 while another runs.
+     */
+    @PostMapping("/backfill")
+    public ResponseEntity<BackfillResult> backfill(@RequestParam String version,
+                                                   @RequestParam(required = false) String cik) {
+        if (!BackfillService.isValidVersion(version)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(backfillService.backfill(version, cik));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(backfillService.progress());
+        }
+    }
+
+    @GetMapping("/backfill")
+    public ResponseEntity<BackfillResult> backfillProgress() {
+        return ResponseEntity.ofNullable(backfillService.progress());
     }
 }
@@ -0,0 +1,15 @@
+package com.dexian.extractor.dto;
+
+/**
+ * Progress, and once {@code running} is false the totals, of one re-extraction of stored filings.
+ */
+public record BackfillResult(
+        String version,
+        int documentsTotal,
+        int documentsDone,
+        int metricsStored,
+        int failures,
+        long elapsedMillis,
+        double documentsPerSecond,
+        boolean running) {
+}
@@ -0,0 +1,12 @@
+package com.dexian.extractor.dto;
+
+/**
+ * Totals of one offline ingest of a companyfacts.zip archive.
+ */
+public record BulkIngestResult(
+        int entriesRead,
+        int companiesStored,
+        int metricsStored,
+        int failures,
+        long elapsedMillis) {
+}
@@ -0,0 +1,19 @@
+package com.dexian.extractor.dto;
+
+/**
+ * One reported value of an XBRL concept, as listed under {@code facts.<taxonomy>.<concept>.units.<unit>}
+ * in the SEC company_facts document.
+ */
+public record CompanyFact(
+        String concept,
+        String unit,
+        double value,
+        String startDate,
+        String endDate,
+        Integer fiscalYear,
+        String fiscalPeriod,
+        String form,
+        String accessionNumber,
+        String filedDate,
+        String frame) {
+}
@@ -0,0 +1,16 @@
+package com.dexian.extractor.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One company's value of a metric for a reporting period, for cross-company comparison.
+ */
+public record CompanyMetricValue(
+        Integer companyId,
+        String cik,
+        String companyName,
+        String tickerSymbol,
+        LocalDate periodEndDate,
+        Double value,
+        String unit) {
+}
@@ -0,0 +1,13 @@
+package com.dexian.extractor.dto;
+
+import java.util.List;
+
+/**
+ * The parts of {@code data.sec.gov/submissions/CIK##########.json} the extractor uses.
+ * Filings are newest first, as SEC lists them.
+ */
+public record CompanySubmissions(
+        String name,
+        String fiscalYearEnd,
+        List<SecFiling> filings) {
+}
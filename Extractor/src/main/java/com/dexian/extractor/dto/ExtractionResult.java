@@ -0,0 +1,15 @@
+package com.dexian.extractor.dto;
+
+/**
+ * Outcome of one CIK passing through the extraction pipeline, with wall-clock time spent in each stage.
+ */
+public record ExtractionResult(
+        String cik,
+        boolean success,
+        String source,
+        int metricsStored,
+        long fetchMillis,
+        long parseMillis,
+        long persistMillis,
+        String message) {
+}
@@ -0,0 +1,16 @@
+package com.dexian.extractor.dto;
+
+/**
+ * One company's value of an XBRL concept in a calendar period, as listed under {@code data} in an SEC frames
+ * document ({@code /api/xbrl/frames/{taxonomy}/{concept}/{unit}/{period}.json}).
+ */
+public record FrameFact(
+        String concept,
+        String unit,
+        long cik,
+        String entityName,
+        String accessionNumber,
+        String startDate,
+        String endDate,
+        double value) {
+}
@@ -0,0 +1,15 @@
+package com.dexian.extractor.dto;
+
+/**
+ * Totals of one refresh of a calendar period from the SEC frames API.
+ */
+public record FrameRefreshResult(
+        String period,
+        int framesRead,
+        int rowsRead,
+        int companiesMatched,
+        int companiesStored,
+        int metricsStored,
+        int failures,
+        long elapsedMillis) {
+}
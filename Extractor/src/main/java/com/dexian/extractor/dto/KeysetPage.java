@@ -0,0 +1,11 @@
+package com.dexian.extractor.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated read; pass {@code nextCursor} back to get the following page.
+ *
+ * @param nextCursor opaque position after the last item, or {@code null} on the last page
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+}
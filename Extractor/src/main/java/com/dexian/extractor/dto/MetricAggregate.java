@@ -0,0 +1,22 @@
+package com.dexian.extractor.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Aggregate of one metric across companies over a range of period ends; the statistics are {@code null}
+ * when no value falls in the range.
+ *
+ * @param latestPerCompany whether only each company's latest period in the range was counted
+ */
+public record MetricAggregate(
+        String metric,
+        LocalDate from,
+        LocalDate to,
+        boolean latestPerCompany,
+        int companies,
+        long points,
+        Double sum,
+        Double min,
+        Double max,
+        Double mean) {
+}
@@ -0,0 +1,16 @@
+package com.dexian.extractor.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One value of a company's metric time series, read as a flat projection (no entity graph).
+ */
+public record MetricPoint(
+        Long metricValueId,
+        LocalDate periodStartDate,
+        LocalDate periodEndDate,
+        Double value,
+        String unit,
+        String extractionMethod,
+        String sourceUrl) {
+}
@@ -0,0 +1,22 @@
+package com.dexian.extractor.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One entry of the {@code filings.recent} table in the SEC submissions feed.
+ */
+public record SecFiling(
+        String accessionNumber,
+        LocalDate filingDate,
+        String reportDate,
+        String form,
+        String primaryDocument) {
+
+    /**
+     * URL of the primary document in the EDGAR archives.
+     */
+    public String documentUrl(String cik) {
+        return "https://www.sec.gov/Archives/edgar/data/" + Long.parseLong(cik) + "/"
+                + accessionNumber.replace("-", "") + "/" + primaryDocument;
+    }
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
@@ -34,6 +35,17 @@ public class Company {
     @Column(name = "status", nullable = false)
     private boolean status = true;
 
+    // Newest 10-Q/10-K already extracted, from the submissions feed
+    @Column(name = "last_accession_number")
+    private String lastAccessionNumber;
+
+    @Column(name = "last_filing_date")
+    private LocalDate lastFilingDate;
+
+    // MMDD from the submissions feed; the refresh schedule follows its filing deadlines
+    @Column(name = "fiscal_year_end", length = 4)
+    private String fiscalYearEnd;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,72 @@
+package com.dexian.extractor.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "extraction_job", schema = "cait_dev")
+public class ExtractionJob {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "job_id")
+    private Long jobId;
+
+    @Column(name = "cik", nullable = false)
+    private String cik;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status = Status.QUEUED;
+
+    // Pipeline stage the job is currently in (DISCOVER, FETCH, PARSE, FALLBACK, PERSIST)
+    @Column(name = "stage")
+    private String stage;
+
+    @Column(name = "source")
+    private String source;
+
+    @Column(name = "metrics_stored")
+    private Integer metricsStored;
+
+    @Column(name = "fetch_millis")
+    private Long fetchMillis;
+
+    @Column(name = "parse_millis")
+    private Long parseMillis;
+
+    @Column(name = "persist_millis")
+    private Long persistMillis;
+
+    @Column(name = "message", columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // Node working on a RUNNING job, which must renew the lease before it expires or lose the job to another node
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "attempts")
+    private Integer attempts;
+
+}
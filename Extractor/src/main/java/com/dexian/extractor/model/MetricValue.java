@@ -12,6 +12,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+// Range-partitioned by period_end_date; table, partitions and indexes are maintained by MetricValuePartitionManager
 @Table(name = "metric_value", schema = "cait_dev")
 public class MetricValue {
 
@@ -43,12 +44,17 @@ public class MetricValue {
     @Column(name = "period_start_date")
     private LocalDate periodStartDate;
 
-    @Column(name = "period_end_date")
+    // Partition key of the table (see MetricValuePartitionManager)
+    @Column(name = "period_end_date", nullable = false)
     private LocalDate periodEndDate;
 
     @Column(name = "segment_name")
     private String segmentName;
 
+    // Accession of the filing the value was reported in ("" when not known); part of the natural key
+    @Column(name = "source_accession_number")
+    private String sourceAccessionNumber;
+
     @Column(name = "basin_name")
     private String basinName;
 
@@ -67,4 +73,8 @@ public class MetricValue {
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Id of the transaction that last wrote the row, set by the database on every upsert
+    @Column(name = "revision", insertable = false, updatable = false)
+    private Long revision;
+
 }
@@ -0,0 +1,66 @@
+package com.dexian.extractor.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Latest production value per company, calendar quarter and metric, maintained by the write path so
+ * peer comparisons read a handful of rows instead of aggregating {@code metric_value}.
+ * {@code metricValue} is converted from the reported unit to the metric's own (barrels for oil and NGLs, Mcf for
+ * gas, BOE for totals), {@code boeValue} is the value in barrels of oil equivalent.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(ProductionRollup.Key.class)
+@Table(name = "production_rollup", schema = "cait_dev", indexes = {
+        // One metric/quarter across companies
+        @Index(name = "ix_production_rollup_peers", columnList = "metric_id, quarter_end, company_id")
+})
+public class ProductionRollup {
+
+    @Id
+    @Column(name = "company_id")
+    private Integer companyId;
+
+    @Id
+    @Column(name = "quarter_end")
+    private LocalDate quarterEnd;
+
+    @Id
+    @Column(name = "metric_id")
+    private Integer metricId;
+
+    @Column(name = "metric_value")
+    private Double metricValue;
+
+    @Column(name = "boe_value")
+    private Double boeValue;
+
+    // Filing the value was taken from; a later filing (e.g. a 10-Q/A) replaces it. Unknown for a value taken
+    // from an XBRL frame, which any dated filing replaces and which replaces no dated one
+    @Column(name = "source_filing_date")
+    private LocalDate sourceFilingDate;
+
+    @Column(name = "source_accession_number")
+    private String sourceAccessionNumber;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private Integer companyId;
+        private LocalDate quarterEnd;
+        private Integer metricId;
+    }
+}
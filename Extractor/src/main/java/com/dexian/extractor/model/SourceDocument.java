@@ -31,7 +31,11 @@ public class SourceDocument {
     @Column(name = "filing_type")
     private String filingType;
 
-    @Column(name = "filing_date", nullable = false)
+    @Column(name = "accession_number")
+    private String accessionNumber;
+
+    // Unknown for values taken from XBRL frames (see NaturalKeySchema)
+    @Column(name = "filing_date")
     private LocalDate filingDate;
 
     @Column(name = "period_end_date")
@@ -0,0 +1,40 @@
+package com.dexian.extractor.repository;
+
+import com.dexian.extractor.dto.ExtractionResult;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@code extraction_job} as a work queue shared by every node, in plain SQL ({@code FOR UPDATE SKIP LOCKED}).
+ */
+public interface ExtractionJobQueueRepository {
+
+    /**
+     * Queue a job for {@code cik} unless one is already queued or running.
+     *
+     * @return id of the new job, or of the pending one
+     */
+    Long enqueue(String cik);
+
+    /**
+     * Lease up to {@code limit} jobs to {@code worker}: queued ones, and running ones whose lease expired
+     * (their node died). Jobs already claimed {@code maxAttempts} times fail instead.
+     *
+     * @return ids of the claimed jobs, oldest first
+     */
+    List<Long> claim(String worker, int limit, Duration lease, int maxAttempts);
+
+    /**
+     * Extend the leases {@code worker} still holds among {@code jobIds}.
+     */
+    int renewLeases(String worker, Collection<Long> jobIds, Duration lease);
+
+    /**
+     * Record the outcome, unless the lease was lost and another node owns the job now.
+     *
+     * @return whether the job was still leased to {@code worker}
+     */
+    boolean complete(Long jobId, String worker, ExtractionResult result);
+}
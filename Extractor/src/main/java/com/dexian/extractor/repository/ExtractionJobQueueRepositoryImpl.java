@@ -0,0 +1,114 @@
+package com.dexian.extractor.repository;
+
+import com.dexian.extractor.dto.ExtractionResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Claims take their rows with {@code FOR UPDATE SKIP LOCKED}, so nodes polling at the same time get disjoint
+ * batches without waiting on each other. Pending jobs are unique per CIK ({@code ux_extraction_job_pending},
+ * see {@link NaturalKeySchema}).
+ */
+@RequiredArgsConstructor
+public class ExtractionJobQueueRepositoryImpl implements ExtractionJobQueueRepository {
+
+    private static final String PENDING = "status IN ('QUEUED', 'RUNNING')";
+    private static final String LEASE_EXPIRED = "status = 'RUNNING' AND (lease_expires_at IS NULL OR lease_expires_at < LOCALTIMESTAMP)";
+
+    private static final String ENQUEUE = """
+            INSERT INTO cait_dev.extraction_job (cik, status, attempts, created_at)
+            VALUES (?, 'QUEUED', 0, LOCALTIMESTAMP)
+            ON CONFLICT (cik) WHERE %s DO NOTHING
+            RETURNING job_id
+            """.formatted(PENDING);
+
+    private static final String FAIL_ABANDONED = """
+            UPDATE cait_dev.extraction_job
+            SET status = 'FAILED', stage = NULL, lease_owner = NULL, lease_expires_at = NULL, finished_at = LOCALTIMESTAMP,
+                message = 'Abandoned by its worker ' || COALESCE(attempts, 0) || ' times'
+            WHERE %s AND COALESCE(attempts, 0) >= ?
+            """.formatted(LEASE_EXPIRED);
+
+    private static final String CLAIM = """
+            WITH claimable AS (
+                SELECT job_id FROM cait_dev.extraction_job
+                WHERE status = 'QUEUED' OR (%s)
+                ORDER BY job_id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            UPDATE cait_dev.extraction_job j
+            SET status = 'RUNNING', stage = NULL, lease_owner = ?, lease_expires_at = LOCALTIMESTAMP + make_interval(secs => ?),
+                attempts = COALESCE(j.attempts, 0) + 1, started_at = LOCALTIMESTAMP
+            FROM claimable
+            WHERE j.job_id = claimable.job_id
+            RETURNING j.job_id
+            """.formatted(LEASE_EXPIRED);
+
+    private static final String RENEW = """
+            UPDATE cait_dev.extraction_job
+            SET lease_expires_at = LOCALTIMESTAMP + make_interval(secs => ?)
+            WHERE lease_owner = ? AND status = 'RUNNING' AND job_id = ANY (?)
+            """;
+
+    private static final String COMPLETE = """
+            UPDATE cait_dev.extraction_job
+            SET status = ?, stage = NULL, source = ?, metrics_stored = ?, fetch_millis = ?, parse_millis = ?,
+                persist_millis = ?, message = ?, finished_at = LOCALTIMESTAMP, lease_owner = NULL, lease_expires_at = NULL
+            WHERE job_id = ? AND lease_owner = ? AND status = 'RUNNING'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Long enqueue(String cik) {
+        // The pending job may finish between the two statements; then queue again
+        for (int attempt = 0; attempt < 3; attempt++) {
+            List<Long> created = jdbcTemplate.queryForList(ENQUEUE, Long.class, cik);
+            if (!created.isEmpty()) return created.get(0);
+            List<Long> pending = jdbcTemplate.queryForList(
+                    "SELECT job_id FROM cait_dev.extraction_job WHERE cik = ? AND " + PENDING, Long.class, cik);
+            if (!pending.isEmpty()) return pending.get(0);
+        }
+        throw new IllegalStateException("Could not queue an extraction job for CIK " + cik);
+    }
+
+    @Override
+    public List<Long> claim(String worker, int limit, Duration lease, int maxAttempts) {
+        jdbcTemplate.update(FAIL_ABANDONED, maxAttempts);
+        return jdbcTemplate.queryForList(CLAIM, Long.class, limit, worker, seconds(lease));
+    }
+
+    @Override
+    public int renewLeases(String worker, Collection<Long> jobIds, Duration lease) {
+        if (jobIds.isEmpty()) return 0;
+        return jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement(RENEW);
+            ps.setDouble(1, seconds(lease));
+            ps.setString(2, worker);
+            ps.setArray(3, con.createArrayOf("bigint", jobIds.toArray()));
+            return ps;
+        });
+    }
+
+    @Override
+    public boolean complete(Long jobId, String worker, ExtractionResult result) {
+        return jdbcTemplate.update(COMPLETE,
+                result.success() ? "SUCCEEDED" : "FAILED",
+                result.source(),
+                result.metricsStored(),
+                result.fetchMillis(),
+                result.parseMillis(),
+                result.persistMillis(),
+                result.message(),
+                jobId,
+                worker) == 1;
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,16 @@
+package com.dexian.extractor.repository;
+
+import com.dexian.extractor.model.ExtractionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ExtractionJobRepository extends JpaRepository<ExtractionJob, Long>, ExtractionJobQueueRepository {
+
+    @Transactional
+    @Modifying
+    @Query("update ExtractionJob j set j.stage = :stage where j.jobId = :jobId and j.leaseOwner = :worker")
+    void updateStage(@Param("jobId") Long jobId, @Param("worker") String worker, @Param("stage") String stage);
+}
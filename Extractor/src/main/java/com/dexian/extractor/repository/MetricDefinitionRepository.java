@@ -3,9 +3,13 @@ package com.dexian.extractor.repository;
 import com.dexian.extractor.model.MetricDefinition;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface MetricDefinitionRepository extends JpaRepository<MetricDefinition, Integer> {
 
     Optional<MetricDefinition> findByMetricNameDisplay(String metricNameDisplay);
+
+    List<MetricDefinition> findByMetricNameDisplayIn(Collection<String> metricNameDisplays);
 }
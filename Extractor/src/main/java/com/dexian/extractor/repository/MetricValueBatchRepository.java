@@ -0,0 +1,20 @@
+package com.dexian.extractor.repository;
+
+import com.dexian.extractor.model.MetricValue;
+
+import java.util.List;
+
+/**
+ * Bulk write path for {@link MetricValue}, bypassing per-entity persist.
+ */
+public interface MetricValueBatchRepository {
+
+    /**
+     * Insert or update all values with JDBC batching, keyed on the natural key (company, metric, period,
+     * segment, source accession), so writing the same extraction twice leaves the table unchanged.
+     * Company, metric definition and source document must already have ids.
+     *
+     * @return the values written, with duplicate keys collapsed to the last one
+     */
+    List<MetricValue> batchUpsert(List<MetricValue> values);
+}
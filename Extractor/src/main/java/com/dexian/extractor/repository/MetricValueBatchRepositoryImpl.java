@@ -0,0 +1,113 @@
+package com.dexian.extractor.repository;
+
+import com.dexian.extractor.model.MetricValue;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code IDENTITY} ids stop Hibernate from batching inserts, so metric values go through a plain
+ * JDBC batch instead (rewritten to multi-row inserts by the driver's {@code reWriteBatchedInserts}).
+ * Rows are upserted on the {@code ux_metric_value_natural_key} index (see {@link NaturalKeySchema}); the
+ * extraction method is part of that key, so a re-extraction under a new version adds rows beside the old ones.
+ * Every insert or change stamps {@code revision} with the writing transaction's id ({@code txid_current()}), which
+ * is what readers catching up on changes (see {@code MetricSeriesStore}) go by.
+ */
+@RequiredArgsConstructor
+public class MetricValueBatchRepositoryImpl implements MetricValueBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    // Rows whose extracted figures did not change are left alone, so re-runs create no dead tuples
+    private static final String UPSERT_SQL = """
+            INSERT INTO cait_dev.metric_value AS mv
+                (company_id, metric_id, source_document_id, extracted_metric_value, extracted_metric_unit,
+                 period_start_date, period_end_date, segment_name, source_accession_number, basin_name,
+                 extraction_method, extraction_confidence_score, metric_value, unit, created_at, revision)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, txid_current())
+            ON CONFLICT (company_id, metric_id, period_end_date, period_start_date, segment_name, source_accession_number,
+                         extraction_method)
+            DO UPDATE SET
+                source_document_id = EXCLUDED.source_document_id,
+                extracted_metric_value = EXCLUDED.extracted_metric_value,
+                extracted_metric_unit = EXCLUDED.extracted_metric_unit,
+                basin_name = EXCLUDED.basin_name,
+                extraction_confidence_score = EXCLUDED.extraction_confidence_score,
+                metric_value = COALESCE(EXCLUDED.metric_value, mv.metric_value),
+                unit = COALESCE(EXCLUDED.unit, mv.unit),
+                revision = EXCLUDED.revision
+            WHERE (mv.source_document_id, mv.extracted_metric_value, mv.extracted_metric_unit, mv.basin_name,
+                   mv.extraction_confidence_score)
+                  IS DISTINCT FROM
+                  (EXCLUDED.source_document_id, EXCLUDED.extracted_metric_value, EXCLUDED.extracted_metric_unit,
+                   EXCLUDED.basin_name, EXCLUDED.extraction_confidence_score)
+               OR (EXCLUDED.metric_value IS NOT NULL AND EXCLUDED.metric_value IS DISTINCT FROM mv.metric_value)
+               OR (EXCLUDED.unit IS NOT NULL AND EXCLUDED.unit IS DISTINCT FROM mv.unit)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<MetricValue> batchUpsert(List<MetricValue> values) {
+        if (values.isEmpty()) return values;
+
+        // A rewritten batch is one INSERT statement, and ON CONFLICT may not touch the same row twice in one statement
+        Map<NaturalKey, MetricValue> unique = new LinkedHashMap<>();
+        for (MetricValue mv : values) {
+            unique.put(NaturalKey.of(mv), mv);
+        }
+        List<MetricValue> rows = new ArrayList<>(unique.values());
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, BATCH_SIZE, (ps, mv) -> {
+            ps.setInt(1, mv.getCompany().getCompanyId());
+            ps.setInt(2, mv.getMetricDefinition().getMetricId());
+            ps.setInt(3, mv.getSourceDocument().getSourceDocumentId());
+            ps.setObject(4, mv.getExtractedMetricValue(), Types.DOUBLE);
+            ps.setString(5, mv.getExtractedMetricUnit());
+            ps.setDate(6, toDate(mv.getPeriodStartDate()));
+            ps.setDate(7, toDate(mv.getPeriodEndDate()));
+            ps.setString(8, nullToEmpty(mv.getSegmentName()));
+            ps.setString(9, nullToEmpty(mv.getSourceAccessionNumber()));
+            ps.setString(10, mv.getBasinName());
+            ps.setString(11, nullToEmpty(mv.getExtractionMethod()));
+            ps.setObject(12, mv.getExtractionConfidenceScore(), Types.DOUBLE);
+            ps.setObject(13, mv.getMetricValue(), Types.DOUBLE);
+            ps.setString(14, mv.getUnit());
+            ps.setTimestamp(15, toTimestamp(mv.getCreatedAt()));
+        });
+        return rows;
+    }
+
+    private record NaturalKey(int companyId, int metricId, LocalDate periodStart, LocalDate periodEnd,
+                              String segment, String accession, String method) {
+
+        static NaturalKey of(MetricValue mv) {
+            return new NaturalKey(mv.getCompany().getCompanyId(), mv.getMetricDefinition().getMetricId(),
+                    mv.getPeriodStartDate(), mv.getPeriodEndDate(),
+                    nullToEmpty(mv.getSegmentName()), nullToEmpty(mv.getSourceAccessionNumber()),
+                    nullToEmpty(mv.getExtractionMethod()));
+        }
+    }
+
+    // Key columns are never NULL: NULLs would never conflict and every re-run would insert again
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static Date toDate(LocalDate date) {
+        return date == null ? null : Date.valueOf(date);
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time == null ? null : Timestamp.valueOf(time);
+    }
+}
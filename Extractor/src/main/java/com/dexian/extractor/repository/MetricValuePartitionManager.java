@@ -0,0 +1,340 @@
+package com.dexian.extractor.repository;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps {@code metric_value} range-partitioned by year of {@code period_end_date}.
+ * <p>
+ * The table is created here rather than by Hibernate (see {@code PartitionedTableSchemaFilter}); an
+ * existing heap table is converted on first start in one transaction, rows, indexes and foreign keys
+ * carried over. Partitions exist from {@code sec.partitions.first-year} (XBRL reporting began in 2009) to
+ * {@code sec.partitions.premake-years} ahead, and older years are added on demand; years older than {@code sec.partitions.retention-years}
+ * are detached into {@code sec.partitions.archive-schema}, where they stay queryable but out of the
+ * write path, autovacuum and every index scan of recent quarters. Both are re-applied every
+ * {@code sec.partitions.maintenance-interval}, so a long-running node rolls over years too.
+ * <p>
+ * Startup fails when the table or the current year's partition cannot be set up: nothing could be stored.
+ */
+@Component
+public class MetricValuePartitionManager {
+
+    private static final String TABLE = "cait_dev.metric_value";
+    private static final String UNPARTITIONED = "metric_value_unpartitioned";
+    private static final Pattern PARTITION_NAME = Pattern.compile("metric_value_y(\\d{4})");
+
+    // Mirrors the MetricValue mapping; unique keys of a partitioned table must contain period_end_date
+    private static final String CREATE_TABLE = """
+            CREATE TABLE cait_dev.metric_value (
+                metric_value_id bigint GENERATED BY DEFAULT AS IDENTITY,
+                company_id integer NOT NULL REFERENCES cait_dev.companies,
+                metric_id integer NOT NULL REFERENCES cait_dev.metric_definition,
+                source_document_id integer NOT NULL REFERENCES cait_dev.source_document,
+                extracted_metric_value float(53),
+                extracted_metric_unit varchar(255),
+                period_start_date date,
+                period_end_date date NOT NULL,
+                segment_name varchar(255),
+                source_accession_number varchar(255),
+                basin_name varchar(255),
+                extraction_method varchar(255),
+                extraction_confidence_score float(53),
+                metric_value float(53),
+                unit varchar(255),
+                created_at timestamp(6),
+                revision bigint,
+                CONSTRAINT metric_value_pkey PRIMARY KEY (metric_value_id, period_end_date)
+            ) PARTITION BY RANGE (period_end_date)
+            """;
+
+    // Time series of one company/metric, newest first (keyset on period end + id)
+    private static final String CREATE_SERIES_INDEX = """
+            CREATE INDEX IF NOT EXISTS ix_metric_value_series
+                ON cait_dev.metric_value (company_id, metric_id, period_end_date, metric_value_id)
+            """;
+
+    // Writing transaction of each row (see MetricValueBatchRepositoryImpl), for readers catching up on changes
+    private static final String CREATE_REVISION_INDEX = """
+            CREATE INDEX IF NOT EXISTS ix_metric_value_revision ON cait_dev.metric_value (revision)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final int retentionYears;
+    private final int firstYear;
+    private final int premakeYears;
+    private final String archiveSchema;
+
+    private final Duration maintenanceInterval;
+    private final ScheduledExecutorService maintenance;
+
+    // Years known to have a partition; checked before every write, so DDL only runs for a new year
+    private final Set<Integer> partitionYears = ConcurrentHashMap.newKeySet();
+
+    public MetricValuePartitionManager(JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${sec.partitions.retention-years:0}") int retentionYears,
+                                       @Value("${sec.partitions.first-year:2009}") int firstYear,
+                                       @Value("${sec.partitions.premake-years:1}") int premakeYears,
+                                       @Value("${sec.partitions.archive-schema:cait_archive}") String archiveSchema,
+                                       @Value("${sec.partitions.maintenance-interval:1d}") Duration maintenanceInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Partition DDL locks the parent table; commit it at once instead of holding it for the caller's whole batch
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.retentionYears = retentionYears;
+        this.firstYear = firstYear;
+        this.premakeYears = premakeYears;
+        this.archiveSchema = archiveSchema;
+        this.maintenanceInterval = maintenanceInterval;
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sec-partitions-"));
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintain() {
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                String kind = tableKind();
+                if (kind == null) {
+                    jdbcTemplate.execute(CREATE_TABLE);
+                    System.out.println("✅ Created partitioned metric_value");
+                } else if (!kind.equals("p")) {
+                    convertToPartitioned();
+                }
+                jdbcTemplate.execute(CREATE_SERIES_INDEX);
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD COLUMN IF NOT EXISTS revision bigint");
+                jdbcTemplate.execute(CREATE_REVISION_INDEX);
+            });
+            loadPartitionYears();
+            createUpcomingPartitions();
+            applyRetention();
+        } catch (Exception e) {
+            throw new IllegalStateException("metric_value partition maintenance failed: " + e.getMessage(), e);
+        }
+        if (!canStore(LocalDate.now())) {
+            throw new IllegalStateException("metric_value has no partition for " + LocalDate.now().getYear());
+        }
+
+        long interval = maintenanceInterval.toMillis();
+        maintenance.scheduleWithFixedDelay(() -> {
+            try {
+                createUpcomingPartitions();
+                applyRetention();
+            } catch (Exception e) {
+                System.err.println("⚠️ metric_value partition maintenance failed: " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintenance.shutdownNow();
+    }
+
+    /**
+     * Whether a value for a period ending on {@code periodEnd} can be written: within retention and with a partition.
+     */
+    public boolean canStore(LocalDate periodEnd) {
+        return isRetained(periodEnd) && partitionYears.contains(periodEnd.getYear());
+    }
+
+    /**
+     * Create any missing partitions for these period end dates, skipping years outside retention.
+     * <p>
+     * A new partition inherits metric_value's foreign keys, which locks the referenced tables against
+     * writes, so call this before the current transaction writes anything. Waits for other writers are
+     * bounded by a lock timeout; a year that could not be created is left out (see {@link #canStore}).
+     */
+    public void ensurePartitions(Collection<LocalDate> periodEnds) {
+        Set<Integer> missing = new TreeSet<>();
+        for (LocalDate periodEnd : periodEnds) {
+            if (periodEnd != null && isRetained(periodEnd) && !partitionYears.contains(periodEnd.getYear())) {
+                missing.add(periodEnd.getYear());
+            }
+        }
+        if (missing.isEmpty()) return;
+
+        synchronized (this) {
+            for (int year : missing) {
+                if (partitionYears.contains(year)) continue;
+                try {
+                    requiresNew.executeWithoutResult(status -> {
+                        jdbcTemplate.execute("SET LOCAL lock_timeout = '10s'");
+                        createPartition(year);
+                    });
+                    partitionYears.add(year);
+                    System.out.println("🗂️ Created partition metric_value_y" + year);
+                } catch (DataAccessException e) {
+                    System.err.println("⚠️ Could not create partition metric_value_y" + year + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Detach the partitions of years before the retention window into the archive schema.
+     */
+    public synchronized List<String> applyRetention() {
+        List<String> archived = new ArrayList<>();
+        if (retentionYears <= 0) return archived;
+
+        int firstRetained = firstRetainedYear();
+        for (int year : new TreeSet<>(partitionYears)) {
+            if (year >= firstRetained) break;
+            String partition = "metric_value_y" + year;
+            if (!isAttached(partition)) {
+                // Archived by another node
+                partitionYears.remove(year);
+                continue;
+            }
+            requiresNew.executeWithoutResult(status -> {
+                jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION cait_dev." + partition);
+                jdbcTemplate.execute("ALTER TABLE cait_dev." + partition + " SET SCHEMA " + archiveSchema);
+            });
+            partitionYears.remove(year);
+            archived.add(archiveSchema + "." + partition);
+            System.out.println("📦 Archived " + partition + " to schema " + archiveSchema);
+        }
+        return archived;
+    }
+
+    /**
+     * Partitions from {@code sec.partitions.first-year} to {@code sec.partitions.premake-years} past this one.
+     */
+    private void createUpcomingPartitions() {
+        int lastYear = LocalDate.now().getYear() + premakeYears;
+        List<LocalDate> years = new ArrayList<>();
+        for (int year = firstYear; year <= lastYear; year++) {
+            years.add(LocalDate.of(year, 1, 1));
+        }
+        ensurePartitions(years);
+    }
+
+    private boolean isAttached(String partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                               WHERE i.inhparent = 'cait_dev.metric_value'::regclass AND c.relname = ?)
+                """, Boolean.class, partition));
+    }
+
+    private boolean isRetained(LocalDate periodEnd) {
+        return retentionYears <= 0 || periodEnd.getYear() >= firstRetainedYear();
+    }
+
+    private int firstRetainedYear() {
+        return LocalDate.now().getYear() - retentionYears + 1;
+    }
+
+    private void createPartition(int year) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS cait_dev.metric_value_y" + year
+                + " PARTITION OF " + TABLE
+                + " FOR VALUES FROM ('" + LocalDate.of(year, 1, 1) + "') TO ('" + LocalDate.of(year + 1, 1, 1) + "')");
+    }
+
+    /**
+     * {@code pg_class.relkind} of the table: {@code p} partitioned, {@code r} plain, {@code null} missing.
+     */
+    private String tableKind() {
+        List<String> kind = jdbcTemplate.queryForList(
+                "SELECT c.relkind::text FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+                        + "WHERE n.nspname = 'cait_dev' AND c.relname = 'metric_value'", String.class);
+        return kind.isEmpty() ? null : kind.get(0);
+    }
+
+    private void loadPartitionYears() {
+        jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'cait_dev.metric_value'::regclass
+                """, String.class).forEach(name -> {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) partitionYears.add(Integer.parseInt(matcher.group(1)));
+        });
+    }
+
+    /**
+     * Swap the heap table for a partitioned one with the same columns, indexes and foreign keys. The primary
+     * key becomes (metric_value_id, period_end_date), as a partitioned table's unique keys must contain the
+     * partition column; rows without a period end cannot be partitioned and stay behind in the old table.
+     */
+    private void convertToPartitioned() {
+        // Added by Hibernate before it stopped managing this table; absent on databases that skipped that release
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD COLUMN IF NOT EXISTS source_accession_number varchar(255)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + UNPARTITIONED);
+        String old = "cait_dev." + UNPARTITIONED;
+
+        List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList("""
+                SELECT conname, pg_get_constraintdef(oid) AS definition FROM pg_constraint
+                WHERE conrelid = 'cait_dev.metric_value_unpartitioned'::regclass AND contype = 'f'
+                """);
+        List<String> indexes = jdbcTemplate.queryForList("""
+                SELECT indexdef FROM pg_indexes
+                WHERE schemaname = 'cait_dev' AND tablename = 'metric_value_unpartitioned'
+                  AND indexname <> 'metric_value_pkey'
+                """, String.class);
+        for (Map<String, Object> fk : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + old + " DROP CONSTRAINT " + fk.get("conname"));
+        }
+        jdbcTemplate.queryForList("""
+                SELECT indexname FROM pg_indexes WHERE schemaname = 'cait_dev' AND tablename = 'metric_value_unpartitioned'
+                  AND indexname <> 'metric_value_pkey'
+                """, String.class).forEach(index -> jdbcTemplate.execute("DROP INDEX cait_dev." + index));
+        jdbcTemplate.execute("ALTER TABLE " + old + " DROP CONSTRAINT metric_value_pkey");
+
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + old + " INCLUDING DEFAULTS INCLUDING IDENTITY)"
+                + " PARTITION BY RANGE (period_end_date)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ALTER COLUMN period_end_date SET NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT metric_value_pkey PRIMARY KEY (metric_value_id, period_end_date)");
+
+        List<Integer> years = jdbcTemplate.queryForList(
+                "SELECT DISTINCT EXTRACT(YEAR FROM period_end_date)::int FROM " + old + " WHERE period_end_date IS NOT NULL",
+                Integer.class);
+        years.forEach(this::createPartition);
+
+        int moved = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + old + " WHERE period_end_date IS NOT NULL");
+        jdbcTemplate.execute("SELECT setval(pg_get_serial_sequence('" + TABLE + "', 'metric_value_id'), "
+                + "(SELECT COALESCE(MAX(metric_value_id), 0) + 1 FROM " + old + "), false)");
+
+        for (String index : indexes) {
+            jdbcTemplate.execute(index.replace(" ON " + old + " ", " ON " + TABLE + " "));
+        }
+        for (Map<String, Object> fk : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + fk.get("conname") + " " + fk.get("definition"));
+        }
+
+        Integer leftover = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + old + " WHERE period_end_date IS NULL", Integer.class);
+        if (leftover == null || leftover == 0) {
+            jdbcTemplate.execute("DROP TABLE " + old);
+        } else {
+            System.out.println("⚠️ " + leftover + " metric values without a period end left in " + old);
+        }
+        System.out.println("✅ Partitioned metric_value by period end year (" + moved + " rows in " + years.size() + " partitions)");
+    }
+}
@@ -0,0 +1,26 @@
+package com.dexian.extractor.repository;
+
+import com.dexian.extractor.dto.MetricPoint;
+import com.dexian.extractor.model.MetricValue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read path for {@link MetricValue}: flat projections with keyset pagination, served by the
+ * indexes declared on the entity.
+ */
+public interface MetricValueQueryRepository {
+
+    /**
+     * A company's values of one metric, newest period first.
+     *
+     * @param from         earliest period end to include, or {@code null}
+     * @param to           latest period end to include, or {@code null}
+     * @param afterPeriod  period end of the last row already returned, or {@code null} for the first page
+     * @param afterId      metric value id of the last row already returned (with {@code afterPeriod})
+     */
+    List<MetricPoint> findSeries(String cik, String metricName, LocalDate from, LocalDate to,
+                                 LocalDate afterPeriod, Long afterId, int limit);
+
+}
@@ -0,0 +1,73 @@
+package com.dexian.extractor.repository;
+
+import com.dexian.extractor.dto.MetricPoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plain SQL so that pages are read with a row-value keyset comparison, which PostgreSQL turns into a
+ * single index range scan no matter how deep the page is (unlike {@code OFFSET}).
+ */
+@RequiredArgsConstructor
+public class MetricValueQueryRepositoryImpl implements MetricValueQueryRepository {
+
+    private static final String VALUE_COLUMNS = """
+            COALESCE(mv.metric_value, mv.extracted_metric_value) AS value,
+            COALESCE(mv.unit, mv.extracted_metric_unit, md.metric_unit) AS unit
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<MetricPoint> findSeries(String cik, String metricName, LocalDate from, LocalDate to,
+                                        LocalDate afterPeriod, Long afterId, int limit) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT mv.metric_value_id, mv.period_start_date, mv.period_end_date, mv.extraction_method, sd.source_url,
+                """).append(VALUE_COLUMNS).append("""
+                FROM cait_dev.metric_value mv
+                JOIN cait_dev.companies c ON c.company_id = mv.company_id
+                JOIN cait_dev.metric_definition md ON md.metric_id = mv.metric_id
+                LEFT JOIN cait_dev.source_document sd ON sd.source_document_id = mv.source_document_id
+                WHERE c.sec_cik_number = ? AND md.metric_name_display = ? AND mv.period_end_date IS NOT NULL
+                """);
+        List<Object> args = new ArrayList<>(List.of(cik, metricName));
+        if (from != null) {
+            sql.append(" AND mv.period_end_date >= ?");
+            args.add(Date.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND mv.period_end_date <= ?");
+            args.add(Date.valueOf(to));
+        }
+        if (afterPeriod != null && afterId != null) {
+            // The plain bound lets the planner skip partitions the row comparison alone would not
+            sql.append(" AND mv.period_end_date <= ? AND (mv.period_end_date, mv.metric_value_id) < (?, ?)");
+            args.add(Date.valueOf(afterPeriod));
+            args.add(Date.valueOf(afterPeriod));
+            args.add(afterId);
+        }
+        sql.append(" ORDER BY mv.period_end_date DESC, mv.metric_value_id DESC LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, i) -> new MetricPoint(
+                rs.getLong("metric_value_id"),
+                toLocalDate(rs, "period_start_date"),
+                toLocalDate(rs, "period_end_date"),
+                rs.getObject("value", Double.class),
+                rs.getString("unit"),
+                rs.getString("extraction_method"),
+                rs.getString("source_url")), args.toArray());
+    }
+
+    private static LocalDate toLocalDate(ResultSet rs, String column) throws SQLException {
+        Date date = rs.getDate(column);
+        return date == null ? null : date.toLocalDate();
+    }
+}
@@ -0,0 +1,144 @@
+package com.dexian.extractor.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Unique indexes the upserts of {@link MetricValueBatchRepositoryImpl} and {@link SourceDocumentJdbcRepositoryImpl},
+ * and the job queue of {@link ExtractionJobQueueRepositoryImpl}, conflict on. Hibernate's schema update cannot create them over rows written before they existed, so the
+ * first start after upgrading merges those duplicates (keeping the newest row) and then builds the indexes.
+ * It cannot relax a column either: {@code source_document.filing_date} became nullable for XBRL frame values.
+ */
+@Component
+@RequiredArgsConstructor
+public class NaturalKeySchema {
+
+    private static final String MERGE_SOURCE_DOCUMENTS = """
+            WITH ranked AS (
+                SELECT source_document_id,
+                       MAX(source_document_id) OVER (PARTITION BY company_id, source_url) AS keep_id
+                FROM cait_dev.source_document
+                WHERE source_url IS NOT NULL)
+            UPDATE cait_dev.metric_value mv SET source_document_id = ranked.keep_id
+            FROM ranked
+            WHERE mv.source_document_id = ranked.source_document_id AND ranked.keep_id <> ranked.source_document_id
+            """;
+
+    private static final String DELETE_DUPLICATE_SOURCE_DOCUMENTS = """
+            DELETE FROM cait_dev.source_document sd
+            USING (SELECT source_document_id,
+                          MAX(source_document_id) OVER (PARTITION BY company_id, source_url) AS keep_id
+                   FROM cait_dev.source_document
+                   WHERE source_url IS NOT NULL) ranked
+            WHERE sd.source_document_id = ranked.source_document_id AND ranked.keep_id <> ranked.source_document_id
+            """;
+
+    private static final String FILL_METRIC_VALUE_KEYS = """
+            UPDATE cait_dev.metric_value mv
+            SET source_accession_number = COALESCE(mv.source_accession_number, sd.accession_number, ''),
+                segment_name = COALESCE(mv.segment_name, ''),
+                extraction_method = CASE
+                    WHEN mv.extraction_method IS NULL THEN ''
+                    WHEN mv.extraction_method = 'SEC_JSON' AND sd.file_format = 'HTML'
+                         AND sd.raw_text_blob_path IS NOT NULL THEN 'SEC_HTML'
+                    ELSE mv.extraction_method END
+            FROM cait_dev.source_document sd
+            WHERE sd.source_document_id = mv.source_document_id
+              AND (mv.source_accession_number IS NULL OR mv.segment_name IS NULL OR mv.extraction_method IS NULL
+                   OR (mv.extraction_method = 'SEC_JSON' AND sd.file_format = 'HTML' AND sd.raw_text_blob_path IS NOT NULL))
+            """;
+
+    private static final String DELETE_DUPLICATE_METRIC_VALUES = """
+            DELETE FROM cait_dev.metric_value mv
+            USING (SELECT metric_value_id,
+                          ROW_NUMBER() OVER (PARTITION BY company_id, metric_id, period_end_date, period_start_date,
+                                                          segment_name, source_accession_number, extraction_method
+                                             ORDER BY metric_value_id DESC) AS position
+                   FROM cait_dev.metric_value) ranked
+            WHERE mv.metric_value_id = ranked.metric_value_id AND ranked.position > 1
+            """;
+
+    private static final String FAIL_DUPLICATE_PENDING_JOBS = """
+            UPDATE cait_dev.extraction_job j
+            SET status = 'FAILED', message = 'Duplicate of job ' || ranked.keep_id, finished_at = LOCALTIMESTAMP
+            FROM (SELECT job_id, MIN(job_id) OVER (PARTITION BY cik) AS keep_id
+                  FROM cait_dev.extraction_job
+                  WHERE status IN ('QUEUED', 'RUNNING')) ranked
+            WHERE j.job_id = ranked.job_id AND ranked.keep_id <> ranked.job_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Once metric_value exists in its partitioned form, before anything else listening for startup can write
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void ensureNaturalKeys() {
+        if (!indexExists("ux_source_document_natural_key")) {
+            jdbcTemplate.update(MERGE_SOURCE_DOCUMENTS);
+            int merged = jdbcTemplate.update(DELETE_DUPLICATE_SOURCE_DOCUMENTS);
+            jdbcTemplate.execute("""
+                    CREATE UNIQUE INDEX ux_source_document_natural_key
+                        ON cait_dev.source_document (company_id, source_url)
+                    """);
+            System.out.println("✅ Created source_document natural key (" + merged + " duplicates merged)");
+        }
+
+        // Versions before re-extraction keyed without the extraction method, and stored HTML values as SEC_JSON
+        String metricValueKey = indexDefinition("ux_metric_value_natural_key");
+        if (metricValueKey == null || !metricValueKey.contains("extraction_method")) {
+            if (metricValueKey != null) {
+                jdbcTemplate.execute("DROP INDEX cait_dev.ux_metric_value_natural_key");
+            }
+            jdbcTemplate.update(FILL_METRIC_VALUE_KEYS);
+            int removed = jdbcTemplate.update(DELETE_DUPLICATE_METRIC_VALUES);
+            jdbcTemplate.execute("""
+                    CREATE UNIQUE INDEX ux_metric_value_natural_key
+                        ON cait_dev.metric_value (company_id, metric_id, period_end_date, period_start_date,
+                                                  segment_name, source_accession_number, extraction_method)
+                    """);
+            System.out.println("✅ Created metric_value natural key (" + removed + " duplicates removed)");
+        }
+
+        if (isNotNull("source_document", "filing_date")) {
+            jdbcTemplate.execute("ALTER TABLE cait_dev.source_document ALTER COLUMN filing_date DROP NOT NULL");
+        }
+
+        if (!indexExists("ux_extraction_job_pending")) {
+            int failed = jdbcTemplate.update(FAIL_DUPLICATE_PENDING_JOBS);
+            jdbcTemplate.execute("""
+                    CREATE UNIQUE INDEX ux_extraction_job_pending
+                        ON cait_dev.extraction_job (cik) WHERE status IN ('QUEUED', 'RUNNING')
+                    """);
+            // What claims scan, however long the job history grows
+            jdbcTemplate.execute("""
+                    CREATE INDEX IF NOT EXISTS ix_extraction_job_claimable
+                        ON cait_dev.extraction_job (job_id) WHERE status IN ('QUEUED', 'RUNNING')
+                    """);
+            System.out.println("✅ Created extraction_job queue indexes (" + failed + " duplicate jobs failed)");
+        }
+    }
+
+    private boolean isNotNull(String table, String column) {
+        return Boolean.TRUE.equals(jdbcTemplate.query("""
+                SELECT is_nullable = 'NO' FROM information_schema.columns
+                WHERE table_schema = 'cait_dev' AND table_name = ? AND column_name = ?
+                """, rs -> rs.next() ? rs.getBoolean(1) : null, table, column));
+    }
+
+    private boolean indexExists(String name) {
+        return indexDefinition(name) != null;
+    }
+
+    private String indexDefinition(String name) {
+        return jdbcTemplate.query(
+                "SELECT indexdef FROM pg_indexes WHERE schemaname = 'cait_dev' AND indexname = ?",
+                rs -> rs.next() ? rs.getString(1) : null, name);
+    }
+}
@@ -0,0 +1,36 @@
+package com.dexian.extractor.repository;
+
+import com.dexian.extractor.dto.CompanyMetricValue;
+import com.dexian.extractor.model.ProductionRollup;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Upserts and peer reads of {@link ProductionRollup} in plain SQL ({@code INSERT ... ON CONFLICT}).
+ */
+public interface ProductionRollupJdbcRepository {
+
+    /**
+     * Insert or replace rollup rows; an existing row is only replaced by one from the same or a later filing.
+     * Keys must be unique within {@code rows}.
+     */
+    void upsertLatest(List<ProductionRollup> rows);
+
+    /**
+     * Recompute the BOE total of each quarter from the component rows now stored: the sum of the
+     * component BOE values, or the reported total when no component is known.
+     *
+     * @param totalMetricId reported total metric, or {@code null}
+     */
+    void refreshBoeTotals(int companyId, Collection<LocalDate> quarterEnds, Collection<Integer> componentMetricIds,
+                          Integer totalMetricId, int boeMetricId);
+
+    /**
+     * Every company's value of one metric for one quarter, ordered by company id.
+     *
+     * @param afterCompanyId company id of the last row already returned, or {@code null} for the first page
+     */
+    List<CompanyMetricValue> findAcrossCompanies(String metricName, LocalDate quarterEnd, Integer afterCompanyId, int limit);
+}
@@ -0,0 +1,116 @@
+package com.dexian.extractor.repository;
+
+import com.dexian.extractor.dto.CompanyMetricValue;
+import com.dexian.extractor.model.ProductionRollup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ProductionRollupJdbcRepositoryImpl implements ProductionRollupJdbcRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO cait_dev.production_rollup AS r
+                (company_id, quarter_end, metric_id, metric_value, boe_value,
+                 source_filing_date, source_accession_number, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (company_id, quarter_end, metric_id) DO UPDATE SET
+                metric_value = EXCLUDED.metric_value,
+                boe_value = EXCLUDED.boe_value,
+                source_filing_date = EXCLUDED.source_filing_date,
+                source_accession_number = EXCLUDED.source_accession_number,
+                updated_at = EXCLUDED.updated_at
+            WHERE r.source_filing_date IS NULL OR EXCLUDED.source_filing_date >= r.source_filing_date
+            """;
+
+    private static final String BOE_TOTAL_SQL = """
+            INSERT INTO cait_dev.production_rollup AS r
+                (company_id, quarter_end, metric_id, metric_value, boe_value, source_filing_date, updated_at)
+            SELECT company_id, quarter_end, ?, boe, boe, filed, now()
+            FROM (SELECT company_id, quarter_end,
+                         COALESCE(SUM(boe_value) FILTER (WHERE metric_id <> ?),
+                                  MAX(boe_value) FILTER (WHERE metric_id = ?)) AS boe,
+                         MAX(source_filing_date) AS filed
+                  FROM cait_dev.production_rollup
+                  WHERE company_id = ? AND quarter_end = ? AND metric_id IN (%s)
+                  GROUP BY company_id, quarter_end) totals
+            WHERE boe IS NOT NULL
+            ON CONFLICT (company_id, quarter_end, metric_id) DO UPDATE SET
+                metric_value = EXCLUDED.metric_value,
+                boe_value = EXCLUDED.boe_value,
+                source_filing_date = EXCLUDED.source_filing_date,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsertLatest(List<ProductionRollup> rows) {
+        if (rows.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setInt(1, row.getCompanyId());
+            ps.setDate(2, Date.valueOf(row.getQuarterEnd()));
+            ps.setInt(3, row.getMetricId());
+            ps.setObject(4, row.getMetricValue(), Types.DOUBLE);
+            ps.setObject(5, row.getBoeValue(), Types.DOUBLE);
+            ps.setDate(6, row.getSourceFilingDate() == null ? null : Date.valueOf(row.getSourceFilingDate()));
+            ps.setString(7, row.getSourceAccessionNumber());
+            ps.setTimestamp(8, Timestamp.valueOf(row.getUpdatedAt()));
+        });
+    }
+
+    @Override
+    public void refreshBoeTotals(int companyId, Collection<LocalDate> quarterEnds, Collection<Integer> componentMetricIds,
+                                 Integer totalMetricId, int boeMetricId) {
+        List<Integer> metricIds = new ArrayList<>(componentMetricIds);
+        if (totalMetricId != null) metricIds.add(totalMetricId);
+        if (quarterEnds.isEmpty() || metricIds.isEmpty()) return;
+
+        String sql = BOE_TOTAL_SQL.formatted(String.join(", ", Collections.nCopies(metricIds.size(), "?")));
+        int total = totalMetricId != null ? totalMetricId : -1;
+        for (LocalDate quarterEnd : quarterEnds) {
+            List<Object> args = new ArrayList<>(List.of(boeMetricId, total, total, companyId, Date.valueOf(quarterEnd)));
+            args.addAll(metricIds);
+            jdbcTemplate.update(sql, args.toArray());
+        }
+    }
+
+    @Override
+    public List<CompanyMetricValue> findAcrossCompanies(String metricName, LocalDate quarterEnd, Integer afterCompanyId, int limit) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT r.company_id, c.sec_cik_number, c.company_name, c.ticker_symbol, r.quarter_end,
+                       r.metric_value, md.metric_unit
+                FROM cait_dev.production_rollup r
+                JOIN cait_dev.metric_definition md ON md.metric_id = r.metric_id
+                JOIN cait_dev.companies c ON c.company_id = r.company_id
+                WHERE md.metric_name_display = ? AND r.quarter_end = ?
+                """);
+        List<Object> args = new ArrayList<>(List.of(metricName, Date.valueOf(quarterEnd)));
+        if (afterCompanyId != null) {
+            sql.append(" AND r.company_id > ?");
+            args.add(afterCompanyId);
+        }
+        sql.append(" ORDER BY r.company_id LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, i) -> new CompanyMetricValue(
+                rs.getInt("company_id"),
+                rs.getString("sec_cik_number"),
+                rs.getString("company_name"),
+                rs.getString("ticker_symbol"),
+                rs.getDate("quarter_end").toLocalDate(),
+                rs.getObject("metric_value", Double.class),
+                rs.getString("metric_unit")), args.toArray());
+    }
+}
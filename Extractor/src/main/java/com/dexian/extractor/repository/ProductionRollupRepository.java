@@ -0,0 +1,8 @@
+package com.dexian.extractor.repository;
+
+import com.dexian.extractor.model.ProductionRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProductionRollupRepository extends JpaRepository<ProductionRollup, ProductionRollup.Key>,
+        ProductionRollupJdbcRepository {
+}
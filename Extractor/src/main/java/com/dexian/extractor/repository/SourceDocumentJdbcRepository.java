@@ -0,0 +1,17 @@
+package com.dexian.extractor.repository;
+
+import com.dexian.extractor.model.SourceDocument;
+
+import java.util.Collection;
+
+/**
+ * Write path for {@link SourceDocument} keyed on its natural key, the company and source URL.
+ */
+public interface SourceDocumentJdbcRepository {
+
+    /**
+     * Insert each document or refresh the existing row for its company and URL, and set its id.
+     * Company must already have an id.
+     */
+    void upsertAll(Collection<SourceDocument> documents);
+}
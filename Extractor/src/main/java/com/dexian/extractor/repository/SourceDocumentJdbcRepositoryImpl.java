@@ -0,0 +1,60 @@
+package com.dexian.extractor.repository;
+
+import com.dexian.extractor.model.SourceDocument;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Upserts on the {@code ux_source_document_natural_key} index (see {@link NaturalKeySchema}); a filing
+ * seen again keeps its original row and id.
+ */
+@RequiredArgsConstructor
+public class SourceDocumentJdbcRepositoryImpl implements SourceDocumentJdbcRepository {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO cait_dev.source_document AS sd
+                (company_id, source_type, filing_type, accession_number, filing_date, period_end_date,
+                 source_url, raw_text_blob_path, file_format, extraction_confidence_score, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (company_id, source_url) DO UPDATE SET
+                source_type = EXCLUDED.source_type,
+                filing_type = EXCLUDED.filing_type,
+                accession_number = COALESCE(EXCLUDED.accession_number, sd.accession_number),
+                filing_date = COALESCE(EXCLUDED.filing_date, sd.filing_date),
+                period_end_date = COALESCE(EXCLUDED.period_end_date, sd.period_end_date),
+                raw_text_blob_path = COALESCE(EXCLUDED.raw_text_blob_path, sd.raw_text_blob_path),
+                file_format = CASE WHEN EXCLUDED.raw_text_blob_path IS NULL AND sd.raw_text_blob_path IS NOT NULL
+                                   THEN sd.file_format ELSE EXCLUDED.file_format END,
+                extraction_confidence_score = COALESCE(EXCLUDED.extraction_confidence_score, sd.extraction_confidence_score)
+            RETURNING source_document_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsertAll(Collection<SourceDocument> documents) {
+        for (SourceDocument document : documents) {
+            document.setSourceDocumentId(jdbcTemplate.queryForObject(UPSERT_SQL, Integer.class,
+                    document.getCompany().getCompanyId(),
+                    document.getSourceType(),
+                    document.getFilingType(),
+                    document.getAccessionNumber(),
+                    toDate(document.getFilingDate()),
+                    toDate(document.getPeriodEndDate()),
+                    document.getSourceUrl(),
+                    document.getRawTextBlobPath(),
+                    document.getFileFormat(),
+                    document.getExtractionConfidenceScore(),
+                    Timestamp.valueOf(document.getCreatedAt())));
+        }
+    }
+
+    private static Date toDate(LocalDate date) {
+        return date == null ? null : Date.valueOf(date);
+    }
+}
@@ -1,7 +1,16 @@
 package com.dexian.extractor.repository;
 
 import com.dexian.extractor.model.SourceDocument;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface SourceDocumentRepository extends JpaRepository<SourceDocument, Integer> {
+import java.util.List;
+
+public interface SourceDocumentRepository extends JpaRepository<SourceDocument, Integer>, SourceDocumentJdbcRepository {
+
+    @EntityGraph(attributePaths = "company")
+    List<SourceDocument> findByRawTextBlobPathIsNotNull();
+
+    @EntityGraph(attributePaths = "company")
+    List<SourceDocument> findByCompanySecCikNumberAndRawTextBlobPathIsNotNull(String secCikNumber);
 }
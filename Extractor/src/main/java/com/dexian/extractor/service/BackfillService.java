@@ -0,0 +1,214 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.dto.BackfillResult;
+import com.dexian.extractor.dto.SecFiling;
+import com.dexian.extractor.model.SourceDocument;
+import com.dexian.extractor.repository.SourceDocumentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Re-extraction of filings already kept in the blob store, so improved parsers and tag lists reach history
+ * without fetching anything from SEC again.
+ * <p>
+ * Source documents are grouped by blob (one company_facts document serves several filings) and parsed on a
+ * fork/join pool sized to the cores. Values are written under the extraction method plus {@code :<version>},
+ * beside those of earlier extractions, so old and new outputs can be compared period by period.
+ */
+@Service
+public class BackfillService {
+
+    private static final Pattern VERSION = Pattern.compile("[A-Za-z0-9._-]{1,32}");
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final SecExtractorService extractorService;
+    private final SourceDocumentRepository sourceDocumentRepository;
+    private final int parallelism;
+
+    private final AtomicReference<Run> current = new AtomicReference<>();
+    private volatile BackfillResult last;
+
+    public BackfillService(SecExtractorService extractorService,
+                           SourceDocumentRepository sourceDocumentRepository,
+                           @Value("${sec.backfill.parallelism:0}") int parallelism) {
+        this.extractorService = extractorService;
+        this.sourceDocumentRepository = sourceDocumentRepository;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    public static boolean isValidVersion(String version) {
+        return version != null && VERSION.matcher(version).matches();
+    }
+
+    /**
+     * Re-extract every stored filing (of one company when {@code cik} is given) and wait until all are stored.
+     *
+     * @throws IllegalStateException when another backfill is running
+     */
+    public BackfillResult backfill(String version, String cik) {
+        if (!isValidVersion(version)) {
+            throw new IllegalArgumentException("Invalid backfill version: " + version);
+        }
+
+        // Claimed before the documents are read, so a concurrent call is turned away without scanning the table
+        Run run = new Run(version);
+        if (!current.compareAndSet(null, run)) {
+            throw new IllegalStateException("A backfill is already running");
+        }
+
+        ForkJoinPool pool = null;
+        try {
+            List<SourceDocument> documents = cik == null
+                    ? sourceDocumentRepository.findByRawTextBlobPathIsNotNull()
+                    : sourceDocumentRepository.findByCompanySecCikNumberAndRawTextBlobPathIsNotNull(cik);
+            List<StoredBlob> blobs = groupByBlob(documents);
+            run.total = blobs.stream().mapToInt(blob -> blob.filings().size()).sum();
+
+            pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("sec-backfill-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+            System.out.println("🔁 Backfill " + version + ": " + run.total + " documents in " + blobs.size()
+                    + " blobs on " + parallelism + " workers");
+            if (!blobs.isEmpty()) {
+                pool.invoke(new BackfillTask(blobs, 0, blobs.size(), run));
+            }
+        } finally {
+            if (pool != null) pool.shutdown();
+            last = run.snapshot(false);
+            current.set(null);
+        }
+
+        System.out.println("✅ Backfill done: " + last);
+        return last;
+    }
+
+    /**
+     * The running backfill, else the last one finished; {@code null} before the first.
+     */
+    public BackfillResult progress() {
+        Run run = current.get();
+        return run != null ? run.snapshot(true) : last;
+    }
+
+    /**
+     * Documents per company and blob, each turned back into the filing the live extraction selected it for.
+     */
+    static List<StoredBlob> groupByBlob(List<SourceDocument> documents) {
+        Map<String, StoredBlob> blobs = new LinkedHashMap<>();
+        for (SourceDocument document : documents) {
+            String format = document.getFileFormat() != null ? document.getFileFormat() : "HTML";
+            String url = document.getSourceUrl();
+            // Without an accession number an HTML document cannot be tied to a filing and period
+            if (url == null || (format.equals("HTML") && document.getAccessionNumber() == null)) continue;
+
+            String cik = document.getCompany().getSecCikNumber();
+            SecFiling filing = new SecFiling(
+                    document.getAccessionNumber(),
+                    document.getFilingDate(),
+                    document.getPeriodEndDate() != null ? document.getPeriodEndDate().toString() : null,
+                    document.getFilingType() != null ? document.getFilingType() : "10-Q",
+                    url.substring(url.lastIndexOf('/') + 1));
+            blobs.computeIfAbsent(cik + "|" + document.getRawTextBlobPath(),
+                            k -> new StoredBlob(cik, document.getRawTextBlobPath(), format, new ArrayList<>()))
+                    .filings().add(filing);
+        }
+        return new ArrayList<>(blobs.values());
+    }
+
+    private void reextract(StoredBlob blob, Run run) {
+        try {
+            Map<String, Map<String, Object>> secData =
+                    extractorService.reparseStoredFiling(blob.cik(), blob.blobPath(), blob.fileFormat(), blob.filings());
+            if (!secData.isEmpty()) {
+                run.metrics.addAndGet(extractorService.storeReextractedData(blob.cik(), secData, blob.filings(), run.version));
+            }
+        } catch (Exception e) {
+            run.failures.incrementAndGet();
+            System.err.println("❌ Backfill failed for CIK " + blob.cik() + " blob " + blob.blobPath() + ": " + e.getMessage());
+        } finally {
+            run.done.addAndGet(blob.filings().size());
+            run.reportProgress();
+        }
+    }
+
+    record StoredBlob(String cik, String blobPath, String fileFormat, List<SecFiling> filings) {
+    }
+
+    /**
+     * Splits the blobs in halves down to single blobs; idle workers steal the other halves.
+     */
+    private final class BackfillTask extends RecursiveAction {
+
+        private final List<StoredBlob> blobs;
+        private final int from;
+        private final int to;
+        private final Run run;
+
+        BackfillTask(List<StoredBlob> blobs, int from, int to, Run run) {
+            this.blobs = blobs;
+            this.from = from;
+            this.to = to;
+            this.run = run;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                reextract(blobs.get(from), run);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BackfillTask(blobs, from, middle, run), new BackfillTask(blobs, middle, to, run));
+        }
+    }
+
+    private static final class Run {
+
+        final String version;
+        // Known once the documents are read; 0 until then
+        volatile int total;
+        final long startNanos = System.nanoTime();
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicInteger metrics = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicLong nextReportNanos = new AtomicLong(startNanos + PROGRESS_INTERVAL_NANOS);
+
+        Run(String version) {
+            this.version = version;
+        }
+
+        BackfillResult snapshot(boolean running) {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            double perSecond = elapsedNanos > 0 ? done.get() * 1e9 / elapsedNanos : 0;
+            return new BackfillResult(version, total, done.get(), metrics.get(), failures.get(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), Math.round(perSecond * 10) / 10.0, running);
+        }
+
+        // At most one worker logs per interval
+        void reportProgress() {
+            long now = System.nanoTime();
+            long next = nextReportNanos.get();
+            if (now >= next && nextReportNanos.compareAndSet(next, now + PROGRESS_INTERVAL_NANOS)) {
+                BackfillResult progress = snapshot(true);
+                System.out.println("🔁 Backfill " + version + ": " + progress.documentsDone() + "/" + total
+                        + " documents, " + progress.documentsPerSecond() + " documents/s, "
+                        + progress.metricsStored() + " metrics");
+            }
+        }
+    }
+}
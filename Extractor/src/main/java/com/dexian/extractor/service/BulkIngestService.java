@@ -0,0 +1,161 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.dto.BulkIngestResult;
+import com.dexian.extractor.dto.CompanyFact;
+import com.dexian.extractor.dto.SecFiling;
+import com.dexian.extractor.util.SubmissionsParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Offline backfill from SEC's nightly bulk archives instead of one HTTP request per CIK.
+ * <p>
+ * Entries of {@code companyfacts.zip} are inflated straight from the archive (nothing is unpacked to
+ * disk) and parsed on a pool sized to the cores; companies reporting production concepts then go through
+ * the same metric mapping and batched persistence as a single-CIK extraction. With a matching
+ * {@code submissions.zip}, facts are tied to the company's new 10-Q/10-K filings exactly as online;
+ * without it the latest-quarters selection is used. Archives are only read from {@code sec.bulk.ingest-dir}.
+ */
+@Service
+public class BulkIngestService {
+
+    private static final Pattern ENTRY_NAME = Pattern.compile("CIK(\\d{10})\\.json");
+
+    private final SecExtractorService extractorService;
+    private final int concurrency;
+    private final Path ingestDir;
+
+    public BulkIngestService(SecExtractorService extractorService,
+                             @Value("${sec.bulk.concurrency:0}") int concurrency,
+                             @Value("${sec.bulk.ingest-dir:${user.home}/.sec-extractor/ingest}") Path ingestDir) {
+        this.extractorService = extractorService;
+        this.concurrency = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+        this.ingestDir = ingestDir;
+    }
+
+    /**
+     * An archive in the ingest directory, links resolved.
+     *
+     * @param name file name, or path relative to the ingest directory
+     * @return its path, or {@code null} when it is not a regular file inside that directory
+     */
+    public Path resolveArchive(String name) {
+        try {
+            Path dir = ingestDir.toRealPath();
+            Path archive = dir.resolve(name).toRealPath();
+            return archive.startsWith(dir) && Files.isRegularFile(archive) ? archive : null;
+        } catch (IOException | InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Ingest every company of a local {@code companyfacts.zip} and wait until all are stored.
+     *
+     * @param submissionsZip the matching {@code submissions.zip}, or {@code null}
+     */
+    public BulkIngestResult ingestCompanyFacts(Path companyFactsZip, Path submissionsZip) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        AtomicInteger entries = new AtomicInteger();
+        AtomicInteger companies = new AtomicInteger();
+        AtomicInteger metrics = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("sec-bulk-"));
+        // Bounds the entries queued ahead of the workers
+        Semaphore inFlight = new Semaphore(concurrency * 2);
+
+        try (ZipFile facts = new ZipFile(companyFactsZip.toFile());
+             ZipFile submissions = submissionsZip != null ? new ZipFile(submissionsZip.toFile()) : null) {
+            System.out.println("📦 Ingesting " + companyFactsZip + " with " + concurrency + " workers");
+
+            Enumeration<? extends ZipEntry> zipEntries = facts.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry entry = zipEntries.nextElement();
+                Matcher name = ENTRY_NAME.matcher(entry.getName());
+                if (entry.isDirectory() || !name.matches()) continue;
+
+                String cik = String.valueOf(Long.parseLong(name.group(1)));
+                entries.incrementAndGet();
+                inFlight.acquire();
+                workers.execute(() -> {
+                    try {
+                        int stored = ingestCompany(cik, facts, entry, submissions);
+                        if (stored > 0) {
+                            companies.incrementAndGet();
+                            metrics.addAndGet(stored);
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        System.err.println("❌ Bulk ingest failed for CIK " + cik + ": " + e.getMessage());
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        BulkIngestResult result = new BulkIngestResult(entries.get(), companies.get(), metrics.get(), failures.get(),
+                System.currentTimeMillis() - start);
+        System.out.println("✅ Bulk ingest done: " + result);
+        return result;
+    }
+
+    /**
+     * @return number of metric values stored for this company (0 when it reports no production concepts)
+     */
+    private int ingestCompany(String cik, ZipFile facts, ZipEntry entry, ZipFile submissions) throws IOException {
+        List<CompanyFact> productionFacts;
+        try (InputStream json = facts.getInputStream(entry)) {
+            productionFacts = extractorService.readProductionFacts(json);
+        }
+        if (productionFacts.isEmpty()) return 0;
+
+        List<SecFiling> newFilings = findNewFilings(cik, entry.getName(), submissions);
+        if (newFilings != null && newFilings.isEmpty()) return 0;
+
+        Map<String, Map<String, Object>> secData = newFilings != null
+                ? extractorService.groupFactsByFiling(cik, productionFacts, newFilings)
+                : extractorService.groupFactsByQuarter(productionFacts);
+        if (secData.isEmpty()) return 0;
+
+        return extractorService.storeExtractedData(cik, secData, newFilings);
+    }
+
+    /**
+     * @return new filings from the submissions archive, or {@code null} when it has none for this company
+     */
+    private List<SecFiling> findNewFilings(String cik, String entryName, ZipFile submissions) throws IOException {
+        if (submissions == null) return null;
+        ZipEntry entry = submissions.getEntry(entryName);
+        if (entry == null) return null;
+
+        try (InputStream json = submissions.getInputStream(entry)) {
+            return extractorService.newFilingsSince(cik, SubmissionsParser.parse(json, SecExtractorService.PERIODIC_FORMS));
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.util.RequestRateLimiter;
+import com.dexian.extractor.util.SecRateLimiter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SEC request budget of the whole cluster, kept in Postgres so every node running the extractor stays
+ * inside one fair-access limit.
+ * <p>
+ * {@code sec_rate_budget} holds the cluster-wide rate, adjusted AIMD-style: halved (at most once per
+ * {@value #DECREASE_COOLDOWN_MILLIS} ms, however many nodes saw it) when SEC answers 429/503, and raised by
+ * {@code sec.rate-limit.increase-step} every {@value #INCREASE_EVERY_MILLIS} ms of healthy answers, up to
+ * {@code sec.rate-limit.requests-per-second}. A {@code Retry-After} pauses every node until it has passed.
+ * Each node renews a lease in {@code sec_rate_lease} every second, flagged active while a request it reserved
+ * is waiting for its slot or was sent within the lease window, and paces itself locally at the rate divided by
+ * the active nodes; requests never wait on the database. A busy node thus stays counted even when its share is
+ * below one request per heartbeat.
+ * With {@code sec.rate-limit.cluster=false} this is the plain per-JVM {@link SecRateLimiter}.
+ */
+@Component
+public class ClusterRateGovernor implements RequestRateLimiter {
+
+    private static final String BUDGET = "sec";
+    private static final long HEARTBEAT_MILLIS = 1000;
+    private static final long LEASE_MILLIS = 3000;
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final long DECREASE_COOLDOWN_MILLIS = 2000;
+    private static final long INCREASE_EVERY_MILLIS = 10_000;
+
+    private static final String CREATE_BUDGET = """
+            CREATE TABLE IF NOT EXISTS cait_dev.sec_rate_budget (
+                name varchar(32) PRIMARY KEY,
+                requests_per_second double precision NOT NULL,
+                throttled_until timestamptz NOT NULL DEFAULT 'epoch',
+                decreased_at timestamptz NOT NULL DEFAULT 'epoch',
+                increased_at timestamptz NOT NULL DEFAULT 'epoch')
+            """;
+
+    private static final String CREATE_LEASES = """
+            CREATE TABLE IF NOT EXISTS cait_dev.sec_rate_lease (
+                node_id varchar(255) PRIMARY KEY,
+                active boolean NOT NULL,
+                expires_at timestamptz NOT NULL)
+            """;
+
+    private static final String RENEW_LEASE = """
+            INSERT INTO cait_dev.sec_rate_lease AS l (node_id, active, expires_at)
+            VALUES (?, ?, clock_timestamp() + make_interval(secs => ?))
+            ON CONFLICT (node_id) DO UPDATE SET active = EXCLUDED.active, expires_at = EXCLUDED.expires_at
+            """;
+
+    // Cluster time throughout, so clock skew between nodes does not matter
+    private static final String READ_BUDGET = """
+            SELECT LEAST(b.requests_per_second, ?) AS rate,
+                   GREATEST(0, EXTRACT(EPOCH FROM b.throttled_until - clock_timestamp())) AS paused_seconds,
+                   (SELECT count(*) FROM cait_dev.sec_rate_lease l
+                    WHERE l.active AND l.expires_at > clock_timestamp() AND l.node_id <> ?) AS other_nodes
+            FROM cait_dev.sec_rate_budget b
+            WHERE b.name = ?
+            """;
+
+    private static final String DECREASE = """
+            UPDATE cait_dev.sec_rate_budget
+            SET requests_per_second = CASE WHEN decreased_at < clock_timestamp() - make_interval(secs => ?)
+                                           THEN GREATEST(?, requests_per_second * ?) ELSE requests_per_second END,
+                decreased_at = CASE WHEN decreased_at < clock_timestamp() - make_interval(secs => ?)
+                                    THEN clock_timestamp() ELSE decreased_at END,
+                throttled_until = GREATEST(throttled_until, clock_timestamp() + make_interval(secs => ?))
+            WHERE name = ?
+            """;
+
+    private static final String INCREASE = """
+            UPDATE cait_dev.sec_rate_budget
+            SET requests_per_second = LEAST(?, requests_per_second + ?), increased_at = clock_timestamp()
+            WHERE name = ? AND requests_per_second < ?
+              AND increased_at < clock_timestamp() - make_interval(secs => ?)
+              AND decreased_at < clock_timestamp() - make_interval(secs => ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SecRateLimiter local;
+    private final boolean clustered;
+    private final double maxRate;
+    private final double minRate;
+    private final double increaseStep;
+    private final String nodeId;
+    private final ScheduledExecutorService heartbeat;
+
+    // System.nanoTime() until which this node counts as active
+    private final AtomicLong activeUntil = new AtomicLong(System.nanoTime());
+    private final AtomicLong healthy = new AtomicLong();
+    private volatile boolean reachable = true;
+
+    public ClusterRateGovernor(JdbcTemplate jdbcTemplate,
+                               @Value("${sec.rate-limit.requests-per-second:8}") double maxRate,
+                               @Value("${sec.rate-limit.min-requests-per-second:1}") double minRate,
+                               @Value("${sec.rate-limit.increase-step:0.5}") double increaseStep,
+                               @Value("${sec.rate-limit.cluster:true}") boolean clustered) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxRate = maxRate;
+        this.minRate = Math.min(minRate, maxRate);
+        this.increaseStep = increaseStep;
+        this.clustered = clustered;
+        // Until the first heartbeat tells the share, assume the worst
+        this.local = new SecRateLimiter(clustered ? this.minRate : maxRate);
+        this.nodeId = ManagementFactory.getRuntimeMXBean().getName() + "-" + Long.toHexString(System.nanoTime());
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sec-rate-"));
+    }
+
+    // Before anything listening for startup can send requests
+    @Order(Ordered.HIGHEST_PRECEDENCE + 2)
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!clustered) return;
+        jdbcTemplate.execute(CREATE_BUDGET);
+        jdbcTemplate.execute(CREATE_LEASES);
+        jdbcTemplate.update("INSERT INTO cait_dev.sec_rate_budget (name, requests_per_second) VALUES (?, ?) ON CONFLICT DO NOTHING",
+                BUDGET, maxRate);
+
+        renewLease();
+        heartbeat.scheduleWithFixedDelay(this::renewLease, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        System.out.println("🚦 Sharing the SEC request budget of " + maxRate + " req/s as node " + nodeId);
+    }
+
+    @Override
+    public long reserve() {
+        long waitNanos = local.reserve();
+        long until = System.nanoTime() + waitNanos + TimeUnit.MILLISECONDS.toNanos(LEASE_MILLIS);
+        activeUntil.accumulateAndGet(until, (current, next) -> next - current > 0 ? next : current);
+        return waitNanos;
+    }
+
+    /**
+     * Whether a reservation is still waiting for its slot, or its slot passed less than a lease ago.
+     */
+    boolean isActive() {
+        return activeUntil.get() - System.nanoTime() > 0;
+    }
+
+    @Override
+    public void onThrottled(long retryAfterMillis) {
+        local.onThrottled(retryAfterMillis);
+        if (clustered) {
+            heartbeat.execute(() -> decrease(retryAfterMillis));
+        }
+    }
+
+    @Override
+    public void onSuccess() {
+        healthy.incrementAndGet();
+    }
+
+    private void renewLease() {
+        try {
+            jdbcTemplate.update(RENEW_LEASE, nodeId, isActive(), LEASE_MILLIS / 1000.0);
+            if (healthy.getAndSet(0) > 0) {
+                double seconds = INCREASE_EVERY_MILLIS / 1000.0;
+                jdbcTemplate.update(INCREASE, maxRate, increaseStep, BUDGET, maxRate, seconds, seconds);
+            }
+            jdbcTemplate.update("DELETE FROM cait_dev.sec_rate_lease WHERE expires_at < clock_timestamp() - interval '1 hour'");
+            readShare();
+        } catch (DataAccessException e) {
+            unreachable(e);
+        }
+    }
+
+    private void decrease(long retryAfterMillis) {
+        try {
+            double cooldown = DECREASE_COOLDOWN_MILLIS / 1000.0;
+            jdbcTemplate.update(DECREASE, cooldown, minRate, DECREASE_FACTOR, cooldown, retryAfterMillis / 1000.0, BUDGET);
+            readShare();
+        } catch (DataAccessException e) {
+            unreachable(e);
+        }
+    }
+
+    /**
+     * Pace this node at its part of the cluster rate, counting itself as active.
+     */
+    private void readShare() {
+        jdbcTemplate.query(READ_BUDGET, rs -> {
+            double share = rs.getDouble("rate") / (rs.getLong("other_nodes") + 1);
+            local.setRequestsPerSecond(share);
+            double paused = rs.getDouble("paused_seconds");
+            if (paused > 0) {
+                local.pause((long) (paused * TimeUnit.SECONDS.toNanos(1)));
+            }
+        }, maxRate, nodeId, BUDGET);
+        if (!reachable) {
+            reachable = true;
+            System.out.println("✅ Shared SEC request budget reachable again");
+        }
+    }
+
+    // Other nodes keep their shares too, so the last one known stays safe
+    private void unreachable(DataAccessException e) {
+        if (reachable) {
+            reachable = false;
+            System.err.println("⚠️ Shared SEC request budget unavailable, keeping the current rate: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        if (!clustered) return;
+        try {
+            // Hand this node's share back now rather than when the lease expires
+            jdbcTemplate.update("DELETE FROM cait_dev.sec_rate_lease WHERE node_id = ?", nodeId);
+        } catch (DataAccessException e) {
+            System.err.println("⚠️ Could not release SEC rate lease: " + e.getMessage());
+        }
+    }
+}
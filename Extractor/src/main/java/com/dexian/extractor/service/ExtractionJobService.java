@@ -0,0 +1,144 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.dto.ExtractionResult;
+import com.dexian.extractor.model.ExtractionJob;
+import com.dexian.extractor.repository.ExtractionJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous extraction jobs, queued in {@code extraction_job} and worked off by every node running the
+ * application. Submission only records a QUEUED row (one per CIK while pending) and returns.
+ * <p>
+ * Each node polls for as many jobs as it has free workers and claims them with a lease
+ * ({@code FOR UPDATE SKIP LOCKED}, so nodes never get the same job); a heartbeat renews the leases of the
+ * jobs it is running. A job whose node died is claimed again by another once its lease expires, up to
+ * {@code sec.jobs.max-attempts} times. The job row tracks stage, timings and outcome.
+ */
+@Service
+public class ExtractionJobService {
+
+    private final ExtractionJobRepository jobRepository;
+    private final ExtractionPipeline extractionPipeline;
+    private final int concurrency;
+    private final Duration lease;
+    private final long pollMillis;
+    private final int maxAttempts;
+    private final String workerId;
+    private final ExecutorService jobExecutor;
+    private final ScheduledExecutorService queueExecutor;
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    public ExtractionJobService(ExtractionJobRepository jobRepository,
+                                ExtractionPipeline extractionPipeline,
+                                @Value("${sec.jobs.concurrency:8}") int concurrency,
+                                @Value("${sec.jobs.lease:60s}") Duration lease,
+                                @Value("${sec.jobs.poll-millis:1000}") long pollMillis,
+                                @Value("${sec.jobs.max-attempts:3}") int maxAttempts) {
+        this.jobRepository = jobRepository;
+        this.extractionPipeline = extractionPipeline;
+        this.concurrency = concurrency;
+        this.lease = lease;
+        this.pollMillis = pollMillis;
+        this.maxAttempts = maxAttempts;
+        this.workerId = ManagementFactory.getRuntimeMXBean().getName() + "-" + Long.toHexString(System.nanoTime());
+        this.jobExecutor = Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("sec-job-"));
+        this.queueExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sec-job-queue-"));
+    }
+
+    /**
+     * Queue an extraction of {@code cik}, or return the one already queued or running.
+     */
+    public ExtractionJob submit(String cik) {
+        Long jobId = jobRepository.enqueue(cik.trim());
+        // Usually claimed here at once; otherwise by whichever node polls first
+        queueExecutor.execute(this::poll);
+        return jobRepository.findById(jobId).orElseThrow();
+    }
+
+    public List<ExtractionJob> submitAll(Collection<String> ciks) {
+        return ciks.stream().filter(cik -> cik != null && !cik.isBlank()).distinct().map(this::submit).toList();
+    }
+
+    public Optional<ExtractionJob> find(Long jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    // Jobs left behind by a stopped node are claimed again once their leases expire
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        queueExecutor.scheduleWithFixedDelay(this::poll, 0, pollMillis, TimeUnit.MILLISECONDS);
+        long renewMillis = Math.max(1000, lease.toMillis() / 3);
+        queueExecutor.scheduleWithFixedDelay(this::renewLeases, renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+        System.out.println("🔁 Extraction workers started as " + workerId + " (" + concurrency + " at a time)");
+    }
+
+    /**
+     * Claim as many jobs as there are idle workers. Only ever runs on the queue thread.
+     */
+    private void poll() {
+        try {
+            int idle = concurrency - running.size();
+            if (idle <= 0) return;
+            for (Long jobId : jobRepository.claim(workerId, idle, lease, maxAttempts)) {
+                running.add(jobId);
+                jobExecutor.execute(() -> run(jobId));
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not claim extraction jobs: " + e.getMessage());
+        }
+    }
+
+    private void renewLeases() {
+        try {
+            jobRepository.renewLeases(workerId, List.copyOf(running), lease);
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not renew extraction job leases: " + e.getMessage());
+        }
+    }
+
+    private void run(Long jobId) {
+        try {
+            ExtractionJob job = jobRepository.findById(jobId).orElse(null);
+            if (job == null) return;
+
+            ExtractionResult result = extractionPipeline
+                    .submit(job.getCik(), stage -> jobRepository.updateStage(jobId, workerId, stage))
+                    .join();
+
+            if (!jobRepository.complete(jobId, workerId, result)) {
+                System.err.println("⚠️ Lease of extraction job " + jobId + " was lost; its outcome is not recorded");
+            }
+        } catch (Exception e) {
+            // Left RUNNING; claimed again when the lease runs out
+            System.err.println("❌ Extraction job " + jobId + " failed: " + e.getMessage());
+        } finally {
+            running.remove(jobId);
+            if (!queueExecutor.isShutdown()) {
+                queueExecutor.execute(this::poll);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queueExecutor.shutdownNow();
+        jobExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,173 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.dto.ExtractionResult;
+import com.dexian.extractor.dto.SecFiling;
+import com.dexian.extractor.util.SecMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Staged fetch → parse → persist pipeline the extraction job workers feed, one CIK per {@link #submit}.
+ * Callers get a future back and never wait on a whole batch; requests for many CIKs go through the job queue.
+ * <p>
+ * The fetch stage first asks the submissions feed for filings newer than the company's last processed
+ * accession number; when there are none, the company skips every remaining stage.
+ * <p>
+ * Each stage runs on its own bounded executor, so slow SEC responses never hold up parsing or DB
+ * writes of companies that are already downloaded. All fetches share the {@code SecRateLimiter}
+ * budget, which makes total wall-clock time a function of that budget rather than of the sum of
+ * per-company latencies.
+ */
+@Service
+public class ExtractionPipeline {
+
+    private final SecExtractorService extractorService;
+    private final ExecutorService fetchExecutor;
+    private final ExecutorService parseExecutor;
+    private final ExecutorService persistExecutor;
+
+    public ExtractionPipeline(SecExtractorService extractorService,
+                              @Value("${sec.pipeline.fetch-concurrency:8}") int fetchConcurrency,
+                              @Value("${sec.pipeline.parse-concurrency:0}") int parseConcurrency,
+                              @Value("${sec.pipeline.persist-concurrency:4}") int persistConcurrency) {
+        this.extractorService = extractorService;
+        int parseThreads = parseConcurrency > 0 ? parseConcurrency : Runtime.getRuntime().availableProcessors();
+        this.fetchExecutor = Executors.newFixedThreadPool(fetchConcurrency, new CustomizableThreadFactory("sec-fetch-"));
+        this.parseExecutor = Executors.newFixedThreadPool(parseThreads, new CustomizableThreadFactory("sec-parse-"));
+        this.persistExecutor = Executors.newFixedThreadPool(persistConcurrency, new CustomizableThreadFactory("sec-persist-"));
+    }
+
+    /**
+     * Queue one CIK. The returned future always completes normally; failures are reported in the result.
+     */
+    public CompletableFuture<ExtractionResult> submit(String cik) {
+        return submit(cik, stage -> { });
+    }
+
+    /**
+     * Queue one CIK, reporting each stage (DISCOVER, FETCH, PARSE, FALLBACK, PERSIST) to {@code stageListener} as it starts.
+     */
+    public CompletableFuture<ExtractionResult> submit(String cik, Consumer<String> stageListener) {
+        Item item = new Item(cik, stageListener);
+        return CompletableFuture.supplyAsync(() -> fetch(item), fetchExecutor)
+                .thenApplyAsync(this::parse, parseExecutor)
+                .thenCompose(it -> it.data.isEmpty() && !it.isUpToDate()
+                        ? CompletableFuture.supplyAsync(() -> fallback(it), fetchExecutor)
+                        : CompletableFuture.completedFuture(it))
+                .thenApplyAsync(this::persist, persistExecutor)
+                .handle((it, error) -> toResult(item, error));
+    }
+
+    private Item fetch(Item item) {
+        item.stageListener.accept("DISCOVER");
+        long start = System.nanoTime();
+        item.newFilings = extractorService.findNewFilings(item.cik);
+        long discovered = System.nanoTime();
+        SecMetrics.recordStage("discover", discovered - start);
+        if (item.isUpToDate()) {
+            item.source = null;
+            item.fetchNanos += discovered - start;
+            return item;
+        }
+
+        item.stageListener.accept("FETCH");
+        item.blobPath = extractorService.fetchCompanyFacts(item.cik);
+        long fetched = System.nanoTime();
+        SecMetrics.recordStage("fetch", fetched - discovered);
+        item.fetchNanos += fetched - start;
+        return item;
+    }
+
+    private Item parse(Item item) {
+        if (item.isUpToDate()) return item;
+        item.stageListener.accept("PARSE");
+        long start = System.nanoTime();
+        item.data = extractorService.parseStoredCompanyFacts(item.cik, item.blobPath, item.newFilings);
+        long elapsed = System.nanoTime() - start;
+        SecMetrics.recordStage("parse", elapsed);
+        item.parseNanos += elapsed;
+        return item;
+    }
+
+    private Item fallback(Item item) {
+        item.stageListener.accept("FALLBACK");
+        long start = System.nanoTime();
+        item.data = extractorService.extractFromHtmlFilings(item.cik, item.newFilings);
+        item.source = "HTML";
+        long elapsed = System.nanoTime() - start;
+        SecMetrics.recordStage("fallback", elapsed);
+        item.fetchNanos += elapsed;
+        return item;
+    }
+
+    private Item persist(Item item) {
+        if (item.isUpToDate()) return item;
+        item.stageListener.accept("PERSIST");
+        long start = System.nanoTime();
+        item.stored = extractorService.storeExtractedData(item.cik, item.data, item.newFilings);
+        long elapsed = System.nanoTime() - start;
+        SecMetrics.recordStage("persist", elapsed);
+        item.persistNanos += elapsed;
+        return item;
+    }
+
+    private ExtractionResult toResult(Item item, Throwable error) {
+        String message;
+        if (error == null && item.isUpToDate()) {
+            message = "⏭️ No new filings for CIK: " + item.cik;
+        } else if (error == null) {
+            message = "✅ Extraction and DB load completed for CIK: " + item.cik;
+        } else {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            message = "❌ Extraction failed for CIK " + item.cik + ": " + cause.getMessage();
+            System.err.println(message);
+        }
+        return new ExtractionResult(item.cik, error == null, item.source, item.stored,
+                item.fetchNanos / 1_000_000, item.parseNanos / 1_000_000, item.persistNanos / 1_000_000, message);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+        parseExecutor.shutdownNow();
+        persistExecutor.shutdownNow();
+    }
+
+    /**
+     * Per-CIK state handed from stage to stage. Only one stage touches it at a time.
+     */
+    private static final class Item {
+        private final String cik;
+        private final Consumer<String> stageListener;
+        private List<SecFiling> newFilings;
+        private String blobPath;
+        private Map<String, Map<String, Object>> data = Map.of();
+        private String source = "SEC_JSON";
+        private int stored;
+        private long fetchNanos;
+        private long parseNanos;
+        private long persistNanos;
+
+        private Item(String cik, Consumer<String> stageListener) {
+            this.cik = cik;
+            this.stageListener = stageListener;
+        }
+
+        /**
+         * The submissions feed answered and listed nothing newer than what is already stored.
+         */
+        private boolean isUpToDate() {
+            return newFilings != null && newFilings.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.dto.FrameFact;
+import com.dexian.extractor.dto.FrameRefreshResult;
+import com.dexian.extractor.model.Company;
+import com.dexian.extractor.repository.CompanyRepository;
+import com.dexian.extractor.util.FramesParser;
+import com.dexian.extractor.util.SecHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Refresh of one calendar period for every tracked company from the SEC frames API, instead of one
+ * company_facts download per company.
+ * <p>
+ * A frame holds one concept in one unit for every filer that reported it for the period (the latest filed value
+ * of each), so a quarter costs one request per production concept and configured unit. Frames are streamed and
+ * only the rows of active companies, matched by CIK, are kept; each company's rows then go through the same
+ * metric mapping and batched persistence as a company_facts extraction.
+ */
+@Service
+public class FrameRefreshService {
+
+    private static final String FRAME_URL = "https://data.sec.gov/api/xbrl/frames/us-gaap/%s/%s/%s.json";
+
+    // Duration frames only: production is reported over a period, not at an instant (CY2024Q4I)
+    private static final Pattern PERIOD = Pattern.compile("CY\\d{4}(Q[1-4])?");
+
+    private final SecExtractorService extractorService;
+    private final CompanyRepository companyRepository;
+    private final SecHttpClient secHttpClient;
+    private final List<String> units;
+
+    public FrameRefreshService(SecExtractorService extractorService, CompanyRepository companyRepository,
+                               SecHttpClient secHttpClient,
+                               @Value("${sec.frames.units:bbl,Mcf,boe}") List<String> units) {
+        this.extractorService = extractorService;
+        this.companyRepository = companyRepository;
+        this.secHttpClient = secHttpClient;
+        this.units = units;
+    }
+
+    public static boolean isValidPeriod(String period) {
+        return period != null && PERIOD.matcher(period).matches();
+    }
+
+    /**
+     * The last calendar quarter ended before {@code today}, as a frame period ({@code CY2025Q2}).
+     */
+    public static String previousQuarter(LocalDate today) {
+        LocalDate previous = today.minusMonths(3);
+        return "CY" + previous.getYear() + "Q" + ((previous.getMonthValue() - 1) / 3 + 1);
+    }
+
+    /**
+     * Fetch the frames of every production concept for {@code period} and store the rows of tracked companies.
+     *
+     * @param period a calendar quarter ({@code CY2025Q2}) or year ({@code CY2024})
+     * @throws IllegalArgumentException when {@code period} is not one
+     */
+    public FrameRefreshResult refresh(String period) throws InterruptedException {
+        if (!isValidPeriod(period)) throw new IllegalArgumentException("Not a frame period: " + period);
+        long start = System.currentTimeMillis();
+
+        Map<Long, Company> tracked = new HashMap<>();
+        for (Company company : companyRepository.findByStatusTrue()) {
+            try {
+                tracked.put(Long.parseLong(company.getSecCikNumber().trim()), company);
+            } catch (NumberFormatException e) {
+                System.err.println("⚠️ Skipping company with unreadable CIK " + company.getSecCikNumber());
+            }
+        }
+
+        int frames = 0;
+        int rows = 0;
+        int failures = 0;
+        Map<Long, List<FrameFact>> byCompany = new HashMap<>();
+        for (String concept : SecExtractorService.productionConcepts()) {
+            for (String unit : units) {
+                String url = String.format(FRAME_URL, concept, unit, period);
+                int[] read = {0};
+                try (InputStream json = secHttpClient.open(url, SecHttpClient.JSON)) {
+                    // No filer reported the concept in this unit for the period
+                    if (json == null) continue;
+                    FramesParser.parse(json, concept, unit, fact -> {
+                        read[0]++;
+                        if (tracked.containsKey(fact.cik())) {
+                            byCompany.computeIfAbsent(fact.cik(), cik -> new ArrayList<>()).add(fact);
+                        }
+                    });
+                    frames++;
+                } catch (IOException e) {
+                    failures++;
+                    System.err.println("❌ Error reading frame " + url + ": " + e.getMessage());
+                }
+                rows += read[0];
+            }
+        }
+
+        String form = period.contains("Q") ? "10-Q" : "10-K";
+        int companies = 0;
+        int metrics = 0;
+        for (Map.Entry<Long, List<FrameFact>> entry : byCompany.entrySet()) {
+            Company company = tracked.get(entry.getKey());
+            try {
+                int stored = extractorService.storeFrameData(company,
+                        SecExtractorService.groupFrameFacts(entry.getValue()), form);
+                if (stored > 0) {
+                    companies++;
+                    metrics += stored;
+                }
+            } catch (Exception e) {
+                failures++;
+                System.err.println("❌ Frame refresh failed for CIK " + company.getSecCikNumber() + ": " + e.getMessage());
+            }
+        }
+
+        FrameRefreshResult result = new FrameRefreshResult(period, frames, rows, byCompany.size(), companies, metrics,
+                failures, System.currentTimeMillis() - start);
+        System.out.println("✅ Frame refresh done: " + result);
+        return result;
+    }
+}
@@ -0,0 +1,125 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.dto.CompanyMetricValue;
+import com.dexian.extractor.dto.KeysetPage;
+import com.dexian.extractor.dto.MetricAggregate;
+import com.dexian.extractor.dto.MetricPoint;
+import com.dexian.extractor.repository.MetricValueRepository;
+import com.dexian.extractor.repository.ProductionRollupRepository;
+import com.dexian.extractor.util.TimeSeriesStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Read side of the stored metrics. Pages are cut by keyset (the position of the last row returned,
+ * carried in an opaque cursor), so every page costs the same however far a client scrolls.
+ */
+@Service
+@RequiredArgsConstructor
+public class MetricQueryService {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private final MetricValueRepository metricValueRepository;
+    private final ProductionRollupRepository productionRollupRepository;
+    private final MetricSeriesStore metricSeriesStore;
+    private final ReferenceDataCache referenceDataCache;
+
+    /**
+     * One page of a company's metric time series, newest period first.
+     *
+     * @throws IllegalArgumentException for a malformed cursor
+     */
+    public KeysetPage<MetricPoint> getSeries(String cik, String metricName, LocalDate from, LocalDate to,
+                                             String cursor, Integer limit) {
+        int size = clamp(limit);
+        LocalDate afterPeriod = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decode(cursor).split("/", 2);
+            try {
+                afterPeriod = LocalDate.parse(position[0]);
+                afterId = Long.parseLong(position[1]);
+            } catch (DateTimeParseException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        // One extra row tells whether another page follows
+        List<MetricPoint> rows = metricValueRepository.findSeries(cik, metricName, from, to, afterPeriod, afterId, size + 1);
+        if (rows.size() <= size) return new KeysetPage<>(rows, null);
+
+        List<MetricPoint> items = rows.subList(0, size);
+        MetricPoint last = items.get(size - 1);
+        return new KeysetPage<>(List.copyOf(items), encode(last.periodEndDate() + "/" + last.metricValueId()));
+    }
+
+    /**
+     * One page of every company's value of a metric for the calendar quarter containing {@code periodEnd},
+     * read from the precomputed quarterly rollup.
+     *
+     * @throws IllegalArgumentException for a malformed cursor
+     */
+    public KeysetPage<CompanyMetricValue> compareCompanies(String metricName, LocalDate periodEnd, String cursor, Integer limit) {
+        int size = clamp(limit);
+        Integer afterCompanyId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                afterCompanyId = Integer.parseInt(decode(cursor));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        List<CompanyMetricValue> rows = productionRollupRepository.findAcrossCompanies(
+                metricName, ProductionRollupService.quarterEnd(periodEnd), afterCompanyId, size + 1);
+        if (rows.size() <= size) return new KeysetPage<>(rows, null);
+
+        List<CompanyMetricValue> items = rows.subList(0, size);
+        return new KeysetPage<>(List.copyOf(items), encode(String.valueOf(items.get(size - 1).companyId())));
+    }
+
+    /**
+     * Count, sum, min, max and mean of a metric over every company, from the in-memory {@link MetricSeriesStore}.
+     *
+     * @param latestPerCompany only each company's latest period in the range rather than all of them
+     * @throws IllegalArgumentException for an unknown metric
+     * @throws IllegalStateException    while the store is not loaded
+     */
+    public MetricAggregate aggregate(String metricName, LocalDate from, LocalDate to, boolean latestPerCompany) {
+        Integer metricId = referenceDataCache.findMetricDefinition(metricName)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown metric: " + metricName))
+                .getMetricId();
+        TimeSeriesStore.Aggregate aggregate = metricSeriesStore.aggregate(metricId, from, to, latestPerCompany);
+        boolean empty = aggregate.points() == 0;
+        return new MetricAggregate(metricName, from, to, latestPerCompany, aggregate.companies(), aggregate.points(),
+                empty ? null : aggregate.sum(),
+                empty ? null : aggregate.min(),
+                empty ? null : aggregate.max(),
+                empty ? null : aggregate.mean());
+    }
+
+    private static int clamp(Integer limit) {
+        if (limit == null || limit <= 0) return DEFAULT_LIMIT;
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
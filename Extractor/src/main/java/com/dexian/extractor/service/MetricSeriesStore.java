@@ -0,0 +1,204 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.model.MetricValue;
+import com.dexian.extractor.util.TimeSeriesStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-side copy of the live extraction's metric values in a {@link TimeSeriesStore}, so universe-wide range
+ * and aggregate queries run in memory instead of hydrating {@code metric_value} rows.
+ * <p>
+ * Loaded once at startup, then kept current from the write path: values written by this node are applied when
+ * their transaction commits, values written or changed by other nodes by a catch-up read every
+ * {@code refresh-seconds}. Every upsert stamps the row's {@code revision} with its transaction id, and each read
+ * notes the oldest transaction still running when it started; the next catch-up reads the rows of that
+ * transaction and later ones, so a row committed after a read is picked up however long its transaction ran, and
+ * a row updated in place is picked up too. Rows of transactions that were still open are read again until they
+ * commit; points are idempotent, so re-reading them changes nothing. Values of versioned re-extractions
+ * ({@code SEC_JSON:v2}) are left out.
+ */
+@Component
+public class MetricSeriesStore {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String LOAD_SQL = """
+            SELECT mv.company_id, mv.metric_id, mv.period_start_date, mv.period_end_date,
+                   COALESCE(mv.metric_value, mv.extracted_metric_value) AS value, sd.filing_date
+            FROM cait_dev.metric_value mv
+            LEFT JOIN cait_dev.source_document sd ON sd.source_document_id = mv.source_document_id
+            WHERE mv.extraction_method NOT LIKE '%:%'
+              AND COALESCE(mv.metric_value, mv.extracted_metric_value) IS NOT NULL
+            """;
+
+    private static final String CATCH_UP_SQL = LOAD_SQL + "  AND mv.revision >= ?\n";
+
+    // Oldest transaction not visible to a snapshot taken now: every row of a later commit has a revision above it
+    private static final String OLDEST_RUNNING_SQL = "SELECT txid_snapshot_xmin(txid_current_snapshot())";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final boolean enabled;
+    private final long refreshSeconds;
+    private final TimeSeriesStore store = new TimeSeriesStore();
+    private final AtomicLong watermark = new AtomicLong();
+    private final ScheduledExecutorService refresher;
+    private volatile boolean loaded;
+
+    public MetricSeriesStore(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${sec.series-store.enabled:true}") boolean enabled,
+                             @Value("${sec.series-store.refresh-seconds:60}") long refreshSeconds) {
+        // Streams the load through a cursor instead of buffering the whole result in the driver
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.enabled = enabled;
+        this.refreshSeconds = refreshSeconds;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sec-series-"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) return;
+        try {
+            long start = System.nanoTime();
+            TimeSeriesStore.Builder builder = new TimeSeriesStore.Builder();
+            long oldestRunning = read(null, builder::add);
+            store.replaceAll(builder);
+            watermark.accumulateAndGet(oldestRunning, Math::max);
+            loaded = true;
+            System.out.println("✅ Series store loaded: " + store.size() + " points in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+
+            // Also picks up what was committed while loading
+            refresher.scheduleWithFixedDelay(this::catchUp, 0, refreshSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("⚠️ Series store load failed, aggregates are unavailable: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Apply values just written, once the surrounding transaction (if any) has committed.
+     */
+    public void record(List<MetricValue> written) {
+        if (!enabled) return;
+        List<Point> points = new ArrayList<>();
+        for (MetricValue mv : written) {
+            Double value = mv.getMetricValue() != null ? mv.getMetricValue() : mv.getExtractedMetricValue();
+            if (value == null || mv.getPeriodEndDate() == null || isVersioned(mv.getExtractionMethod())) continue;
+            LocalDate filed = mv.getSourceDocument() != null ? mv.getSourceDocument().getFilingDate() : null;
+            points.add(new Point(mv.getCompany().getCompanyId(), mv.getMetricDefinition().getMetricId(),
+                    toDay(mv.getPeriodStartDate(), mv.getPeriodEndDate()), (int) mv.getPeriodEndDate().toEpochDay(),
+                    toDay(filed, null), value));
+        }
+        if (points.isEmpty()) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    points.forEach(MetricSeriesStore.this::apply);
+                }
+            });
+        } else {
+            points.forEach(this::apply);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @param from earliest period end to include, or {@code null}
+     * @param to   latest period end to include, or {@code null}
+     * @throws IllegalStateException while the store is not loaded
+     */
+    public TimeSeriesStore.Aggregate aggregate(int metricId, LocalDate from, LocalDate to, boolean latestPerCompany) {
+        if (!loaded) throw new IllegalStateException("Series store is not loaded");
+        return store.aggregate(metricId, from == null ? TimeSeriesStore.MIN_DAY : (int) from.toEpochDay(),
+                to == null ? TimeSeriesStore.MAX_DAY : (int) to.toEpochDay(), latestPerCompany);
+    }
+
+    private void catchUp() {
+        try {
+            long oldestRunning = read(watermark.get(), store::put);
+            watermark.accumulateAndGet(oldestRunning, Math::max);
+        } catch (Exception e) {
+            System.err.println("⚠️ Series store catch-up failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stream the live values written by transaction {@code fromRevision} or later (all of them for {@code null})
+     * into {@code sink}.
+     *
+     * @return the revision the next read starts from: the oldest transaction still running before this one read
+     */
+    private long read(Long fromRevision, PointSink sink) {
+        return readOnly.execute(status -> {
+            // Taken before the query's own snapshot, so never past it
+            Long oldestRunning = jdbcTemplate.queryForObject(OLDEST_RUNNING_SQL, Long.class);
+            RowCallbackHandler handler = rs -> {
+                LocalDate periodEnd = rs.getObject("period_end_date", LocalDate.class);
+                sink.add(rs.getInt("company_id"), rs.getInt("metric_id"),
+                        toDay(rs.getObject("period_start_date", LocalDate.class), periodEnd), (int) periodEnd.toEpochDay(),
+                        toDay(rs.getObject("filing_date", LocalDate.class), null), rs.getDouble("value"));
+            };
+            if (fromRevision == null) {
+                jdbcTemplate.query(LOAD_SQL, handler);
+            } else {
+                jdbcTemplate.query(CATCH_UP_SQL, handler, fromRevision);
+            }
+            return oldestRunning;
+        });
+    }
+
+    private void apply(Point point) {
+        store.put(point.companyId(), point.metricId(), point.startDay(), point.endDay(), point.filedDay(), point.value());
+    }
+
+    private static boolean isVersioned(String extractionMethod) {
+        return extractionMethod != null && extractionMethod.contains(":");
+    }
+
+    // A missing period start counts as an instant at the period end, a missing filing date as the oldest
+    private static int toDay(LocalDate date, LocalDate fallback) {
+        if (date != null) return (int) date.toEpochDay();
+        return fallback != null ? (int) fallback.toEpochDay() : TimeSeriesStore.MIN_DAY;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface PointSink {
+        void add(int companyId, int metricId, int startDay, int endDay, int filedDay, double value);
+    }
+
+    private record Point(int companyId, int metricId, int startDay, int endDay, int filedDay, double value) {
+    }
+}
@@ -0,0 +1,193 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.model.Company;
+import com.dexian.extractor.model.MetricDefinition;
+import com.dexian.extractor.model.MetricValue;
+import com.dexian.extractor.model.ProductionRollup;
+import com.dexian.extractor.model.SourceDocument;
+import com.dexian.extractor.repository.ProductionRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Keeps {@link ProductionRollup} current: called from the metric write path, in the same transaction,
+ * with the values just written.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductionRollupService {
+
+    public static final String BOE_TOTAL_METRIC = "Total Production (BOE)";
+
+    private static final String OIL_METRIC = "Oil Production";
+    private static final String GAS_METRIC = "Natural Gas Production";
+    private static final String NGL_METRIC = "Natural Gas Liquid Production";
+    private static final String TOTAL_METRIC = "Total";
+
+    // BOE per unit each metric is rolled up in: oil and NGLs in barrels, gas in Mcf (6 Mcf = 1 BOE), totals in BOE
+    private static final Map<String, Double> BOE_FACTORS = Map.of(
+            OIL_METRIC, 1.0,
+            NGL_METRIC, 1.0,
+            GAS_METRIC, 1.0 / 6.0,
+            TOTAL_METRIC, 1.0);
+
+    // BOE per reported unit, by lower-cased unit name; values in any other unit are not rolled up
+    private static final Map<String, Double> BOE_PER_UNIT = Map.ofEntries(
+            Map.entry("bbl", 1.0), Map.entry("bbls", 1.0),
+            Map.entry("mbbl", 1e3), Map.entry("mbbls", 1e3),
+            Map.entry("mmbbl", 1e6), Map.entry("mmbbls", 1e6),
+            Map.entry("boe", 1.0), Map.entry("mboe", 1e3), Map.entry("mmboe", 1e6),
+            Map.entry("cf", 1.0 / 6000), Map.entry("mcf", 1.0 / 6),
+            Map.entry("mmcf", 1e3 / 6), Map.entry("bcf", 1e6 / 6));
+
+    // Denominators of a daily rate (bbl/d), multiplied out over the days of its period
+    private static final Set<String> PER_DAY = Set.of("d", "day", "days");
+
+    // Period lengths (inclusive days) taken for one quarter; annual and year-to-date values fall outside
+    private static final long MIN_QUARTER_DAYS = 80;
+    private static final long MAX_QUARTER_DAYS = 100;
+
+    private final ProductionRollupRepository productionRollupRepository;
+    private final ReferenceDataCache referenceDataCache;
+
+    /**
+     * Fold production values into the rollup (latest filing wins per company, quarter and metric, the shorter
+     * period within one filing) and recompute the BOE total of every quarter they touch. Only values covering
+     * about one quarter are taken: a 10-K's annual figure or a year-to-date one would otherwise stand in for its
+     * last quarter. Values are converted from the unit they were reported in; those without a known unit (HTML
+     * tables say it only in prose) are left out rather than mixed in. Values of versioned re-extractions
+     * ({@code SEC_HTML:v2}) sit beside the live ones in {@code metric_value} and are not rolled up.
+     */
+    public void rollUp(Company company, List<MetricValue> values) {
+        Map<ProductionRollup.Key, ProductionRollup> latest = new LinkedHashMap<>();
+        Map<ProductionRollup.Key, Long> periodDays = new HashMap<>();
+        int unknownUnits = 0;
+        for (MetricValue mv : values) {
+            Double factor = BOE_FACTORS.get(mv.getMetricDefinition().getMetricNameDisplay());
+            Double value = mv.getExtractedMetricValue();
+            if (factor == null || value == null || isVersioned(mv.getExtractionMethod())
+                    || !isQuarter(mv.getPeriodStartDate(), mv.getPeriodEndDate())) continue;
+
+            Double boe = toBoe(value, mv.getExtractedMetricUnit(), mv.getPeriodStartDate(), mv.getPeriodEndDate());
+            if (boe == null) {
+                unknownUnits++;
+                continue;
+            }
+
+            SourceDocument source = mv.getSourceDocument();
+            ProductionRollup row = new ProductionRollup(company.getCompanyId(), quarterEnd(mv.getPeriodEndDate()),
+                    mv.getMetricDefinition().getMetricId(), boe / factor, boe,
+                    source.getFilingDate(), source.getAccessionNumber(), LocalDateTime.now());
+            // One row per key per statement, or ON CONFLICT would touch the same row twice
+            ProductionRollup.Key key = new ProductionRollup.Key(row.getCompanyId(), row.getQuarterEnd(), row.getMetricId());
+            long days = ChronoUnit.DAYS.between(mv.getPeriodStartDate(), mv.getPeriodEndDate()) + 1;
+            ProductionRollup kept = latest.get(key);
+            if (kept == null || supersedes(row, days, kept, periodDays.get(key))) {
+                latest.put(key, row);
+                periodDays.put(key, days);
+            }
+        }
+        if (unknownUnits > 0) {
+            System.out.println("⚠️ Left " + unknownUnits + " production values without a known unit out of the rollup");
+        }
+        if (latest.isEmpty()) return;
+
+        productionRollupRepository.upsertLatest(new ArrayList<>(latest.values()));
+
+        Map<String, MetricDefinition> definitions = referenceDataCache.getOrCreateMetricDefinitions(
+                List.of(OIL_METRIC, GAS_METRIC, NGL_METRIC, TOTAL_METRIC, BOE_TOTAL_METRIC), ProductionRollupService::newDefinition);
+        Set<LocalDate> quarters = new TreeSet<>();
+        latest.keySet().forEach(key -> quarters.add(key.getQuarterEnd()));
+        productionRollupRepository.refreshBoeTotals(company.getCompanyId(), quarters,
+                List.of(definitions.get(OIL_METRIC).getMetricId(),
+                        definitions.get(GAS_METRIC).getMetricId(),
+                        definitions.get(NGL_METRIC).getMetricId()),
+                definitions.get(TOTAL_METRIC).getMetricId(),
+                definitions.get(BOE_TOTAL_METRIC).getMetricId());
+    }
+
+    /**
+     * Last day of the calendar quarter containing {@code date}.
+     */
+    public static LocalDate quarterEnd(LocalDate date) {
+        int lastMonth = ((date.getMonthValue() - 1) / 3 + 1) * 3;
+        return YearMonth.of(date.getYear(), lastMonth).atEndOfMonth();
+    }
+
+    /**
+     * {@code value} in barrels of oil equivalent.
+     *
+     * @param unit as reported: a volume ({@code bbl}, {@code MMcf}, {@code MBOE}) or a daily rate of one
+     *             ({@code bbl/d}), which needs the period start
+     * @return {@code null} when the unit is missing or not one of those
+     */
+    static Double toBoe(double value, String unit, LocalDate periodStart, LocalDate periodEnd) {
+        if (unit == null) return null;
+        String normalized = unit.trim().toLowerCase();
+        int slash = normalized.indexOf('/');
+        double days = 1;
+        if (slash >= 0) {
+            if (!PER_DAY.contains(normalized.substring(slash + 1).trim()) || periodStart == null) return null;
+            days = ChronoUnit.DAYS.between(periodStart, periodEnd) + 1;
+            normalized = normalized.substring(0, slash).trim();
+        }
+        Double perUnit = BOE_PER_UNIT.get(normalized);
+        return perUnit == null ? null : value * perUnit * days;
+    }
+
+    /**
+     * Whether {@code start..end} (inclusive) is about one quarter long.
+     */
+    static boolean isQuarter(LocalDate start, LocalDate end) {
+        if (start == null || end == null) return false;
+        long days = ChronoUnit.DAYS.between(start, end) + 1;
+        return days >= MIN_QUARTER_DAYS && days <= MAX_QUARTER_DAYS;
+    }
+
+    private static boolean isVersioned(String extractionMethod) {
+        return extractionMethod != null && extractionMethod.contains(":");
+    }
+
+    static ProductionRollup laterFiling(ProductionRollup a, ProductionRollup b) {
+        if (a.getSourceFilingDate() == null) return b;
+        if (b.getSourceFilingDate() == null) return a;
+        return b.getSourceFilingDate().isBefore(a.getSourceFilingDate()) ? a : b;
+    }
+
+    /**
+     * Whether {@code row} replaces {@code kept} for the same key: the later filing, and within one filing the
+     * shorter period, as {@link com.dexian.extractor.util.TimeSeriesStore} picks its points.
+     */
+    static boolean supersedes(ProductionRollup row, long days, ProductionRollup kept, long keptDays) {
+        if (!Objects.equals(row.getSourceFilingDate(), kept.getSourceFilingDate())) {
+            return laterFiling(kept, row) == row;
+        }
+        return days <= keptDays;
+    }
+
+    private static MetricDefinition newDefinition(String metricName) {
+        MetricDefinition metric = new MetricDefinition();
+        metric.setMetricCategory("OPERATIONAL");
+        metric.setMetricNameDisplay(metricName);
+        metric.setMetricNameInternal(metricName.toLowerCase().replace(" ", "_"));
+        metric.setMetricUnit(switch (metricName) {
+            case BOE_TOTAL_METRIC, TOTAL_METRIC -> "BOE";
+            case GAS_METRIC -> "MCF";
+            default -> "BBL";
+        });
+        return metric;
+    }
+}
@@ -0,0 +1,164 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.model.Company;
+import com.dexian.extractor.model.MetricDefinition;
+import com.dexian.extractor.repository.CompanyRepository;
+import com.dexian.extractor.repository.MetricDefinitionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-process near-cache of the small, rarely changing reference tables ({@link Company},
+ * {@link MetricDefinition}) that every extraction looks up.
+ * <p>
+ * Missing rows are created in their own transaction under one of a fixed set of striped locks, so concurrent
+ * extractions racing for the same CIK or metric name insert it once; a unique-key violation from another node
+ * is resolved by re-reading the winner's row. Cached entities are detached and only used as references.
+ */
+@Component
+public class ReferenceDataCache {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final CompanyRepository companyRepository;
+    private final MetricDefinitionRepository metricDefinitionRepository;
+    private final TransactionTemplate requiresNew;
+    private final int maxSize;
+
+    private final Map<String, Company> companiesByCik;
+    private final Map<String, MetricDefinition> metricsByName;
+    // Striped by key hash: bounded however many CIKs and metrics get created, unlike a lock per key
+    private final Object[] creationLocks = new Object[LOCK_STRIPES];
+
+    public ReferenceDataCache(CompanyRepository companyRepository,
+                              MetricDefinitionRepository metricDefinitionRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${sec.reference-cache.max-size:10000}") int maxSize) {
+        this.companyRepository = companyRepository;
+        this.metricDefinitionRepository = metricDefinitionRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxSize = maxSize;
+        this.companiesByCik = lruMap(maxSize);
+        this.metricsByName = lruMap(maxSize);
+        Arrays.setAll(creationLocks, i -> new Object());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            metricDefinitionRepository.findAll(PageRequest.of(0, maxSize))
+                    .forEach(metric -> metricsByName.put(metric.getMetricNameDisplay(), metric));
+            companyRepository.findAll(PageRequest.of(0, maxSize))
+                    .forEach(company -> companiesByCik.put(company.getSecCikNumber(), company));
+            System.out.println("✅ Reference cache warmed: " + companiesByCik.size() + " companies, "
+                    + metricsByName.size() + " metric definitions");
+        } catch (Exception e) {
+            System.err.println("⚠️ Reference cache warm-up failed: " + e.getMessage());
+        }
+    }
+
+    public Company getOrCreateCompany(String cik, Supplier<Company> factory) {
+        Company cached = companiesByCik.get(cik);
+        if (cached != null) return cached;
+
+        Company company = getOrCreate("company:" + cik,
+                () -> companyRepository.findBySecCikNumber(cik),
+                () -> companyRepository.save(factory.get()));
+        companiesByCik.put(cik, company);
+        return company;
+    }
+
+    /**
+     * Replace the cached copy after the service updated a company row.
+     */
+    public void refreshCompany(Company company) {
+        companiesByCik.put(company.getSecCikNumber(), company);
+    }
+
+    /**
+     * Look up an existing definition by display name, without creating it.
+     */
+    public Optional<MetricDefinition> findMetricDefinition(String name) {
+        MetricDefinition cached = metricsByName.get(name);
+        if (cached != null) return Optional.of(cached);
+
+        Optional<MetricDefinition> metric = metricDefinitionRepository.findByMetricNameDisplay(name);
+        metric.ifPresent(found -> metricsByName.put(name, found));
+        return metric;
+    }
+
+    /**
+     * Resolve definitions by display name: cache first, then one IN query, then create what is still missing.
+     */
+    public Map<String, MetricDefinition> getOrCreateMetricDefinitions(Collection<String> names,
+                                                                       Function<String, MetricDefinition> factory) {
+        Map<String, MetricDefinition> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String name : names) {
+            MetricDefinition cached = metricsByName.get(name);
+            if (cached != null) {
+                result.put(name, cached);
+            } else {
+                missing.add(name);
+            }
+        }
+        if (missing.isEmpty()) return result;
+
+        metricDefinitionRepository.findByMetricNameDisplayIn(missing).forEach(metric -> {
+            metricsByName.put(metric.getMetricNameDisplay(), metric);
+            result.put(metric.getMetricNameDisplay(), metric);
+        });
+
+        for (String name : missing) {
+            if (result.containsKey(name)) continue;
+            MetricDefinition metric = getOrCreate("metric:" + name,
+                    () -> metricDefinitionRepository.findByMetricNameDisplay(name),
+                    () -> metricDefinitionRepository.save(factory.apply(name)));
+            metricsByName.put(name, metric);
+            result.put(name, metric);
+        }
+        return result;
+    }
+
+    private <T> T getOrCreate(String key, Supplier<Optional<T>> finder, Supplier<T> creator) {
+        synchronized (creationLocks[Math.floorMod(key.hashCode(), LOCK_STRIPES)]) {
+            Optional<T> existing = finder.get();
+            if (existing.isPresent()) return existing.get();
+            try {
+                return requiresNew.execute(status -> creator.get());
+            } catch (DataIntegrityViolationException e) {
+                // Another node inserted the same row first
+                return finder.get().orElseThrow(() -> e);
+            }
+        }
+    }
+
+    private static <V> Map<String, V> lruMap(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+}
@@ -0,0 +1,154 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.model.Company;
+import com.dexian.extractor.repository.CompanyRepository;
+import com.dexian.extractor.util.FilingCalendar;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Built-in refresh of every active company, so new filings show up without anything calling the REST API.
+ * <p>
+ * Companies wait in a priority queue ordered by their next check, which the {@link FilingCalendar} derives
+ * from the fiscal year end and the last filing seen: often while a 10-Q/10-K is expected, rarely when nothing
+ * is due. Once a minute the companies that are due, at most {@code companies-per-minute} of them, are queued as
+ * extraction jobs ({@link ExtractionJobService}) for the workers of any node; a company already queued is not
+ * queued twice, so the schedulers of several nodes do not multiply the work. A company that is up to date
+ * costs a single (usually revalidated) submissions request. Its next check is computed again from its
+ * filing date at the latest one due interval later.
+ */
+@Service
+public class RefreshScheduler {
+
+    private static final long TICK_SECONDS = 60;
+    // Companies created through other paths join the queue on the next reload
+    private static final int RELOAD_EVERY_TICKS = 10;
+
+    private final CompanyRepository companyRepository;
+    private final ExtractionJobService extractionJobService;
+    private final FilingCalendar calendar;
+    private final Duration dueInterval;
+    private final boolean enabled;
+    private final int companiesPerTick;
+    private final ScheduledExecutorService ticker;
+
+    // Guarded by itself; an entry is stale once nextCheck holds another time for its CIK
+    private final PriorityQueue<ScheduledCheck> queue = new PriorityQueue<>(Comparator.comparing(ScheduledCheck::at));
+    private final Map<String, LocalDateTime> nextCheck = new HashMap<>();
+    private int ticks;
+
+    public RefreshScheduler(CompanyRepository companyRepository,
+                            ExtractionJobService extractionJobService,
+                            @Value("${sec.scheduler.enabled:true}") boolean enabled,
+                            @Value("${sec.scheduler.companies-per-minute:120}") int companiesPerMinute,
+                            @Value("${sec.scheduler.due-interval:30m}") Duration dueInterval,
+                            @Value("${sec.scheduler.overdue-interval:6h}") Duration overdueInterval,
+                            @Value("${sec.scheduler.idle-interval:1d}") Duration idleInterval) {
+        this.companyRepository = companyRepository;
+        this.extractionJobService = extractionJobService;
+        this.calendar = new FilingCalendar(dueInterval, overdueInterval, idleInterval);
+        this.dueInterval = dueInterval;
+        this.enabled = enabled;
+        this.companiesPerTick = Math.max(1, (int) (companiesPerMinute * TICK_SECONDS / 60));
+        this.ticker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sec-scheduler-"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        ticker.scheduleWithFixedDelay(this::tick, TICK_SECONDS, TICK_SECONDS, TimeUnit.SECONDS);
+        System.out.println("🗓️ Refresh scheduler started (" + companiesPerTick + " companies per minute)");
+    }
+
+    private void tick() {
+        try {
+            if (ticks++ % RELOAD_EVERY_TICKS == 0) {
+                loadCompanies();
+            }
+
+            List<String> due = takeDue(LocalDateTime.now());
+            for (String cik : due) {
+                extractionJobService.submit(cik);
+                reschedule(cik);
+            }
+            if (!due.isEmpty()) {
+                System.out.println("🗓️ Queued " + due.size() + " due companies for refresh");
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Refresh tick failed: " + e.getMessage());
+        }
+    }
+
+    private void loadCompanies() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Company company : companyRepository.findByStatusTrue()) {
+            String cik = company.getSecCikNumber();
+            synchronized (queue) {
+                if (nextCheck.containsKey(cik)) continue;
+            }
+            schedule(cik, calendar.nextCheck(company.getFiscalYearEnd(), company.getLastFilingDate(), now));
+        }
+    }
+
+    /**
+     * Remove up to one tick's budget of companies whose check is due, earliest first.
+     */
+    private List<String> takeDue(LocalDateTime now) {
+        List<String> due = new ArrayList<>();
+        synchronized (queue) {
+            while (due.size() < companiesPerTick && !queue.isEmpty() && !queue.peek().at().isAfter(now)) {
+                ScheduledCheck check = queue.poll();
+                if (!check.at().equals(nextCheck.get(check.cik()))) continue;
+                nextCheck.remove(check.cik());
+                due.add(check.cik());
+            }
+        }
+        return due;
+    }
+
+    private void reschedule(String cik) {
+        try {
+            Company company = companyRepository.findBySecCikNumber(cik).orElse(null);
+            if (company == null || !company.isStatus()) return;
+
+            // Not again within the due interval; by then the queued job has updated the filing date
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime at = calendar.nextCheck(company.getFiscalYearEnd(), company.getLastFilingDate(), now);
+            schedule(cik, at.isBefore(now.plus(dueInterval)) ? now.plus(dueInterval) : at);
+        } catch (Exception e) {
+            // Picked up again by the next reload
+            System.err.println("⚠️ Could not reschedule CIK " + cik + ": " + e.getMessage());
+        }
+    }
+
+    private void schedule(String cik, LocalDateTime at) {
+        synchronized (queue) {
+            nextCheck.put(cik, at);
+            queue.add(new ScheduledCheck(cik, at));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    private record ScheduledCheck(String cik, LocalDateTime at) {
+    }
+}
@@ -1,28 +1,46 @@
 package com.dexian.extractor.service;
 
+import com.dexian.extractor.dto.CompanyFact;
+import com.dexian.extractor.dto.CompanySubmissions;
+import com.dexian.extractor.dto.FrameFact;
+import com.dexian.extractor.dto.SecFiling;
 import com.dexian.extractor.model.Company;
 import com.dexian.extractor.model.MetricDefinition;
 import com.dexian.extractor.model.MetricValue;
 import com.dexian.extractor.model.SourceDocument;
 import com.dexian.extractor.repository.CompanyRepository;
-import com.dexian.extractor.repository.MetricDefinitionRepository;
+import com.dexian.extractor.repository.MetricValuePartitionManager;
 import com.dexian.extractor.repository.MetricValueRepository;
 import com.dexian.extractor.repository.SourceDocumentRepository;
+import com.dexian.extractor.util.CompanyFactsParser;
+import com.dexian.extractor.util.FilingBlobStore;
+import com.dexian.extractor.SecProductionDataExtractor;
 import com.dexian.extractor.util.HtmlParser;
+import com.dexian.extractor.util.InlineXbrlScanner;
+import com.dexian.extractor.util.SecHttpClient;
+import com.dexian.extractor.util.SecMetrics;
+import com.dexian.extractor.util.SubmissionsParser;
 import lombok.RequiredArgsConstructor;
-import org.json.JSONObject;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -30,152 +48,668 @@ public class SecExtractorService {
 
     private final CompanyRepository companyRepository;
     private final SourceDocumentRepository sourceDocumentRepository;
-    private final MetricDefinitionRepository metricDefinitionRepository;
     private final MetricValueRepository metricValueRepository;
+    private final SecHttpClient secHttpClient;
+    private final ReferenceDataCache referenceDataCache;
+    private final ProductionRollupService productionRollupService;
+    private final MetricValuePartitionManager metricValuePartitionManager;
+    private final FilingBlobStore filingBlobStore;
+    private final MetricSeriesStore metricSeriesStore;
 
-    private final HttpClient httpClient = HttpClient.newHttpClient();
 
+    // Periodic reports we extract production figures from
+    static final Set<String> PERIODIC_FORMS = Set.of("10-Q", "10-K", "10-Q/A", "10-K/A");
+    private static final int INITIAL_FILINGS = 4;
+
+    // Non-metric keys of an extracted data map
+    private static final String SOURCE_KEY = "source";
+    private static final String ACCESSION_KEY = "accession";
+    private static final String PERIOD_START_KEY = "periodStart";
+    private static final String PERIOD_END_KEY = "periodEnd";
+    private static final String RAW_BLOB_KEY = "rawBlob";
+    private static final String FILE_FORMAT_KEY = "fileFormat";
+    private static final String METHOD_KEY = "extractionMethod";
+    // metric name -> unit it was reported in (bbl, MMcf, bbl/d), where the source says
+    private static final String UNITS_KEY = "units";
+
+    // extraction_method of live extraction, per stored file format unless the data names its own (tagged
+    // inline XBRL facts of an HTML document); re-extractions append ":<version>"
+    private static final Map<String, String> EXTRACTION_METHODS = Map.of("JSON", "SEC_JSON", "HTML", "SEC_HTML");
+    private static final String INLINE_XBRL_METHOD = "SEC_IXBRL";
+    // Frame rows sit beside the company_facts values of the same filing rather than replacing their source document
+    private static final String FRAMES_METHOD = "SEC_FRAMES";
+
+    // us-gaap concept -> metric display name
+    private static final Map<String, String> PRODUCTION_CONCEPTS = new LinkedHashMap<>();
+
+    static {
+        PRODUCTION_CONCEPTS.put("OilProduction", "Oil Production");
+        PRODUCTION_CONCEPTS.put("NaturalGasProduction", "Natural Gas Production");
+        PRODUCTION_CONCEPTS.put("NaturalGasLiquidProduction", "Natural Gas Liquid Production");
+        PRODUCTION_CONCEPTS.put("TotalProduction", "Total");
+    }
+
+    /**
+     * Persist the metrics extracted for one CIK, creating the company on first sight, and remember
+     * the newest of {@code newFilings} as processed.
+     *
+     * @param newFilings filings the data was taken from, newest first; {@code null} if the submissions feed was unavailable
+     * @return number of metric values written
+     */
     @Transactional
-    public String extractAndStoreData(String cik) {
-        // 1️⃣ Find or create company
-        Company company = companyRepository.findBySecCikNumber(cik)
-                .orElseGet(() -> {
-                    Company newCompany = new Company();
-                    newCompany.setCompanyName("Unknown Company");
-                    newCompany.setTickerSymbol("UNK" + cik.substring(Math.max(0, cik.length() - 3)));
-                    newCompany.setSecCikNumber(cik);
-                    newCompany.setCompanyType("upstream");
-                    newCompany.setStatus(true);
-                    newCompany.setCreatedAt(LocalDateTime.now());
-                    newCompany.setUpdatedAt(LocalDateTime.now());
-                    return companyRepository.save(newCompany);
-                });
+    public int storeExtractedData(String cik, Map<String, Map<String, Object>> secData, List<SecFiling> newFilings) {
+        Company company = referenceDataCache.getOrCreateCompany(cik, () -> newCompany(cik));
 
         System.out.println("✅ Using company: " + company.getCompanyName());
 
-        // 2️⃣ Try fetching SEC JSON data
-        Map<String, Map<String, Object>> secData = fetchSecJsonData(cik);
+        int stored = saveMetricValues(company, secData, byAccession(newFilings), null);
+
+        if (newFilings != null && !newFilings.isEmpty()) {
+            SecFiling newest = newFilings.get(0);
+            company.setLastAccessionNumber(newest.accessionNumber());
+            company.setLastFilingDate(newest.filingDate());
+            company.setUpdatedAt(LocalDateTime.now());
+            referenceDataCache.refreshCompany(companyRepository.save(company));
+        }
+        return stored;
+    }
+
+    /**
+     * Persist metrics re-extracted from stored filings under {@code version}. They are written beside the
+     * values of earlier extractions rather than over them, and the company's processed-filing marker is
+     * left alone.
+     *
+     * @param filings the filings the stored documents belong to
+     * @return number of metric values written
+     */
+    @Transactional
+    public int storeReextractedData(String cik, Map<String, Map<String, Object>> secData, List<SecFiling> filings,
+                                    String version) {
+        Company company = referenceDataCache.getOrCreateCompany(cik, () -> newCompany(cik));
+        return saveMetricValues(company, secData, byAccession(filings), version);
+    }
+
+    /**
+     * Persist metrics taken from XBRL frames for a company already tracked. Frames do not say which of the
+     * company's filings are new, so its processed-filing marker is left alone, nor when the filing was made, so
+     * its filing date stays unknown and the values lose to those of any dated filing for the same period.
+     *
+     * @param form the form the frame's period is reported on ({@code 10-Q} for quarters, {@code 10-K} for years)
+     * @return number of metric values written
+     */
+    @Transactional
+    public int storeFrameData(Company company, Map<String, Map<String, Object>> secData, String form) {
+        List<SecFiling> filings = secData.values().stream()
+                .map(data -> String.valueOf(data.get(ACCESSION_KEY))).distinct()
+                .map(accession -> new SecFiling(accession, null, null, form, null))
+                .toList();
+        return saveMetricValues(company, secData, byAccession(filings), null);
+    }
+
+    /**
+     * The us-gaap concepts mapped to production metrics.
+     */
+    public static Set<String> productionConcepts() {
+        return Collections.unmodifiableSet(PRODUCTION_CONCEPTS.keySet());
+    }
+
+    private static Company newCompany(String cik) {
+        Company newCompany = new Company();
+        newCompany.setCompanyName("Unknown Company");
+        // ticker_symbol is unique and required; the full CIK keeps placeholders of new filers apart
+        newCompany.setTickerSymbol("UNK" + cik);
+        newCompany.setSecCikNumber(cik);
+        newCompany.setCompanyType("upstream");
+        newCompany.setStatus(true);
+        newCompany.setCreatedAt(LocalDateTime.now());
+        newCompany.setUpdatedAt(LocalDateTime.now());
+        return newCompany;
+    }
 
-        // 3️⃣ If SEC JSON fails, fallback to HTML parsing
-        if (secData.isEmpty()) {
-            System.out.println("⚠️ SEC JSON not found. Falling back to HTML parser...");
-            secData = HtmlParser.extractSecData(cik);
+    private static Map<String, SecFiling> byAccession(List<SecFiling> filings) {
+        Map<String, SecFiling> filingsByAccession = new HashMap<>();
+        if (filings != null) {
+            filings.forEach(filing -> filingsByAccession.put(filing.accessionNumber(), filing));
         }
+        return filingsByAccession;
+    }
 
-        // 4️⃣ Persist extracted metrics
-        for (String quarter : secData.keySet()) {
-            Map<String, Object> data = secData.get(quarter);
-            saveMetricValues(company, data, quarter);
+    /**
+     * Ask the submissions feed for 10-Q/10-K filings newer than the last one processed for this company.
+     * The first run of a company takes its latest few filings.
+     *
+     * @return new filings, newest first (empty when up to date), or {@code null} when the feed is unavailable
+     */
+    public List<SecFiling> findNewFilings(String cik) {
+        String apiUrl = String.format("https://data.sec.gov/submissions/CIK%010d.json", Long.parseLong(cik));
+        CompanySubmissions submissions;
+        try (InputStream json = openSecJson(apiUrl, cik)) {
+            if (json == null) return null;
+            submissions = SubmissionsParser.parse(json, PERIODIC_FORMS);
+        } catch (Exception e) {
+            System.err.println("❌ Error reading submissions for " + cik + ": " + e.getMessage());
+            return null;
         }
 
-        return "✅ Extraction and DB load completed for CIK: " + cik;
+        return newFilingsSince(cik, submissions);
     }
 
     /**
-     * Fetch data from SEC JSON endpoint, fallback if not found.
+     * Filings of {@code submissions} newer than the last one processed for this company
+     * (its latest few on a first run), newest first. A changed fiscal year end is saved on the way.
      */
-    private Map<String, Map<String, Object>> fetchSecJsonData(String cik) {
-        Map<String, Map<String, Object>> quarterlyData = new HashMap<>();
+    public List<SecFiling> newFilingsSince(String cik, CompanySubmissions submissions) {
+        Company company = companyRepository.findBySecCikNumber(cik).orElse(null);
+        if (company != null && submissions.fiscalYearEnd() != null
+                && !submissions.fiscalYearEnd().equals(company.getFiscalYearEnd())) {
+            company.setFiscalYearEnd(submissions.fiscalYearEnd());
+            company.setUpdatedAt(LocalDateTime.now());
+            company = companyRepository.save(company);
+            referenceDataCache.refreshCompany(company);
+        }
+        String lastAccession = company == null ? null : company.getLastAccessionNumber();
+        LocalDate lastFilingDate = company == null ? null : company.getLastFilingDate();
 
-        try {
-            String apiUrl = String.format("https://data.sec.gov/api/xbrl/company_facts/%010d.json", Long.parseLong(cik));
+        List<SecFiling> newFilings = new ArrayList<>();
+        for (SecFiling filing : submissions.filings()) {
+            if (filing.accessionNumber().equals(lastAccession)) break;
+            if (lastFilingDate != null && filing.filingDate() != null && filing.filingDate().isBefore(lastFilingDate)) break;
+            newFilings.add(filing);
+            if (lastAccession == null && newFilings.size() >= INITIAL_FILINGS) break;
+        }
+        return newFilings;
+    }
+
+    /**
+     * HTML 10-Q/10-K fallback, used when the XBRL JSON has none of the production concepts.
+     * Known new filings are parsed directly instead of being rediscovered through the Atom feed.
+     */
+    public Map<String, Map<String, Object>> extractFromHtmlFilings(String cik, List<SecFiling> newFilings) {
+        System.out.println("⚠️ SEC JSON not found. Falling back to HTML parser...");
+        SecMetrics.recordHtmlFallback();
+        if (newFilings == null) {
+            return HtmlParser.extractSecData(cik, secHttpClient);
+        }
+
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (SecFiling filing : newFilings) {
+            if (filing.primaryDocument() == null || filing.primaryDocument().isEmpty()) continue;
+            Map<String, Object> parsedData = parseFilingDocument(filing.documentUrl(cik));
+            if (parsedData.isEmpty()) continue;
+            parsedData.put(ACCESSION_KEY, filing.accessionNumber());
+            putReportPeriod(parsedData, filing);
+            result.put(filing.accessionNumber(), parsedData);
+        }
+        return result;
+    }
+
+    /**
+     * Fetch a filing document into the blob store and parse its tables from the stored copy.
+     *
+     * @return parsed metrics plus source and blob keys, or an empty map when the document could not be fetched
+     */
+    private Map<String, Object> parseFilingDocument(String url) {
+        String blobPath = storeDocument(url, SecHttpClient.ANY);
+        if (blobPath == null) return new LinkedHashMap<>();
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(apiUrl))
-                    .header("User-Agent", "DexianDataExtractor/1.0 (support@dexian.com)")
-                    .header("Accept", "application/json")
-                    .build();
+        try {
+            Map<String, Object> parsedData = parseStoredHtml(blobPath);
+            parsedData.put(SOURCE_KEY, url);
+            return parsedData;
+        } catch (IOException e) {
+            System.out.println("❌ Failed reading " + url + ": " + e.getMessage());
+            return new LinkedHashMap<>();
+        }
+    }
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * Metrics of a stored filing document. An inline XBRL document gives the exact tagged values of the
+     * production concepts for its current period ({@link #parseInlineXbrl}); otherwise the keyword rows of
+     * {@link HtmlParser#parseHtmlForMetrics} plus the production rows {@link SecProductionDataExtractor}
+     * recognises, under their canonical names.
+     */
+    private Map<String, Object> parseStoredHtml(String blobPath) throws IOException {
+        Map<String, Object> parsedData = parseInlineXbrl(blobPath);
+        if (parsedData.isEmpty()) {
+            try (Reader html = new InputStreamReader(filingBlobStore.open(blobPath), StandardCharsets.UTF_8)) {
+                parsedData = HtmlParser.parseHtmlForMetrics(html);
+            }
+            try (Reader html = new InputStreamReader(filingBlobStore.open(blobPath), StandardCharsets.UTF_8)) {
+                parsedData.putAll(SecProductionDataExtractor.extractProductionData(html));
+            }
+        }
+        parsedData.put(RAW_BLOB_KEY, blobPath);
+        parsedData.put(FILE_FORMAT_KEY, "HTML");
+        return parsedData;
+    }
 
-            if (response.statusCode() == 404) {
-                System.err.println("❌ No JSON data found for CIK " + cik);
-                return quarterlyData;
+    /**
+     * Run today's parsers over a document kept in the blob store, selecting the same facts as the live
+     * extraction did for {@code filings}.
+     *
+     * @param fileFormat {@code JSON} for a company_facts document, {@code HTML} for a filing document
+     * @param filings    the filings stored from this blob; a filing without accession number stands for the
+     *                   quarterly company_facts selection
+     */
+    public Map<String, Map<String, Object>> reparseStoredFiling(String cik, String blobPath, String fileFormat,
+                                                                List<SecFiling> filings) throws IOException {
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        if ("JSON".equals(fileFormat)) {
+            List<CompanyFact> facts;
+            try (InputStream json = filingBlobStore.open(blobPath)) {
+                facts = readProductionFacts(json);
+            }
+            List<SecFiling> known = filings.stream().filter(filing -> filing.accessionNumber() != null).toList();
+            if (!known.isEmpty()) {
+                result.putAll(groupFactsByFiling(cik, facts, known));
+            }
+            if (known.size() < filings.size()) {
+                result.putAll(groupFactsByQuarter(facts));
             }
+            result.values().forEach(values -> values.put(RAW_BLOB_KEY, blobPath));
+        } else {
+            Map<String, Object> parsedData = parseStoredHtml(blobPath);
+            for (SecFiling filing : filings) {
+                Map<String, Object> filingData = new HashMap<>(parsedData);
+                filingData.put(SOURCE_KEY, filing.documentUrl(cik));
+                filingData.put(ACCESSION_KEY, filing.accessionNumber());
+                putReportPeriod(filingData, filing);
+                result.put(filing.accessionNumber(), filingData);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The production facts tagged in a stored document, for the period it reports on: like the XBRL JSON
+     * selection, the non-dimensional period ending last, and the shorter of two ending the same day.
+     *
+     * @return metrics with their period and extraction method, or an empty map when the document tags none
+     */
+    private Map<String, Object> parseInlineXbrl(String blobPath) throws IOException {
+        long start = System.nanoTime();
+        List<InlineXbrlScanner.Fact> facts;
+        try (Reader html = new InputStreamReader(filingBlobStore.open(blobPath), StandardCharsets.UTF_8)) {
+            facts = InlineXbrlScanner.scan(html, PRODUCTION_CONCEPTS.keySet());
+        }
+        SecMetrics.recordParse("ixbrl", System.nanoTime() - start, facts.size());
 
-            if (response.statusCode() != 200) {
-                System.err.println("❌ HTTP error " + response.statusCode() + " for " + apiUrl);
-                return quarterlyData;
+        InlineXbrlScanner.Fact current = null;
+        for (InlineXbrlScanner.Fact fact : facts) {
+            if (fact.dimensional() || fact.start() == null) continue;
+            if (current == null || fact.end().isAfter(current.end())
+                    || (fact.end().equals(current.end()) && fact.start().isAfter(current.start()))) {
+                current = fact;
             }
+        }
+
+        Map<String, Object> parsedData = new HashMap<>();
+        if (current == null) return parsedData;
+        for (InlineXbrlScanner.Fact fact : facts) {
+            if (fact.dimensional() || !current.start().equals(fact.start()) || !current.end().equals(fact.end())) continue;
+            String metric = PRODUCTION_CONCEPTS.get(fact.concept());
+            SecMetrics.recordTagHit("ixbrl", metric);
+            putMetric(parsedData, metric, fact.value(), fact.unit());
+        }
+        parsedData.put(PERIOD_START_KEY, current.start().toString());
+        parsedData.put(PERIOD_END_KEY, current.end().toString());
+        parsedData.put(METHOD_KEY, INLINE_XBRL_METHOD);
+        return parsedData;
+    }
+
+    /**
+     * HTML tables carry no period, so take the filing's report date as the period end and a quarter
+     * (a year for 10-K) before it as the start. Periods read from inline XBRL are kept.
+     */
+    private static void putReportPeriod(Map<String, Object> data, SecFiling filing) {
+        if (data.containsKey(PERIOD_END_KEY)) return;
+        if (filing.reportDate() == null || filing.reportDate().isBlank()) return;
+        try {
+            LocalDate end = LocalDate.parse(filing.reportDate());
+            LocalDate start = filing.form().startsWith("10-K") ? end.plusDays(1).minusYears(1) : end.plusDays(1).minusMonths(3);
+            data.put(PERIOD_START_KEY, start.toString());
+            data.put(PERIOD_END_KEY, end.toString());
+        } catch (DateTimeParseException e) {
+            System.out.println("⚠️ Unreadable report date " + filing.reportDate() + " for " + filing.accessionNumber());
+        }
+    }
+
+    /**
+     * Fetch the company_facts JSON for a CIK into the blob store.
+     *
+     * @return its blob path, or {@code null} when SEC has no JSON for this company
+     */
+    public String fetchCompanyFacts(String cik) {
+        String apiUrl = String.format("https://data.sec.gov/api/xbrl/companyfacts/CIK%010d.json", Long.parseLong(cik));
+        String blobPath = storeDocument(apiUrl, SecHttpClient.JSON);
+        if (blobPath == null) {
+            System.err.println("❌ No JSON data stored for CIK " + cik + " from " + apiUrl);
+        }
+        return blobPath;
+    }
 
-            JSONObject root = new JSONObject(response.body());
-            JSONObject facts = root.optJSONObject("facts");
-            if (facts == null) return quarterlyData;
+    /**
+     * Fetch a document into the blob store, its only copy on disk (the HTTP cache keeps just its validators).
+     *
+     * @return its blob path, or {@code null} when it could not be fetched
+     */
+    private String storeDocument(String url, String accept) {
+        try {
+            return secHttpClient.fetchToBlob(url, accept, filingBlobStore);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("❌ Interrupted fetching " + url);
+        } catch (IOException e) {
+            System.err.println("❌ Error fetching " + url + ": " + e.getMessage());
+        }
+        return null;
+    }
 
-            JSONObject usGaap = facts.optJSONObject("us-gaap");
-            if (usGaap == null) return quarterlyData;
+    /**
+     * GET a data.sec.gov JSON document.
+     *
+     * @return the body (caller closes), or {@code null} on 404/other errors
+     */
+    private InputStream openSecJson(String apiUrl, String cik) {
+        try {
+            InputStream body = secHttpClient.open(apiUrl, SecHttpClient.JSON);
+            if (body == null) {
+                System.err.println("❌ No JSON data found for CIK " + cik + " at " + apiUrl);
+            }
+            return body;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("❌ Interrupted fetching " + apiUrl);
+        } catch (Exception e) {
+            System.err.println("❌ Error fetching " + apiUrl + ": " + e.getMessage());
+        }
+        return null;
+    }
 
-            // Extract key metrics
-            addMetricData(usGaap, "OilProduction", quarterlyData, "Oil Production");
-            addMetricData(usGaap, "NaturalGasProduction", quarterlyData, "Natural Gas Production");
-            addMetricData(usGaap, "NaturalGasLiquidProduction", quarterlyData, "Natural Gas Liquid Production");
-            addMetricData(usGaap, "TotalProduction", quarterlyData, "Total");
+    /**
+     * Stream-parse a company_facts document and map its production concepts to metric values.
+     * With known {@code newFilings} only facts reported by those filings are kept, grouped per filing and period;
+     * otherwise the first four entries of each concept are taken, grouped per period. Closes {@code json}.
+     */
+    public Map<String, Map<String, Object>> parseCompanyFacts(String cik, InputStream json, List<SecFiling> newFilings) {
+        Map<String, Map<String, Object>> quarterlyData = new HashMap<>();
+        if (json == null) return quarterlyData;
 
+        try (json) {
+            if (newFilings == null) {
+                long start = System.nanoTime();
+                int[] facts = {0};
+                CompanyFactsParser.FactHandler collector = quarterlyCollector(quarterlyData);
+                CompanyFactsParser.parse(json, "us-gaap", PRODUCTION_CONCEPTS.keySet(), fact -> {
+                    facts[0]++;
+                    return collector.onFact(fact);
+                });
+                SecMetrics.recordParse("companyfacts", System.nanoTime() - start, facts[0]);
+            } else {
+                quarterlyData = groupFactsByFiling(cik, readProductionFacts(json), newFilings);
+            }
         } catch (Exception e) {
-            System.err.println("❌ Error fetching SEC JSON for " + cik + ": " + e.getMessage());
+            System.err.println("❌ Error parsing SEC JSON for " + cik + ": " + e.getMessage());
+        }
+
+        return quarterlyData;
+    }
+
+    /**
+     * {@link #parseCompanyFacts} over a company_facts document in the blob store; every data map records
+     * the blob it was parsed from.
+     */
+    public Map<String, Map<String, Object>> parseStoredCompanyFacts(String cik, String blobPath, List<SecFiling> newFilings) {
+        if (blobPath == null) return new HashMap<>();
+
+        Map<String, Map<String, Object>> data;
+        try {
+            data = parseCompanyFacts(cik, filingBlobStore.open(blobPath), newFilings);
+        } catch (IOException e) {
+            System.err.println("❌ Error reading stored company facts " + blobPath + " for " + cik + ": " + e.getMessage());
+            return new HashMap<>();
+        }
+        data.values().forEach(values -> values.put(RAW_BLOB_KEY, blobPath));
+        return data;
+    }
+
+    /**
+     * All facts of the production concepts in a company_facts document. Does not close {@code json}.
+     */
+    public List<CompanyFact> readProductionFacts(InputStream json) throws IOException {
+        long start = System.nanoTime();
+        List<CompanyFact> facts = new ArrayList<>();
+        CompanyFactsParser.parse(json, "us-gaap", PRODUCTION_CONCEPTS.keySet(), fact -> {
+            facts.add(fact);
+            return true;
+        });
+        SecMetrics.recordParse("companyfacts", System.nanoTime() - start, facts.size());
+        return facts;
+    }
+
+    /**
+     * Keep the facts reported by {@code filings} (the current period of each concept) and group them per
+     * filing and period.
+     */
+    public Map<String, Map<String, Object>> groupFactsByFiling(String cik, List<CompanyFact> facts, List<SecFiling> filings) {
+        Map<String, SecFiling> filingsByAccession = new HashMap<>();
+        filings.forEach(filing -> filingsByAccession.put(filing.accessionNumber(), filing));
+
+        Map<String, CompanyFact> latest = new HashMap<>();
+        for (CompanyFact fact : facts) {
+            if (fact.accessionNumber() != null && filingsByAccession.containsKey(fact.accessionNumber())) {
+                latest.merge(fact.accessionNumber() + "|" + fact.concept(), fact, SecExtractorService::currentPeriod);
+            }
         }
 
+        Map<String, Map<String, Object>> byFiling = new HashMap<>();
+        latest.values().forEach(fact -> {
+            SecFiling filing = filingsByAccession.get(fact.accessionNumber());
+            Map<String, Object> filingData = byFiling.computeIfAbsent(
+                    fact.accessionNumber() + "|" + fact.startDate() + "|" + fact.endDate(), k -> new HashMap<>());
+            putMetric(filingData, PRODUCTION_CONCEPTS.get(fact.concept()), fact.value(), fact.unit());
+            filingData.put(SOURCE_KEY, filing.documentUrl(cik));
+            filingData.put(ACCESSION_KEY, filing.accessionNumber());
+            putFactMetadata(filingData, fact);
+        });
+        return byFiling;
+    }
+
+    /**
+     * Group one company's rows of XBRL frames per filing and period, as {@link #groupFactsByFiling} does with
+     * company_facts facts; the filing's EDGAR folder stands for its source document.
+     */
+    public static Map<String, Map<String, Object>> groupFrameFacts(List<FrameFact> facts) {
+        Map<String, Map<String, Object>> byFiling = new HashMap<>();
+        for (FrameFact fact : facts) {
+            if (fact.accessionNumber() == null) continue;
+            Map<String, Object> filingData = byFiling.computeIfAbsent(
+                    fact.accessionNumber() + "|" + fact.startDate() + "|" + fact.endDate(), k -> new HashMap<>());
+            putMetric(filingData, PRODUCTION_CONCEPTS.get(fact.concept()), fact.value(), fact.unit());
+            filingData.put(SOURCE_KEY, "https://www.sec.gov/Archives/edgar/data/" + fact.cik() + "/"
+                    + fact.accessionNumber().replace("-", "") + "/");
+            filingData.put(ACCESSION_KEY, fact.accessionNumber());
+            filingData.put(FILE_FORMAT_KEY, "JSON");
+            filingData.put(METHOD_KEY, FRAMES_METHOD);
+            if (fact.startDate() != null) filingData.put(PERIOD_START_KEY, fact.startDate());
+            if (fact.endDate() != null) filingData.put(PERIOD_END_KEY, fact.endDate());
+        }
+        return byFiling;
+    }
+
+    /**
+     * Same Q1..Q4 selection as a streamed parse without known filings, applied to facts already read.
+     */
+    public Map<String, Map<String, Object>> groupFactsByQuarter(List<CompanyFact> facts) {
+        Map<String, Map<String, Object>> quarterlyData = new HashMap<>();
+        CompanyFactsParser.FactHandler collector = quarterlyCollector(quarterlyData);
+        facts.forEach(collector::onFact);
         return quarterlyData;
     }
 
-    private void addMetricData(JSONObject usGaap, String key, Map<String, Map<String, Object>> quarterlyData, String label) {
-        if (!usGaap.has(key)) return;
+    /**
+     * A filing also reports comparative periods; keep the one ending last, and the shorter of two
+     * durations ending on the same day (the quarter rather than year-to-date).
+     */
+    private static CompanyFact currentPeriod(CompanyFact a, CompanyFact b) {
+        int byEnd = String.valueOf(a.endDate()).compareTo(String.valueOf(b.endDate()));
+        if (byEnd != 0) return byEnd > 0 ? a : b;
+        return String.valueOf(a.startDate()).compareTo(String.valueOf(b.startDate())) >= 0 ? a : b;
+    }
+
+    /**
+     * Keeps the first four entries of every concept/unit array, grouped by reporting period.
+     */
+    private CompanyFactsParser.FactHandler quarterlyCollector(Map<String, Map<String, Object>> quarterlyData) {
+        Map<String, Integer> seen = new HashMap<>();
+        return fact -> {
+            int index = seen.merge(fact.concept() + "/" + fact.unit(), 1, Integer::sum) - 1;
+            if (index >= 4) return false; // limit to last 4 quarters
+
+            Map<String, Object> quarterData = quarterlyData.computeIfAbsent(
+                    fact.startDate() + "|" + fact.endDate(), k -> new HashMap<>());
+            putMetric(quarterData, PRODUCTION_CONCEPTS.get(fact.concept()), fact.value(), fact.unit());
+            quarterData.put(SOURCE_KEY, "https://data.sec.gov/api/xbrl/companyfacts");
+            putFactMetadata(quarterData, fact);
+            return index < 3;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void putMetric(Map<String, Object> data, String metric, double value, String unit) {
+        data.put(metric, value);
+        Map<String, String> units = (Map<String, String>) data.computeIfAbsent(UNITS_KEY, k -> new HashMap<String, String>());
+        if (unit != null) units.put(metric, unit); else units.remove(metric);
+    }
+
+    private static void putFactMetadata(Map<String, Object> data, CompanyFact fact) {
+        data.put(FILE_FORMAT_KEY, "JSON");
+        if (fact.startDate() != null) data.put(PERIOD_START_KEY, fact.startDate());
+        if (fact.endDate() != null) data.put(PERIOD_END_KEY, fact.endDate());
+    }
 
-        JSONObject metric = usGaap.getJSONObject(key);
-        JSONObject units = metric.optJSONObject("units");
-        if (units == null) return;
+    /**
+     * Save metric values and their source documents in bulk: one source document per filing,
+     * metric definitions resolved in one query, values upserted as a single JDBC batch. Both are keyed
+     * on natural keys, so storing the same extraction again changes nothing. Values without a known
+     * reporting period, or older than partition retention, are not stored.
+     *
+     * @param version re-extraction version appended to the extraction method, {@code null} for live extraction
+     */
+    private int saveMetricValues(Company company, Map<String, Map<String, Object>> secData,
+                                 Map<String, SecFiling> filingsByAccession, String version) {
+        // Before anything is written in this transaction: a new partition locks the tables metric_value references
+        metricValuePartitionManager.ensurePartitions(secData.values().stream()
+                .map(data -> periodDate(data, PERIOD_END_KEY)).filter(Objects::nonNull).toList());
 
-        for (String unitKey : units.keySet()) {
-            var dataArray = units.getJSONArray(unitKey);
-            for (int i = 0; i < Math.min(4, dataArray.length()); i++) { // limit to last 4 quarters
-                JSONObject entry = dataArray.getJSONObject(i);
-                String quarter = "Q" + (i + 1);
-                Map<String, Object> quarterData = quarterlyData.computeIfAbsent(quarter, k -> new HashMap<>());
-                quarterData.put(label, entry.optDouble("val", 0));
-                quarterData.put("source", "https://data.sec.gov/api/xbrl/company_facts");
+        List<Map<String, Object>> periodData = new ArrayList<>();
+        for (Map<String, Object> data : secData.values()) {
+            LocalDate periodEnd = periodDate(data, PERIOD_END_KEY);
+            if (periodDate(data, PERIOD_START_KEY) == null || periodEnd == null) {
+                System.out.println("⚠️ Skipping metrics without a reporting period from " + data.get(SOURCE_KEY));
+            } else if (!metricValuePartitionManager.canStore(periodEnd)) {
+                System.out.println("⚠️ Skipping metrics for " + periodEnd + ", outside retention or without a partition");
+            } else {
+                periodData.add(data);
             }
         }
+
+        Set<String> metricNames = new HashSet<>();
+        periodData.forEach(data -> data.forEach((metricName, value) -> {
+            if (!isMetadataKey(metricName) && value != null) metricNames.add(metricName);
+        }));
+        if (metricNames.isEmpty()) return 0;
+
+        Map<String, MetricDefinition> definitions = resolveMetricDefinitions(metricNames);
+
+        // One source document (10-Q/10-K) per filing, shared by every metric taken from it
+        Map<String, SourceDocument> sourceDocuments = new LinkedHashMap<>();
+        for (Map<String, Object> data : periodData) {
+            String sourceUrl = data.getOrDefault(SOURCE_KEY, "").toString();
+            SecFiling filing = filingsByAccession.get(String.valueOf(data.get(ACCESSION_KEY)));
+            sourceDocuments.computeIfAbsent(sourceUrl, url -> {
+                SourceDocument src = new SourceDocument();
+                src.setCompany(company);
+                src.setSourceType("SEC_FILING");
+                src.setFilingType(filing != null ? filing.form() : "10-Q");
+                src.setAccessionNumber(filing != null ? filing.accessionNumber() : null);
+                // A known filing without a date (an XBRL frame row) keeps it unknown
+                src.setFilingDate(filing != null ? filing.filingDate() : LocalDate.now());
+                src.setPeriodEndDate(periodDate(data, PERIOD_END_KEY));
+                src.setSourceUrl(url);
+                src.setRawTextBlobPath((String) data.get(RAW_BLOB_KEY));
+                src.setFileFormat((String) data.getOrDefault(FILE_FORMAT_KEY, "HTML"));
+                return src;
+            });
+        }
+        sourceDocumentRepository.upsertAll(sourceDocuments.values());
+
+        List<MetricValue> values = new ArrayList<>();
+        for (Map<String, Object> data : periodData) {
+            SourceDocument src = sourceDocuments.get(data.getOrDefault(SOURCE_KEY, "").toString());
+            LocalDate periodStart = periodDate(data, PERIOD_START_KEY);
+            LocalDate periodEnd = periodDate(data, PERIOD_END_KEY);
+            String accession = data.containsKey(ACCESSION_KEY) ? String.valueOf(data.get(ACCESSION_KEY)) : "";
+            String method = (String) data.getOrDefault(METHOD_KEY,
+                    EXTRACTION_METHODS.get((String) data.getOrDefault(FILE_FORMAT_KEY, "HTML")));
+            String extractionMethod = version == null ? method : method + ":" + version;
+            Map<?, ?> units = (Map<?, ?>) data.getOrDefault(UNITS_KEY, Map.of());
+            data.forEach((metricName, value) -> {
+                if (isMetadataKey(metricName) || value == null) return;
+
+                MetricValue mv = new MetricValue();
+                mv.setCompany(company);
+                mv.setMetricDefinition(definitions.get(metricName));
+                mv.setSourceDocument(src);
+                mv.setPeriodStartDate(periodStart);
+                mv.setPeriodEndDate(periodEnd);
+                mv.setExtractedMetricValue(Double.parseDouble(value.toString()));
+                mv.setExtractedMetricUnit((String) units.get(metricName));
+                mv.setExtractionMethod(extractionMethod);
+                mv.setExtractionConfidenceScore(1.0);
+                mv.setSegmentName("Upstream");
+                mv.setSourceAccessionNumber(accession);
+                mv.setCreatedAt(LocalDateTime.now());
+                values.add(mv);
+            });
+        }
+
+        long start = System.nanoTime();
+        List<MetricValue> written = metricValueRepository.batchUpsert(values);
+        productionRollupService.rollUp(company, written);
+        metricSeriesStore.record(written);
+        SecMetrics.recordPersist(written.size(), System.nanoTime() - start);
+        return written.size();
+    }
+
+    private static boolean isMetadataKey(String key) {
+        return key.equals(SOURCE_KEY) || key.equals(ACCESSION_KEY)
+                || key.equals(PERIOD_START_KEY) || key.equals(PERIOD_END_KEY)
+                || key.equals(RAW_BLOB_KEY) || key.equals(FILE_FORMAT_KEY) || key.equals(METHOD_KEY)
+                || key.equals(UNITS_KEY);
+    }
+
+    private static LocalDate periodDate(Map<String, Object> data, String key) {
+        Object value = data.get(key);
+        if (value == null) return null;
+        try {
+            return LocalDate.parse(value.toString());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
     }
 
     /**
-     * Save metric values and related source document.
-     */
-    private void saveMetricValues(Company company, Map<String, Object> data, String quarter) {
-        data.forEach((metricName, value) -> {
-            if (metricName.equals("source") || value == null) return;
-
-            MetricDefinition metric = metricDefinitionRepository.findByMetricNameDisplay(metricName)
-                    .orElseGet(() -> {
-                        MetricDefinition newMetric = new MetricDefinition();
-                        newMetric.setMetricCategory("OPERATIONAL");
-                        newMetric.setMetricNameDisplay(metricName);
-                        newMetric.setMetricNameInternal(metricName.toLowerCase().replace(" ", "_"));
-                        newMetric.setMetricUnit("BBL");
-                        return metricDefinitionRepository.save(newMetric);
-                    });
-
-            // Save the source document (10-Q/10-K)
-            SourceDocument src = new SourceDocument();
-            src.setCompany(company);
-            src.setSourceType("SEC_FILING");
-            src.setFilingType("10-Q");
-            src.setFilingDate(LocalDate.now());
-            src.setSourceUrl(data.getOrDefault("source", "").toString());
-            src.setFileFormat("HTML");
-            sourceDocumentRepository.save(src);
-
-            MetricValue mv = new MetricValue();
-            mv.setCompany(company);
-            mv.setMetricDefinition(metric);
-            mv.setSourceDocument(src);
-            mv.setPeriodStartDate(LocalDate.now().minusMonths(3));
-            mv.setPeriodEndDate(LocalDate.now());
-            mv.setExtractedMetricValue(Double.parseDouble(value.toString()));
-            mv.setExtractionMethod("SEC_JSON");
-            mv.setExtractionConfidenceScore(1.0);
-            mv.setSegmentName("Upstream");
-            mv.setCreatedAt(LocalDateTime.now());
-            metricValueRepository.save(mv);
+     * Resolve all definitions through the reference cache, creating the missing ones.
+     */
+    private Map<String, MetricDefinition> resolveMetricDefinitions(Set<String> metricNames) {
+        return referenceDataCache.getOrCreateMetricDefinitions(metricNames, metricName -> {
+            MetricDefinition newMetric = new MetricDefinition();
+            newMetric.setMetricCategory("OPERATIONAL");
+            newMetric.setMetricNameDisplay(metricName);
+            newMetric.setMetricNameInternal(metricName.toLowerCase().replace(" ", "_"));
+            newMetric.setMetricUnit("BBL");
+            return newMetric;
         });
     }
 }
@@ -0,0 +1,155 @@
+package com.dexian.extractor.util;
+
+import com.dexian.extractor.dto.CompanyFact;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * Token-level reader for SEC company_facts JSON.
+ * <p>
+ * The document is consumed straight from the stream: subtrees of concepts nobody asked for are
+ * skipped without being materialized, and only the {@code units} entries of the requested concepts
+ * are turned into {@link CompanyFact}s. Heap use is bounded by the handler, not by the size of the filer.
+ */
+public final class CompanyFactsParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private CompanyFactsParser() {
+    }
+
+    /**
+     * Receives facts of the requested concepts in document order.
+     */
+    @FunctionalInterface
+    public interface FactHandler {
+
+        /**
+         * @return {@code false} to skip the remaining entries of the current unit array
+         */
+        boolean onFact(CompanyFact fact);
+    }
+
+    /**
+     * Stream {@code in} and report every fact of {@code concepts} in {@code taxonomy} (e.g. "us-gaap").
+     * The stream is read to the end but not closed.
+     */
+    public static void parse(InputStream in, String taxonomy, Set<String> concepts, FactHandler handler) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("company_facts document is not a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("facts".equals(field) && value == JsonToken.START_OBJECT) {
+                    readTaxonomies(parser, taxonomy, concepts, handler);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static void readTaxonomies(JsonParser parser, String taxonomy, Set<String> concepts, FactHandler handler) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (taxonomy.equals(name) && value == JsonToken.START_OBJECT) {
+                readConcepts(parser, concepts, handler);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readConcepts(JsonParser parser, Set<String> concepts, FactHandler handler) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String concept = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (concepts.contains(concept) && value == JsonToken.START_OBJECT) {
+                readConcept(parser, concept, handler);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readConcept(JsonParser parser, String concept, FactHandler handler) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("units".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String unit = parser.currentName();
+                    if (parser.nextToken() == JsonToken.START_ARRAY) {
+                        readEntries(parser, concept, unit, handler);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readEntries(JsonParser parser, String concept, String unit, FactHandler handler) throws IOException {
+        boolean wanted = true;
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            if (wanted && token == JsonToken.START_OBJECT) {
+                wanted = handler.onFact(readEntry(parser, concept, unit));
+            } else {
+                // Entries after the handler said stop are skipped without being materialized
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static CompanyFact readEntry(JsonParser parser, String concept, String unit) throws IOException {
+        double value = 0;
+        String start = null;
+        String end = null;
+        Integer fy = null;
+        String fp = null;
+        String form = null;
+        String accn = null;
+        String filed = null;
+        String frame = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) continue;
+            switch (field) {
+                case "val" -> value = token.isNumeric() ? parser.getDoubleValue() : parseDouble(parser.getText());
+                case "start" -> start = parser.getText();
+                case "end" -> end = parser.getText();
+                case "fy" -> fy = token.isNumeric() ? parser.getIntValue() : null;
+                case "fp" -> fp = parser.getText();
+                case "form" -> form = parser.getText();
+                case "accn" -> accn = parser.getText();
+                case "filed" -> filed = parser.getText();
+                case "frame" -> frame = parser.getText();
+                default -> parser.skipChildren();
+            }
+        }
+        return new CompanyFact(concept, unit, value, start, end, fy, fp, form, accn, filed, frame);
+    }
+
+    private static double parseDouble(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.dexian.extractor.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed store of the raw documents extractions were made from.
+ * <p>
+ * A blob is the gzip-compressed document, named by the SHA-256 of its uncompressed content and sharded by
+ * the first two hex digits ({@code 3f/3fa9...e1.gz}); that relative path is what
+ * {@code SourceDocument.rawTextBlobPath} holds. Storing the same content twice (an amendment repeating
+ * its original, an unchanged company_facts) keeps one file. Blobs are read through a memory mapping, so
+ * re-parsing stored filings costs no network and no copy through the Java heap before decompression.
+ */
+public class FilingBlobStore {
+
+    private final Path directory;
+
+    public FilingBlobStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create blob store directory " + directory, e);
+        }
+    }
+
+    /**
+     * Store a document, reading {@code body} to the end and closing it.
+     *
+     * @return the blob path, relative to the store
+     */
+    public String put(InputStream body) throws IOException {
+        MessageDigest sha256 = sha256();
+        Path tmp = Files.createTempFile(directory, "blob", ".tmp");
+        try (InputStream in = new DigestInputStream(body, sha256);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+            in.transferTo(gzip);
+            gzip.finish();
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        String hash = HexFormat.of().formatHex(sha256.digest());
+        String blobPath = hash.substring(0, 2) + "/" + hash + ".gz";
+        Path file = directory.resolve(blobPath);
+        if (Files.exists(file)) {
+            Files.delete(tmp);
+            return blobPath;
+        }
+        Files.createDirectories(file.getParent());
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // stored by a concurrent writer in the meantime, with the same content
+            Files.deleteIfExists(tmp);
+        }
+        return blobPath;
+    }
+
+    public boolean exists(String blobPath) {
+        return blobPath != null && Files.isRegularFile(resolve(blobPath));
+    }
+
+    /**
+     * Stream the decompressed content of a blob from a read-only memory mapping.
+     */
+    public InputStream open(String blobPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(blobPath), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new GZIPInputStream(new MappedInputStream(mapped), 64 * 1024);
+        }
+    }
+
+    private Path resolve(String blobPath) {
+        Path file = directory.resolve(blobPath).normalize();
+        if (!file.startsWith(directory.normalize())) {
+            throw new IllegalArgumentException("Blob path outside the store: " + blobPath);
+        }
+        return file;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class MappedInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private MappedInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
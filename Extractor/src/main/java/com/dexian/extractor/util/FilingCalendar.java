@@ -0,0 +1,102 @@
+package com.dexian.extractor.util;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.MonthDay;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * When to look for a company's next 10-Q/10-K.
+ * <p>
+ * From the fiscal year end (submissions feed {@code fiscalYearEnd}, {@code MMDD}) follow the four period ends of
+ * each year. A 10-Q is expected from {@value #QUARTERLY_OPENS_DAYS} to {@value #QUARTERLY_CLOSES_DAYS} days after
+ * its quarter, a 10-K from {@value #ANNUAL_OPENS_DAYS} to {@value #ANNUAL_CLOSES_DAYS} days after the year (SEC
+ * deadlines are 40/45 and 60/75/90 days, plus a few days' grace). A period counts as filed once the company's
+ * newest periodic filing is dated after it. Inside the window of an unfiled period the company is polled every
+ * {@code due} interval, for one quarter past a missed window every {@code overdue} interval, and otherwise not
+ * before the next window opens, but at least every {@code idle} interval (amendments, early filers).
+ */
+public class FilingCalendar {
+
+    static final int QUARTERLY_OPENS_DAYS = 20;
+    static final int QUARTERLY_CLOSES_DAYS = 50;
+    static final int ANNUAL_OPENS_DAYS = 35;
+    static final int ANNUAL_CLOSES_DAYS = 95;
+    private static final int OVERDUE_DAYS = 92;
+
+    private static final MonthDay CALENDAR_YEAR_END = MonthDay.of(12, 31);
+
+    private final Duration due;
+    private final Duration overdue;
+    private final Duration idle;
+
+    public FilingCalendar(Duration due, Duration overdue, Duration idle) {
+        this.due = due;
+        this.overdue = overdue;
+        this.idle = idle;
+    }
+
+    /**
+     * @param fiscalYearEnd  {@code MMDD}; calendar year when unknown
+     * @param lastFilingDate filing date of the newest 10-Q/10-K extracted, {@code null} if none yet
+     */
+    public LocalDateTime nextCheck(String fiscalYearEnd, LocalDate lastFilingDate, LocalDateTime now) {
+        if (lastFilingDate == null) return now;
+
+        MonthDay yearEnd = parseFiscalYearEnd(fiscalYearEnd);
+        LocalDate today = now.toLocalDate();
+        LocalDateTime next = now.plus(idle);
+        for (LocalDate periodEnd : periodEnds(yearEnd, today.getYear())) {
+            if (lastFilingDate.isAfter(periodEnd)) continue;
+
+            boolean annual = isFiscalYearEnd(periodEnd, yearEnd);
+            LocalDate opens = periodEnd.plusDays(annual ? ANNUAL_OPENS_DAYS : QUARTERLY_OPENS_DAYS);
+            LocalDate closes = periodEnd.plusDays(annual ? ANNUAL_CLOSES_DAYS : QUARTERLY_CLOSES_DAYS);
+            if (today.isBefore(opens)) {
+                next = min(next, opens.atStartOfDay());
+            } else if (!today.isAfter(closes)) {
+                return now.plus(due);
+            } else if (!today.isAfter(closes.plusDays(OVERDUE_DAYS))) {
+                next = min(next, now.plus(overdue));
+            }
+        }
+        return next;
+    }
+
+    static MonthDay parseFiscalYearEnd(String fiscalYearEnd) {
+        if (fiscalYearEnd == null || !fiscalYearEnd.matches("\\d{4}")) return CALENDAR_YEAR_END;
+        try {
+            return MonthDay.of(Integer.parseInt(fiscalYearEnd.substring(0, 2)), Integer.parseInt(fiscalYearEnd.substring(2)));
+        } catch (DateTimeException e) {
+            return CALENDAR_YEAR_END;
+        }
+    }
+
+    /**
+     * Period ends of the fiscal years ending around {@code year}, oldest first. Quarters of a fiscal year ending
+     * on a month's last day end on month ends too.
+     */
+    static List<LocalDate> periodEnds(MonthDay fiscalYearEnd, int year) {
+        List<LocalDate> ends = new ArrayList<>();
+        for (int fiscalYear = year - 1; fiscalYear <= year + 1; fiscalYear++) {
+            LocalDate yearEnd = fiscalYearEnd.atYear(fiscalYear);
+            boolean monthEnd = yearEnd.getDayOfMonth() == yearEnd.lengthOfMonth();
+            for (int quarter = 3; quarter >= 0; quarter--) {
+                LocalDate end = yearEnd.minusMonths(3L * quarter);
+                ends.add(monthEnd ? end.withDayOfMonth(end.lengthOfMonth()) : end);
+            }
+        }
+        return ends;
+    }
+
+    private static boolean isFiscalYearEnd(LocalDate periodEnd, MonthDay fiscalYearEnd) {
+        return periodEnd.equals(fiscalYearEnd.atYear(periodEnd.getYear()));
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
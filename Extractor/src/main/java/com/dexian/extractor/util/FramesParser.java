@@ -0,0 +1,107 @@
+package com.dexian.extractor.util;
+
+import com.dexian.extractor.dto.FrameFact;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Token-level reader for SEC frames JSON: one concept/unit/period with a row per reporting company.
+ * <p>
+ * A frame lists every filer of the concept, so it is consumed straight from the stream and each row is handed
+ * over as it is read; what is kept is up to the handler.
+ */
+public final class FramesParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private FramesParser() {
+    }
+
+    /**
+     * Receives the rows of a frame in document order.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void onRow(FrameFact fact);
+    }
+
+    /**
+     * Stream {@code in}, the frame of {@code concept} in {@code unit}, and report every row.
+     * The stream is read to the end but not closed.
+     */
+    public static void parse(InputStream in, String concept, String unit, RowHandler handler) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("frames document is not a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+                    JsonToken token;
+                    while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                        if (token == JsonToken.START_OBJECT) {
+                            FrameFact fact = readRow(parser, concept, unit);
+                            if (fact != null) handler.onRow(fact);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the row, or {@code null} when it has no CIK or no value
+     */
+    private static FrameFact readRow(JsonParser parser, String concept, String unit) throws IOException {
+        long cik = -1;
+        String entityName = null;
+        String accn = null;
+        String start = null;
+        String end = null;
+        double value = Double.NaN;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) continue;
+            switch (field) {
+                case "cik" -> cik = token.isNumeric() ? parser.getLongValue() : parseLong(parser.getText());
+                case "entityName" -> entityName = parser.getText();
+                case "accn" -> accn = parser.getText();
+                case "start" -> start = parser.getText();
+                case "end" -> end = parser.getText();
+                case "val" -> value = token.isNumeric() ? parser.getDoubleValue() : parseDouble(parser.getText());
+                default -> parser.skipChildren();
+            }
+        }
+        if (cik < 0 || Double.isNaN(value)) return null;
+        return new FrameFact(concept, unit, cik, entityName, accn, start, end, value);
+    }
+
+    private static long parseLong(String text) {
+        try {
+            return Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static double parseDouble(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -1,28 +1,28 @@
 package com.dexian.extractor.util;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
-
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class HtmlParser {
 
-    private static final String USER_AGENT = "Mozilla/5.0 (compatible; DataExtractorBot/1.0; +https://www.yourdomain.com/info)";
+    // Row labels worth keeping, matched case-insensitively anywhere in the first cell
+    private static final LabelMatcher<Boolean> METRIC_KEYWORDS = LabelMatcher.<Boolean>builder()
+            .add(Boolean.TRUE, "oil", "gas", "barrel", "production", "revenue")
+            .build();
 
-    public static Map<String, Map<String, Object>> extractSecData(String cik) {
+    public static Map<String, Map<String, Object>> extractSecData(String cik, SecHttpClient http) {
         Map<String, Map<String, Object>> result = new LinkedHashMap<>();
 
         try {
             // ✅ Try JSON API first
             String apiUrl = "https://data.sec.gov/api/xbrl/company_facts/000" + cik + ".json";
-            String json = fetchData(apiUrl);
+            String json = fetchData(apiUrl, http);
 
             if (json != null && json.trim().startsWith("{")) {
                 // if JSON found, parse and convert to metrics (you can extend later)
@@ -39,20 +39,17 @@ public class HtmlParser {
         try {
             System.out.println("⚠️ SEC JSON not found. Falling back to HTML parser...");
 
-            String htmlUrl = findLatestFilingUrl(cik);
+            String htmlUrl = findLatestFilingUrl(cik, http);
             if (htmlUrl == null) {
                 System.out.println("❌ No filing URL found for " + cik);
                 return result;
             }
 
-            String html = fetchData(htmlUrl);
-            if (html == null || html.isEmpty()) {
+            Map<String, Object> parsedData = extractFromFiling(htmlUrl, http);
+            if (parsedData.isEmpty()) {
                 System.out.println("❌ Empty HTML for " + cik);
                 return result;
             }
-
-            Map<String, Object> parsedData = parseHtmlForMetrics(html);
-            parsedData.put("source", htmlUrl);
             result.put("Q3-2025", parsedData);
 
             System.out.println("✅ Parsed HTML fallback for " + cik);
@@ -63,37 +60,66 @@ public class HtmlParser {
         return result;
     }
 
-    private static String fetchData(String urlStr) {
-        try {
-            URL url = new URL(urlStr);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestProperty("User-Agent", USER_AGENT);
-            conn.setConnectTimeout(15000);
-            conn.setReadTimeout(15000);
+    /**
+     * Parse the tables of one known filing document, e.g. a primary document taken from the submissions feed.
+     *
+     * @return parsed metrics plus {@code source}, or an empty map when the document could not be fetched
+     */
+    public static Map<String, Object> extractFromFiling(String htmlUrl, SecHttpClient http) {
+        InputStream body = openData(htmlUrl, http);
+        if (body == null) {
+            return new LinkedHashMap<>();
+        }
 
-            if (conn.getResponseCode() != 200) return null;
+        Map<String, Object> parsedData;
+        try (Reader html = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+            parsedData = parseHtmlForMetrics(html);
+        } catch (IOException e) {
+            System.out.println("❌ Failed reading " + htmlUrl + ": " + e.getMessage());
+            return new LinkedHashMap<>();
+        }
+        parsedData.put("source", htmlUrl);
+        return parsedData;
+    }
 
-            try (Scanner sc = new Scanner(conn.getInputStream())) {
-                sc.useDelimiter("\\A");
-                return sc.hasNext() ? sc.next() : null;
-            }
+    private static String fetchData(String urlStr, SecHttpClient http) {
+        InputStream body = openData(urlStr, http);
+        if (body == null) return null;
+        try {
+            return HttpDiskCache.readString(body);
         } catch (IOException e) {
             return null;
         }
     }
 
-    private static String findLatestFilingUrl(String cik) {
+    /**
+     * Open a document as a stream; the caller closes it.
+     *
+     * @return the body, or {@code null} on any error
+     */
+    private static InputStream openData(String urlStr, SecHttpClient http) {
+        try {
+            return http.open(urlStr, SecHttpClient.ANY);
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static String findLatestFilingUrl(String cik, SecHttpClient http) {
         try {
             // Step 1️⃣ — Build feed URL for 10-Q filings
             String feedUrl = "https://www.sec.gov/cgi-bin/browse-edgar?action=getcompany&CIK="
                     + cik + "&type=10-Q&owner=exclude&count=10&output=atom";
-            String feed = fetchData(feedUrl);
+            String feed = fetchData(feedUrl, http);
 
             // Step 2️⃣ — If 10-Q feed is empty, try 10-K
             if (feed == null || !feed.contains("<entry>")) {
                 feedUrl = "https://www.sec.gov/cgi-bin/browse-edgar?action=getcompany&CIK="
                         + cik + "&type=10-K&owner=exclude&count=10&output=atom";
-                feed = fetchData(feedUrl);
+                feed = fetchData(feedUrl, http);
             }
 
             if (feed == null || !feed.contains("<entry>")) {
@@ -125,7 +151,7 @@ public class HtmlParser {
             System.out.println("🔗 Filing detail page: " + filingPageUrl);
 
             // Step 4️⃣ — Fetch the filing detail page HTML
-            String filingPageHtml = fetchData(filingPageUrl);
+            String filingPageHtml = fetchData(filingPageUrl, http);
             if (filingPageHtml == null) {
                 System.out.println("⚠️ Empty filing page for CIK " + cik);
                 return null;
@@ -152,26 +178,36 @@ public class HtmlParser {
         return null;
     }
 
-    private static Map<String, Object> parseHtmlForMetrics(String html) {
+    /**
+     * Scan the tables of a filing as it streams in and keep rows whose label looks like a metric and
+     * whose second data cell is a plain number.
+     */
+    public static Map<String, Object> parseHtmlForMetrics(Reader html) throws IOException {
         Map<String, Object> metrics = new LinkedHashMap<>();
-        Document doc = Jsoup.parse(html);
+        long start = System.nanoTime();
+        int[] rows = {0};
 
         // Example: find tables with financial data
-        Elements tables = doc.select("table");
-        for (Element table : tables) {
-            Elements rows = table.select("tr");
-            for (Element row : rows) {
-                Elements cols = row.select("td");
-                if (cols.size() >= 2) {
-                    String key = cols.get(0).text().trim();
-                    String val = cols.get(1).text().trim().replace(",", "");
-
-                    if (key.matches("(?i).*(oil|gas|barrel|production|revenue).*") && val.matches("[\\d.]+")) {
-                        metrics.put(key, Double.parseDouble(val));
-                    }
-                }
+        HtmlTableScanner.scan(html, row -> {
+            rows[0]++;
+            int keyCell = -1;
+            int valueCell = -1;
+            for (int i = 0; i < row.size() && valueCell < 0; i++) {
+                if (row.isHeader(i)) continue;
+                if (keyCell < 0) keyCell = i; else valueCell = i;
             }
-        }
+            if (valueCell < 0) return;
+
+            CharSequence key = row.cell(keyCell);
+            if (!METRIC_KEYWORDS.matches(key)) return;
+            SecMetrics.recordTagHit("html", "metric_keyword");
+
+            double val = NumberScanner.plainNumber(row.cell(valueCell));
+            if (!Double.isNaN(val)) {
+                metrics.put(key.toString(), val);
+            }
+        });
+        SecMetrics.recordParse("html", System.nanoTime() - start, rows[0]);
 
         if (metrics.isEmpty()) {
             // fallback pattern
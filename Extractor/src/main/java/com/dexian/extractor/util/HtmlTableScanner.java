@@ -0,0 +1,218 @@
+package com.dexian.extractor.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Streaming extractor of table rows from (very large) HTML filings.
+ * <p>
+ * Instead of building a DOM, the scanner tokenizes the document as it is read ({@link MarkupScanner})
+ * and only keeps {@code <table>/<tr>/<td>/<th>} state plus the text of the row being assembled. Each completed row
+ * is handed to a {@link RowHandler}; text outside tables is discarded as it streams by. Cell text is
+ * whitespace-normalized and entity-decoded like Jsoup's {@code Element.text()}. Cells are capped at
+ * {@value #MAX_CELL_CHARS} characters and rows at {@value #MAX_CELLS} cells, so memory stays constant
+ * no matter how big the document is.
+ */
+public final class HtmlTableScanner extends MarkupScanner {
+
+    public static final int MAX_CELL_CHARS = 4096;
+    public static final int MAX_CELLS = 256;
+
+    /**
+     * Receives each completed row. The row is reused for the next one and must not be retained.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void onRow(Row row);
+    }
+
+    /**
+     * Read-only view of the row being emitted.
+     */
+    public interface Row {
+
+        int size();
+
+        CharSequence cell(int index);
+
+        /**
+         * {@code true} for {@code <th>} cells.
+         */
+        boolean isHeader(int index);
+
+        /**
+         * Text of all cells joined by a space, like Jsoup's {@code Elements.text()}.
+         */
+        CharSequence text();
+    }
+
+    private final RowHandler handler;
+
+    // One row per open table; nested tables suspend the row of the enclosing one
+    private final Deque<RowState> tables = new ArrayDeque<>();
+    private final Deque<RowState> pool = new ArrayDeque<>();
+
+    private HtmlTableScanner(Reader in, RowHandler handler) {
+        super(in);
+        this.handler = handler;
+    }
+
+    /**
+     * Scan {@code in} to the end, reporting every table row to {@code handler}. The reader is not closed.
+     */
+    public static void scan(Reader in, RowHandler handler) throws IOException {
+        new HtmlTableScanner(in, handler).run();
+    }
+
+    @Override
+    void end() {
+        while (!tables.isEmpty()) {
+            closeTable();
+        }
+    }
+
+    @Override
+    void tag(String name, boolean closing) {
+        switch (name) {
+            case "table" -> {
+                if (closing) {
+                    if (!tables.isEmpty()) closeTable();
+                    text(' ');
+                } else {
+                    text(' ');
+                    RowState row = pool.isEmpty() ? new RowState() : pool.pop();
+                    row.reset();
+                    tables.push(row);
+                }
+            }
+            case "tr" -> {
+                RowState row = tables.peek();
+                if (row == null) return;
+                endRow(row);
+                if (!closing) row.open = true;
+            }
+            case "td", "th" -> {
+                RowState row = tables.peek();
+                if (row == null) return;
+                row.endCell();
+                if (!closing) {
+                    row.open = true;
+                    row.startCell(name.equals("th"));
+                }
+            }
+            case "br", "p", "div", "li" -> text(' ');
+            default -> {
+                // Formatting and inline XBRL tags only carry text
+            }
+        }
+    }
+
+    private void closeTable() {
+        RowState row = tables.pop();
+        endRow(row);
+        pool.push(row);
+    }
+
+    private void endRow(RowState row) {
+        row.endCell();
+        if (row.open && row.size > 0) {
+            handler.onRow(row);
+        }
+        row.reset();
+    }
+
+    @Override
+    void text(int c) {
+        RowState row = tables.peek();
+        if (row == null || !row.inCell) return;
+        if (c > Character.MAX_VALUE) {
+            row.append(Character.highSurrogate(c));
+            row.append(Character.lowSurrogate(c));
+        } else {
+            row.append((char) c);
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0xA0;
+    }
+
+    private static final class RowState implements Row {
+
+        private final List<StringBuilder> cells = new ArrayList<>();
+        private final boolean[] header = new boolean[MAX_CELLS];
+        private final StringBuilder joined = new StringBuilder();
+        private int size;
+        private boolean open;
+        private boolean inCell;
+        private boolean pendingSpace;
+
+        private void reset() {
+            size = 0;
+            open = false;
+            inCell = false;
+            pendingSpace = false;
+            joined.setLength(0);
+        }
+
+        private void startCell(boolean isHeader) {
+            if (size == MAX_CELLS) return;
+            if (cells.size() == size) cells.add(new StringBuilder());
+            cells.get(size).setLength(0);
+            header[size] = isHeader;
+            size++;
+            inCell = true;
+            pendingSpace = false;
+        }
+
+        private void endCell() {
+            inCell = false;
+        }
+
+        private void append(char c) {
+            StringBuilder cell = cells.get(size - 1);
+            if (isWhitespace(c)) {
+                pendingSpace = cell.length() > 0;
+                return;
+            }
+            if (cell.length() >= MAX_CELL_CHARS) return;
+            if (pendingSpace) {
+                cell.append(' ');
+                pendingSpace = false;
+            }
+            cell.append(c);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public CharSequence cell(int index) {
+            if (index >= size) throw new IndexOutOfBoundsException(index);
+            return cells.get(index);
+        }
+
+        @Override
+        public boolean isHeader(int index) {
+            if (index >= size) throw new IndexOutOfBoundsException(index);
+            return header[index];
+        }
+
+        @Override
+        public CharSequence text() {
+            if (joined.isEmpty()) {
+                for (int i = 0; i < size; i++) {
+                    if (i > 0) joined.append(' ');
+                    joined.append(cells.get(i));
+                }
+            }
+            return joined;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.dexian.extractor.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk cache of SEC responses keyed by URL.
+ * <p>
+ * Each entry is a single file holding the URL, ETag, Last-Modified and the gzip-compressed body, written
+ * to a temp file and moved into place atomically, so concurrent readers never see half an entry.
+ * Entries are revalidated with {@code If-None-Match}/{@code If-Modified-Since}; EDGAR archive documents
+ * never change once published and are served from disk without asking SEC again.
+ * <p>
+ * A document kept in the {@link FilingBlobStore} is not copied here: its {@link Reference} holds only the
+ * validators and the blob path, so the blob store stays the one copy on disk.
+ */
+public class HttpDiskCache {
+
+    private static final String ARCHIVES_PATH = "/Archives/edgar/data/";
+
+    private final Path directory;
+
+    public HttpDiskCache(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create HTTP cache directory " + directory, e);
+        }
+    }
+
+    /**
+     * @return the cached entry for {@code url}, or {@code null} when nothing usable is on disk
+     */
+    public Entry lookup(String url) {
+        Path file = fileFor(url, ".cache");
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            String cachedUrl = in.readUTF();
+            if (!cachedUrl.equals(url)) return null;
+            String etag = in.readUTF();
+            String lastModified = in.readUTF();
+            return new Entry(url, file, emptyToNull(etag), emptyToNull(lastModified));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("⚠️ Ignoring unreadable cache entry for " + url + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return the blob reference cached for {@code url}, or {@code null} when nothing usable is on disk
+     */
+    public Reference lookupReference(String url) {
+        Path file = fileFor(url, ".ref");
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (!in.readUTF().equals(url)) return null;
+            String etag = in.readUTF();
+            String lastModified = in.readUTF();
+            return new Reference(url, emptyToNull(etag), emptyToNull(lastModified), in.readUTF());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("⚠️ Ignoring unreadable cache reference for " + url + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Remember that {@code url}, with these validators, is stored as {@code blobPath}.
+     */
+    public void storeReference(String url, String etag, String lastModified, String blobPath) throws IOException {
+        Path file = fileFor(url, ".ref");
+        Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeUTF(url);
+            out.writeUTF(etag == null ? "" : etag);
+            out.writeUTF(lastModified == null ? "" : lastModified);
+            out.writeUTF(blobPath);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * EDGAR archive documents are immutable once filed, so a cached copy never needs revalidation.
+     */
+    public boolean isImmutable(String url) {
+        return url.contains(ARCHIVES_PATH);
+    }
+
+    /**
+     * Whether a response with these validators is worth keeping.
+     */
+    public boolean isCacheable(String url, String etag, String lastModified) {
+        return isImmutable(url) || etag != null || lastModified != null;
+    }
+
+    /**
+     * Copy {@code body} to disk (compressed) and return a stream over the stored copy.
+     * {@code body} is fully consumed and closed.
+     */
+    public InputStream store(String url, String etag, String lastModified, InputStream body) throws IOException {
+        Path file = fileFor(url, ".cache");
+        Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try (InputStream in = body;
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeUTF(url);
+            out.writeUTF(etag == null ? "" : etag);
+            out.writeUTF(lastModified == null ? "" : lastModified);
+            out.flush();
+            GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+            in.transferTo(gzip);
+            gzip.finish();
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Entry(url, file, etag, lastModified).open();
+    }
+
+    private Path fileFor(String url, String suffix) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash) + suffix);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static void addValidators(String etag, String lastModified, BiConsumer<String, String> header) {
+        if (etag != null) header.accept("If-None-Match", etag);
+        if (lastModified != null) header.accept("If-Modified-Since", lastModified);
+    }
+
+    /**
+     * A cached response whose body lives in the {@link FilingBlobStore} under {@code blobPath}.
+     */
+    public record Reference(String url, String etag, String lastModified, String blobPath) {
+
+        /**
+         * Pass the conditional request headers for this reference to {@code header}.
+         */
+        public void addValidators(BiConsumer<String, String> header) {
+            HttpDiskCache.addValidators(etag, lastModified, header);
+        }
+    }
+
+    public static final class Entry {
+
+        private final String url;
+        private final Path file;
+        private final String etag;
+        private final String lastModified;
+
+        private Entry(String url, Path file, String etag, String lastModified) {
+            this.url = url;
+            this.file = file;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Pass the conditional request headers for this entry to {@code header}.
+         */
+        public void addValidators(BiConsumer<String, String> header) {
+            HttpDiskCache.addValidators(etag, lastModified, header);
+        }
+
+        /**
+         * Stream the decompressed body of this entry.
+         */
+        public InputStream open() throws IOException {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            try {
+                in.readUTF();
+                in.readUTF();
+                in.readUTF();
+                return new GZIPInputStream(in, 64 * 1024);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        public String url() {
+            return url;
+        }
+    }
+
+    /**
+     * Read a whole (cached) body as UTF-8 text and close the stream.
+     */
+    public static String readString(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
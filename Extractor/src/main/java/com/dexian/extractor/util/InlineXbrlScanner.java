@@ -0,0 +1,261 @@
+package com.dexian.extractor.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming reader of the tagged numbers of an inline XBRL (iXBRL) filing document.
+ * <p>
+ * Modern 10-Q/10-K primary documents tag every reported number as {@code <ix:nonFraction name=... contextRef=...>};
+ * the period (and any dimension) of the fact is given by an {@code <xbrli:context>} in the document's hidden
+ * header, its unit by an {@code <xbrli:unit>}. In one pass over the {@link MarkupScanner} tokens, only those
+ * elements are looked at: contexts (dates and whether they carry dimensions) and units are collected, and the text
+ * of facts of the requested concepts is kept, everything else streams by. Values are exact: the displayed number with the fact's {@code scale}, {@code sign}
+ * and {@code format} applied. Facts are resolved against their contexts at the end, so the header may come
+ * anywhere in the document.
+ */
+public final class InlineXbrlScanner extends MarkupScanner {
+
+    private static final int MAX_VALUE_CHARS = 64;
+
+    /**
+     * One tagged number.
+     *
+     * @param concept     local name of the concept ({@code OilProduction} for {@code us-gaap:OilProduction})
+     * @param start       period start, {@code null} for an instant
+     * @param end         period end, or the instant
+     * @param dimensional whether the context narrows the fact to a segment (a basin, a product line)
+     * @param unit        the measure of the fact's unit without its prefix ({@code bbl}, {@code MMcf}; {@code bbl/d}
+     *                    for a rate), or its {@code unitRef} when the document does not declare it
+     */
+    public record Fact(String concept, LocalDate start, LocalDate end, boolean dimensional, String unit, double value) {
+    }
+
+    private record Context(LocalDate start, LocalDate end, boolean dimensional) {
+    }
+
+    private final Set<String> concepts;
+    private final Map<String, Context> contexts = new HashMap<>();
+    private final Map<String, String> units = new HashMap<>();
+    private final List<PendingFact> pending = new ArrayList<>();
+
+    // Open ix:nonFraction elements, innermost last; null for one of a concept not requested
+    private final List<PendingFact> openFacts = new ArrayList<>();
+    private String contextId;
+    private LocalDate contextStart;
+    private LocalDate contextEnd;
+    private boolean contextDimensional;
+    private StringBuilder date;
+    private boolean startDate;
+    private String unitId;
+    private final StringBuilder numerator = new StringBuilder();
+    private final StringBuilder denominator = new StringBuilder();
+    private boolean inDenominator;
+    private StringBuilder measure;
+
+    private InlineXbrlScanner(Reader in, Set<String> concepts) {
+        super(in);
+        this.concepts = concepts;
+    }
+
+    /**
+     * Scan {@code in} to the end and return the facts of {@code concepts} whose context was found. The reader is
+     * not closed.
+     *
+     * @param concepts concept local names, whatever the prefix ({@code us-gaap}, a company's own taxonomy)
+     */
+    public static List<Fact> scan(Reader in, Set<String> concepts) throws IOException {
+        InlineXbrlScanner scanner = new InlineXbrlScanner(in, concepts);
+        scanner.run();
+        return scanner.resolve();
+    }
+
+    @Override
+    boolean wantsAttributes(String name) {
+        return name.endsWith(":nonfraction") || name.endsWith(":context") || name.endsWith(":unit");
+    }
+
+    @Override
+    void tag(String name, boolean closing) {
+        // Inline XBRL elements are always prefixed in XHTML; plain HTML tags return here without allocating
+        int colon = name.indexOf(':');
+        if (colon < 0) return;
+        switch (name.substring(colon + 1)) {
+            case "nonfraction" -> {
+                if (closing) {
+                    if (!openFacts.isEmpty()) {
+                        PendingFact fact = openFacts.remove(openFacts.size() - 1);
+                        if (fact != null) pending.add(fact);
+                    }
+                } else if (!isSelfClosing()) {
+                    // Self-closing facts are nil
+                    openFacts.add(requestedFact());
+                }
+            }
+            case "context" -> {
+                if (!closing) {
+                    contextId = attribute("id");
+                    contextStart = null;
+                    contextEnd = null;
+                    contextDimensional = false;
+                } else if (contextId != null) {
+                    if (contextEnd != null) {
+                        contexts.put(contextId, new Context(contextStart, contextEnd, contextDimensional));
+                    }
+                    contextId = null;
+                }
+            }
+            case "startdate", "enddate", "instant" -> {
+                if (contextId == null) return;
+                if (!closing) {
+                    date = new StringBuilder();
+                    startDate = name.endsWith(":startdate");
+                } else if (date != null) {
+                    LocalDate parsed = parseDate(date);
+                    if (startDate) contextStart = parsed; else contextEnd = parsed;
+                    date = null;
+                }
+            }
+            case "explicitmember", "typedmember" -> {
+                if (contextId != null) contextDimensional = true;
+            }
+            case "unit" -> {
+                if (!closing) {
+                    unitId = attribute("id");
+                    numerator.setLength(0);
+                    denominator.setLength(0);
+                    inDenominator = false;
+                } else if (unitId != null) {
+                    if (!numerator.isEmpty()) {
+                        units.put(unitId, denominator.isEmpty() ? numerator.toString() : numerator + "/" + denominator);
+                    }
+                    unitId = null;
+                }
+            }
+            case "unitdenominator" -> inDenominator = !closing;
+            case "measure" -> {
+                if (unitId == null) return;
+                if (!closing) {
+                    measure = new StringBuilder();
+                } else if (measure != null) {
+                    String text = measure.toString().trim();
+                    StringBuilder product = inDenominator ? denominator : numerator;
+                    if (!product.isEmpty()) product.append('*');
+                    product.append(text.substring(text.indexOf(':') + 1));
+                    measure = null;
+                }
+            }
+            default -> {
+                // Presentation markup only carries text
+            }
+        }
+    }
+
+    @Override
+    void text(int c) {
+        if (date != null) {
+            if (date.length() < MAX_VALUE_CHARS) date.appendCodePoint(c);
+            return;
+        }
+        if (measure != null) {
+            if (measure.length() < MAX_VALUE_CHARS) measure.appendCodePoint(c);
+            return;
+        }
+        for (PendingFact fact : openFacts) {
+            if (fact != null && fact.text.length() < MAX_VALUE_CHARS) fact.text.appendCodePoint(c);
+        }
+    }
+
+    private PendingFact requestedFact() {
+        String name = attribute("name");
+        if (name == null) return null;
+        String concept = name.substring(name.indexOf(':') + 1);
+        if (!concepts.contains(concept) || "true".equals(attribute("xsi:nil"))) return null;
+        return new PendingFact(concept, attribute("contextref"), attribute("unitref"), attribute("scale"),
+                attribute("sign"), attribute("format"));
+    }
+
+    private List<Fact> resolve() {
+        List<Fact> facts = new ArrayList<>();
+        for (PendingFact fact : pending) {
+            Context context = fact.contextRef == null ? null : contexts.get(fact.contextRef);
+            if (context == null) continue;
+            double value = fact.value();
+            if (Double.isNaN(value)) continue;
+            String unit = fact.unit == null ? null : units.getOrDefault(fact.unit, fact.unit);
+            facts.add(new Fact(fact.concept, context.start(), context.end(), context.dimensional(), unit, value));
+        }
+        return facts;
+    }
+
+    private static LocalDate parseDate(CharSequence text) {
+        try {
+            return LocalDate.parse(text.toString().trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static final class PendingFact {
+
+        private final String concept;
+        private final String contextRef;
+        private final String unit;
+        private final String scale;
+        private final String sign;
+        private final String format;
+        private final StringBuilder text = new StringBuilder();
+
+        private PendingFact(String concept, String contextRef, String unit, String scale, String sign, String format) {
+            this.concept = concept;
+            this.contextRef = contextRef;
+            this.unit = unit;
+            this.scale = scale;
+            this.sign = sign;
+            this.format = format;
+        }
+
+        /**
+         * The displayed number read according to its {@code ixt:} format, scaled and signed.
+         *
+         * @return the value, or {@code NaN} when the text is not a number in that format
+         */
+        private double value() {
+            String fmt = format == null ? "" : format.toLowerCase();
+            double displayed;
+            if (fmt.contains("zerodash") || fmt.contains("fixed-zero") || fmt.contains("fixedzero")) {
+                displayed = 0;
+            } else if (fmt.contains("comma-decimal") || fmt.contains("numcommadecimal")) {
+                // 1.234,5: swap the separators for the dot-decimal reading
+                StringBuilder swapped = new StringBuilder(text.length());
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (c == ',') swapped.append('.');
+                    else if (c != '.' && c != ' ' && c != 0xA0) swapped.append(c);
+                }
+                displayed = NumberScanner.firstNumber(swapped);
+            } else {
+                displayed = NumberScanner.firstNumber(text);
+            }
+            if (Double.isNaN(displayed)) return displayed;
+
+            int exponent = 0;
+            if (scale != null) {
+                try {
+                    exponent = Integer.parseInt(scale.trim());
+                } catch (NumberFormatException e) {
+                    return Double.NaN;
+                }
+            }
+            double value = exponent == 0 ? displayed : displayed * Math.pow(10, exponent);
+            return "-".equals(sign) ? -value : value;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.dexian.extractor.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Case-insensitive multi-pattern matcher (Aho–Corasick automaton) mapping label substrings to a category.
+ * <p>
+ * The dictionary is compiled once into a DFA over ASCII, so matching is a single pass over the text with
+ * no lowercasing, regexes or allocation. When a text contains patterns of several categories, the category
+ * registered first wins — the same result as testing each category's patterns in turn.
+ */
+public final class LabelMatcher<T> {
+
+    private static final int ALPHABET = 128;
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    private final int[][] transitions;
+    // Lowest category index reported by each state, including its suffix states
+    private final int[] bestCategory;
+    private final List<T> categories;
+
+    private LabelMatcher(int[][] transitions, int[] bestCategory, List<T> categories) {
+        this.transitions = transitions;
+        this.bestCategory = bestCategory;
+        this.categories = categories;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * @return the highest-priority category with a pattern occurring in {@code text}, or {@code null}
+     */
+    public T match(CharSequence text) {
+        int best = NO_MATCH;
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            state = c < ALPHABET ? transitions[state][fold(c)] : 0;
+            int found = bestCategory[state];
+            if (found < best) {
+                best = found;
+                if (best == 0) break;
+            }
+        }
+        return best == NO_MATCH ? null : categories.get(best);
+    }
+
+    public boolean matches(CharSequence text) {
+        return match(text) != null;
+    }
+
+    private static int fold(char c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    public static final class Builder<T> {
+
+        private final Map<T, List<String>> patterns = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Register patterns for a category; categories added earlier take precedence.
+         */
+        public Builder<T> add(T category, String... labels) {
+            List<String> list = patterns.computeIfAbsent(category, k -> new ArrayList<>());
+            for (String label : labels) {
+                if (label.isEmpty()) throw new IllegalArgumentException("Empty label for " + category);
+                for (int i = 0; i < label.length(); i++) {
+                    if (label.charAt(i) >= ALPHABET) {
+                        throw new IllegalArgumentException("Only ASCII labels are supported: " + label);
+                    }
+                }
+                list.add(label);
+            }
+            return this;
+        }
+
+        public LabelMatcher<T> build() {
+            List<int[]> trie = new ArrayList<>();
+            List<Integer> output = new ArrayList<>();
+            trie.add(emptyRow());
+            output.add(NO_MATCH);
+
+            List<T> categories = new ArrayList<>(patterns.keySet());
+            for (int category = 0; category < categories.size(); category++) {
+                for (String label : patterns.get(categories.get(category))) {
+                    int state = 0;
+                    for (int i = 0; i < label.length(); i++) {
+                        int c = fold(label.charAt(i));
+                        if (trie.get(state)[c] < 0) {
+                            trie.get(state)[c] = trie.size();
+                            trie.add(emptyRow());
+                            output.add(NO_MATCH);
+                        }
+                        state = trie.get(state)[c];
+                    }
+                    output.set(state, Math.min(output.get(state), category));
+                }
+            }
+
+            // Breadth-first pass turns the trie into a DFA: missing edges follow the failure links
+            int size = trie.size();
+            int[][] transitions = trie.toArray(new int[0][]);
+            int[] best = new int[size];
+            int[] failure = new int[size];
+            for (int s = 0; s < size; s++) best[s] = output.get(s);
+
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int c = 0; c < ALPHABET; c++) {
+                int child = transitions[0][c];
+                if (child < 0) {
+                    transitions[0][c] = 0;
+                } else {
+                    failure[child] = 0;
+                    queue.add(child);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                best[state] = Math.min(best[state], best[failure[state]]);
+                for (int c = 0; c < ALPHABET; c++) {
+                    int child = transitions[state][c];
+                    if (child < 0) {
+                        transitions[state][c] = transitions[failure[state]][c];
+                    } else {
+                        failure[child] = transitions[failure[state]][c];
+                        queue.add(child);
+                    }
+                }
+            }
+            return new LabelMatcher<>(transitions, best, List.copyOf(categories));
+        }
+
+        private static int[] emptyRow() {
+            int[] row = new int[ALPHABET];
+            Arrays.fill(row, -1);
+            return row;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.dexian.extractor.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming HTML/XML tokenizer shared by the filing scanners. Reports tag names (lower-cased, prefix kept)
+ * and entity-decoded text to its subclass as the document is read, skipping comments, declarations and
+ * script/style content; no tree is ever built. Attributes are only parsed for the tags a subclass asks for.
+ */
+abstract class MarkupScanner {
+
+    private static final int MAX_ENTITY_CHARS = 32;
+    private static final int MAX_ATTRIBUTE_CHARS = 1024;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+
+    private final StringBuilder tagName = new StringBuilder();
+    private final StringBuilder entity = new StringBuilder();
+    private final StringBuilder attributeName = new StringBuilder();
+    private final StringBuilder attributeValue = new StringBuilder();
+    private final Map<String, String> attributes = new HashMap<>();
+    private boolean selfClosing;
+
+    MarkupScanner(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * An opening or closing tag. For tags {@link #wantsAttributes} accepted, {@link #attribute} and
+     * {@link #isSelfClosing} describe the opening tag during this call.
+     */
+    abstract void tag(String name, boolean closing);
+
+    /**
+     * One character of text (a code point for decoded entities).
+     */
+    abstract void text(int c);
+
+    boolean wantsAttributes(String name) {
+        return false;
+    }
+
+    /**
+     * Called once the whole document has been read.
+     */
+    void end() {
+    }
+
+    /**
+     * @param name lower-cased attribute name
+     * @return its raw value, or {@code null} when the tag does not have it
+     */
+    final String attribute(String name) {
+        return attributes.get(name);
+    }
+
+    final boolean isSelfClosing() {
+        return selfClosing;
+    }
+
+    final void run() throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '<') {
+                markup();
+            } else if (c == '&') {
+                entity();
+            } else {
+                text(c);
+            }
+        }
+        end();
+    }
+
+    private int read() throws IOException {
+        if (pos == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[pos++];
+    }
+
+    /**
+     * Push back the character just returned by {@link #read()}.
+     */
+    private void unread() {
+        pos--;
+    }
+
+    private void markup() throws IOException {
+        int c = read();
+        if (c == '!') {
+            int first = read();
+            int second = first == '-' ? read() : -1;
+            if (first == '-' && second == '-') {
+                skipComment();
+            } else {
+                skipPast('>');
+            }
+            return;
+        }
+        if (c == '?') {
+            skipPast('>');
+            return;
+        }
+
+        boolean closing = c == '/';
+        if (closing) c = read();
+        if (!isNameChar(c)) {
+            // Not a tag: a literal '<' in the text
+            text('<');
+            if (closing) text('/');
+            if (c != -1) unread();
+            return;
+        }
+
+        tagName.setLength(0);
+        while (isNameChar(c)) {
+            tagName.append((char) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c));
+            c = read();
+        }
+        if (c != -1) unread();
+
+        String name = tagName.toString();
+        if (!closing && wantsAttributes(name)) {
+            readAttributes();
+        } else {
+            skipAttributes();
+        }
+        tag(name, closing);
+        if (!closing && (name.equals("script") || name.equals("style"))) {
+            skipRawText(name);
+        }
+    }
+
+    private void skipAttributes() throws IOException {
+        int quote = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return;
+            }
+        }
+    }
+
+    private void readAttributes() throws IOException {
+        attributes.clear();
+        selfClosing = false;
+        int c = read();
+        while (c != -1 && c != '>') {
+            if (!isNameChar(c)) {
+                selfClosing = c == '/';
+                c = read();
+                continue;
+            }
+            selfClosing = false;
+            attributeName.setLength(0);
+            while (isNameChar(c)) {
+                attributeName.append((char) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c));
+                c = read();
+            }
+            while (c == ' ' || c == '\t' || c == '\n' || c == '\r') c = read();
+            attributeValue.setLength(0);
+            if (c == '=') {
+                c = read();
+                while (c == ' ' || c == '\t' || c == '\n' || c == '\r') c = read();
+                if (c == '"' || c == '\'') {
+                    int quote = c;
+                    while ((c = read()) != -1 && c != quote) {
+                        if (attributeValue.length() < MAX_ATTRIBUTE_CHARS) attributeValue.append((char) c);
+                    }
+                    c = read();
+                } else {
+                    while (c != -1 && c != '>' && c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                        if (attributeValue.length() < MAX_ATTRIBUTE_CHARS) attributeValue.append((char) c);
+                        c = read();
+                    }
+                }
+            }
+            attributes.put(attributeName.toString(), attributeValue.toString());
+        }
+    }
+
+    private void skipComment() throws IOException {
+        int dashes = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '>' && dashes >= 2) return;
+            dashes = c == '-' ? dashes + 1 : 0;
+        }
+    }
+
+    private void skipPast(char end) throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != end) {
+            // skip
+        }
+    }
+
+    /**
+     * Skip script/style content up to the matching end tag.
+     */
+    private void skipRawText(String name) throws IOException {
+        int matched = -2; // -2: looking for '<', -1: saw '<', 0..n: matched "/" + name prefix
+        int c;
+        while ((c = read()) != -1) {
+            if (matched == -2) {
+                if (c == '<') matched = -1;
+            } else if (matched == -1) {
+                matched = c == '/' ? 0 : (c == '<' ? -1 : -2);
+            } else if (matched < name.length()) {
+                char lower = (char) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+                matched = lower == name.charAt(matched) ? matched + 1 : (c == '<' ? -1 : -2);
+            } else {
+                if (c == '>') return;
+                if (!isNameChar(c)) {
+                    skipPast('>');
+                    return;
+                }
+                matched = -2;
+            }
+        }
+    }
+
+    private void entity() throws IOException {
+        entity.setLength(0);
+        int c;
+        while ((c = read()) != -1 && entity.length() < MAX_ENTITY_CHARS
+                && (Character.isLetterOrDigit(c) || c == '#')) {
+            entity.append((char) c);
+        }
+        int codePoint = c == ';' ? decode(entity) : -1;
+        if (codePoint >= 0) {
+            text(codePoint);
+            return;
+        }
+        // Unknown or unterminated: keep it literally
+        if (c != -1 && c != ';') unread();
+        text('&');
+        for (int i = 0; i < entity.length(); i++) text(entity.charAt(i));
+        if (c == ';') text(';');
+    }
+
+    private static int decode(CharSequence name) {
+        if (name.length() > 1 && name.charAt(0) == '#') {
+            boolean hex = name.charAt(1) == 'x' || name.charAt(1) == 'X';
+            int value = 0;
+            for (int i = hex ? 2 : 1; i < name.length(); i++) {
+                int digit = Character.digit(name.charAt(i), hex ? 16 : 10);
+                if (digit < 0 || value > 0x10FFFF) return -1;
+                value = value * (hex ? 16 : 10) + digit;
+            }
+            return value <= 0x10FFFF ? value : -1;
+        }
+        switch (name.toString()) {
+            case "nbsp": return 0xA0;
+            case "amp": return '&';
+            case "lt": return '<';
+            case "gt": return '>';
+            case "quot": return '"';
+            case "apos": return '\'';
+            case "mdash": return 0x2014;
+            case "ndash": return 0x2013;
+            case "minus": return 0x2212;
+            case "rsquo": return 0x2019;
+            case "lsquo": return 0x2018;
+            case "rdquo": return 0x201D;
+            case "ldquo": return 0x201C;
+            case "bull": return 0x2022;
+            case "dollar": return '$';
+            default: return -1;
+        }
+    }
+
+    private static boolean isNameChar(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == ':' || c == '-' || c == '_' || c == '.';
+    }
+}
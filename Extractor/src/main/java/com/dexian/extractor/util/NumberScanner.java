@@ -0,0 +1,114 @@
+package com.dexian.extractor.util;
+
+/**
+ * Regex-free, allocation-free parsing of the numbers found in filing table cells.
+ * Thousands separators (commas) are ignored wherever they appear.
+ */
+public final class NumberScanner {
+
+    // Powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private NumberScanner() {
+    }
+
+    /**
+     * First unsigned decimal number ({@code digits[.digits]}) in {@code text}.
+     *
+     * @return the value, or {@code NaN} when the text contains no digit
+     */
+    public static double firstNumber(CharSequence text) {
+        int n = text.length();
+        int i = 0;
+        while (i < n && !isDigit(text.charAt(i))) i++;
+        if (i == n) return Double.NaN;
+        return parse(text, i, n);
+    }
+
+    /**
+     * Value of a cell that holds nothing but a number made of digits, dots and commas.
+     *
+     * @return the value, or {@code NaN} when the cell holds anything else
+     */
+    public static double plainNumber(CharSequence text) {
+        int n = text.length();
+        boolean digit = false;
+        int dots = 0;
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c)) {
+                digit = true;
+            } else if (c == '.') {
+                dots++;
+            } else if (c != ',') {
+                return Double.NaN;
+            }
+        }
+        if (!digit || dots > 1) return Double.NaN;
+        return parse(text, 0, n);
+    }
+
+    private static double parse(CharSequence text, int start, int end) {
+        long mantissa = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean fraction = false;
+        int i = start;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == ',') continue;
+            if (isDigit(c)) {
+                if (mantissa != 0 || c != '0') significant++;
+                if (significant > 18) return slowParse(text, start, end);
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction) scale++;
+            } else if (c == '.' && !fraction && hasDigitAfter(text, i + 1, end)) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (mantissa < MAX_EXACT_MANTISSA && scale < POWERS_OF_TEN.length) {
+            return mantissa / POWERS_OF_TEN[scale];
+        }
+        return slowParse(text, start, i);
+    }
+
+    private static boolean hasDigitAfter(CharSequence text, int from, int end) {
+        for (int i = from; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == ',') continue;
+            return isDigit(c);
+        }
+        return false;
+    }
+
+    /**
+     * Rare path for numbers with more than 18 significant digits.
+     */
+    private static double slowParse(CharSequence text, int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        boolean fraction = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == ',') continue;
+            if (isDigit(c)) {
+                sb.append(c);
+            } else if (c == '.' && !fraction && hasDigitAfter(text, i + 1, end)) {
+                fraction = true;
+                sb.append(c);
+            } else {
+                break;
+            }
+        }
+        return sb.length() == 0 ? Double.NaN : Double.parseDouble(sb.toString());
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
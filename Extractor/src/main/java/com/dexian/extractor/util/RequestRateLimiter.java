@@ -0,0 +1,40 @@
+package com.dexian.extractor.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request budget for sec.gov, told how SEC answered so an adaptive budget can follow it.
+ */
+public interface RequestRateLimiter {
+
+    /**
+     * Claims the next slot without blocking.
+     *
+     * @return nanoseconds the caller must wait before sending (0 when the slot is free now)
+     */
+    long reserve();
+
+    /**
+     * Blocks until the caller may send the next request.
+     */
+    default void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * SEC answered 429 or 503.
+     *
+     * @param retryAfterMillis delay asked for by {@code Retry-After}, 0 when absent
+     */
+    default void onThrottled(long retryAfterMillis) {
+    }
+
+    /**
+     * SEC answered normally.
+     */
+    default void onSuccess() {
+    }
+}
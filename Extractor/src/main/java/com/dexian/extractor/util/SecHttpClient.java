@@ -0,0 +1,357 @@
+package com.dexian.extractor.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The one way this application talks to sec.gov.
+ * <p>
+ * Every caller shares a single {@link HttpClient}, so connections are pooled and kept alive (HTTP/2
+ * where SEC offers it) instead of paying a TLS handshake per document. Requests ask for gzip and are
+ * decompressed while streaming, stay inside the shared {@link RequestRateLimiter} budget (which hears of
+ * every 429/503, fair-access 403 and healthy answer), go through the {@link HttpDiskCache}, and are retried with exponential
+ * backoff on 429/5xx (honouring {@code Retry-After}) and on connection failures.
+ */
+public class SecHttpClient implements AutoCloseable {
+
+    public static final String USER_AGENT = "DexianDataExtractor/1.0 (support@dexian.com)";
+    public static final String JSON = "application/json";
+    public static final String HTML = "text/html";
+    public static final String ANY = "*/*";
+
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+    // Title of the page SEC serves with a 403 to clients over the fair-access rate, and how much body to search
+    private static final String RATE_THRESHOLD_PAGE = "Request Rate Threshold Exceeded";
+    private static final int RATE_PAGE_BYTES = 16 * 1024;
+
+    private final RequestRateLimiter rateLimiter;
+    private final HttpDiskCache cache;
+    private final Duration requestTimeout;
+    private final ExecutorService executor;
+    private final HttpClient client;
+
+    public SecHttpClient(RequestRateLimiter rateLimiter, HttpDiskCache cache, Duration requestTimeout) {
+        this.rateLimiter = rateLimiter;
+        this.cache = cache;
+        this.requestTimeout = requestTimeout;
+
+        // Daemon threads, so the standalone extractor's JVM can still exit
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "sec-http-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(requestTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * GET a document, waiting for it.
+     *
+     * @param accept value of the {@code Accept} header, e.g. {@link #JSON}
+     * @return the decompressed body (caller closes), or {@code null} when SEC answers 404
+     * @throws IOException on any other failure once retries are exhausted
+     */
+    public InputStream open(String url, String accept) throws IOException, InterruptedException {
+        return await(url, openAsync(url, accept));
+    }
+
+    /**
+     * GET a document straight into {@code blobs}, waiting for it. The disk cache keeps only the validators and
+     * blob path of such a document, so it is revalidated like any other but stored once.
+     *
+     * @return its blob path, or {@code null} when SEC answers 404
+     * @throws IOException on any other failure once retries are exhausted
+     */
+    public String fetchToBlob(String url, String accept, FilingBlobStore blobs) throws IOException, InterruptedException {
+        HttpDiskCache.Reference stored = cache.lookupReference(url);
+        if (stored != null && !blobs.exists(stored.blobPath())) stored = null;
+        if (stored != null && cache.isImmutable(url)) {
+            SecMetrics.recordRequest(url, "cached", 0);
+            return stored.blobPath();
+        }
+
+        HttpRequest.Builder builder = newRequest(url, accept);
+        if (stored != null) {
+            stored.addValidators(builder::header);
+        }
+        HttpDiskCache.Reference known = stored;
+        return await(url, send(url, builder.build(), response -> blob(url, response, known, blobs), 1));
+    }
+
+    /**
+     * GET a document without blocking the caller. Rate-limit waits and retry backoff are scheduled,
+     * not slept. The future completes with {@code null} on 404, as {@link #open} does.
+     */
+    public CompletableFuture<InputStream> openAsync(String url, String accept) {
+        HttpDiskCache.Entry cached = cache.lookup(url);
+        if (cached != null && cache.isImmutable(url)) {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                InputStream body = openCached(cached);
+                SecMetrics.recordRequest(url, "cached", System.nanoTime() - start);
+                return body;
+            }, executor);
+        }
+
+        HttpRequest.Builder builder = newRequest(url, accept);
+        if (cached != null) {
+            cached.addValidators(builder::header);
+        }
+        return send(url, builder.build(), response -> body(url, response, cached), 1);
+    }
+
+    private HttpRequest.Builder newRequest(String url, String accept) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept", accept)
+                .header("Accept-Encoding", "gzip");
+    }
+
+    private static <T> T await(String url, CompletableFuture<T> result) throws IOException, InterruptedException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof IOException io) throw io;
+            throw new IOException("Fetching " + url + " failed", cause);
+        }
+    }
+
+    private <T> CompletableFuture<T> send(String url, HttpRequest request,
+                                          Function<HttpResponse<InputStream>, T> onResponse, int attempt) {
+        Executor withinBudget = CompletableFuture.delayedExecutor(rateLimiter.reserve(), TimeUnit.NANOSECONDS, executor);
+        return CompletableFuture.supplyAsync(System::nanoTime, withinBudget)
+                .thenCompose(start -> client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                        .whenComplete((response, error) -> SecMetrics.recordRequest(url,
+                                response != null ? String.valueOf(response.statusCode()) : unwrap(error).getClass().getSimpleName(),
+                                System.nanoTime() - start)))
+                .handle((response, error) -> {
+                    if (error != null) {
+                        Throwable cause = unwrap(error);
+                        if (cause instanceof IOException && attempt < MAX_ATTEMPTS) {
+                            long delay = backoffMillis(attempt);
+                            System.out.println("⚠️ " + cause + " for " + url + ", retrying in " + delay + " ms");
+                            return retry(url, request, onResponse, attempt, delay);
+                        }
+                        return CompletableFuture.<T>failedFuture(cause);
+                    }
+
+                    int status = response.statusCode();
+                    if (status == 403) {
+                        return CompletableFuture.<T>supplyAsync(() -> refused(url, response), executor);
+                    }
+                    if (status == 429 || status == 503) {
+                        rateLimiter.onThrottled(Math.max(0, retryAfterHeaderMillis(response)));
+                    } else if (status < 500) {
+                        rateLimiter.onSuccess();
+                    }
+                    if (isRetryable(status) && attempt < MAX_ATTEMPTS) {
+                        closeQuietly(response.body());
+                        long delay = retryAfterMillis(response, attempt);
+                        System.out.println("⚠️ HTTP " + status + " for " + url + ", retrying in " + delay + " ms");
+                        return retry(url, request, onResponse, attempt, delay);
+                    }
+                    return CompletableFuture.supplyAsync(() -> onResponse.apply(response), executor);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private <T> CompletableFuture<T> retry(String url, HttpRequest request, Function<HttpResponse<InputStream>, T> onResponse,
+                                           int attempt, long delayMillis) {
+        Executor later = CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, executor);
+        return CompletableFuture.runAsync(() -> { }, later)
+                .thenCompose(ignored -> send(url, request, onResponse, attempt + 1));
+    }
+
+    private InputStream body(String url, HttpResponse<InputStream> response, HttpDiskCache.Entry cached) {
+        try {
+            if (response.statusCode() == 304 && cached != null) {
+                response.body().close();
+                return cached.open();
+            }
+            InputStream body = content(url, response);
+            if (body == null) return null;
+
+            String etag = response.headers().firstValue("ETag").orElse(null);
+            String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            if (cache.isCacheable(url, etag, lastModified)) {
+                return cache.store(url, etag, lastModified, body);
+            }
+            return body;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String blob(String url, HttpResponse<InputStream> response, HttpDiskCache.Reference stored, FilingBlobStore blobs) {
+        try {
+            if (response.statusCode() == 304 && stored != null) {
+                response.body().close();
+                return stored.blobPath();
+            }
+            InputStream body = content(url, response);
+            if (body == null) return null;
+
+            String blobPath = blobs.put(body);
+            String etag = response.headers().firstValue("ETag").orElse(null);
+            String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            if (cache.isCacheable(url, etag, lastModified)) {
+                cache.storeReference(url, etag, lastModified, blobPath);
+            }
+            return blobPath;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The decompressed body of a 200 answer.
+     *
+     * @return {@code null} on 404
+     * @throws IOException on any other status
+     */
+    private static InputStream content(String url, HttpResponse<InputStream> response) throws IOException {
+        int status = response.statusCode();
+        if (status == 404) {
+            response.body().close();
+            return null;
+        }
+        if (status != 200) {
+            response.body().close();
+            throw new IOException("HTTP error " + status + " for " + url);
+        }
+
+        InputStream body = SecMetrics.countDownloadedBytes(url, response.body());
+        if (response.headers().firstValue("Content-Encoding").orElse("").equalsIgnoreCase("gzip")) {
+            body = new GZIPInputStream(body, 64 * 1024);
+        }
+        return body;
+    }
+
+    /**
+     * A 403 is SEC's fair-access block when it carries {@code Retry-After} or the "Request Rate Threshold
+     * Exceeded" page; the budget hears of that as a throttle. Neither kind counts as a healthy answer,
+     * and neither is retried.
+     */
+    private <T> T refused(String url, HttpResponse<InputStream> response) {
+        long retryAfter = retryAfterHeaderMillis(response);
+        boolean fairAccess = retryAfter >= 0;
+        try (InputStream body = response.body()) {
+            if (!fairAccess) {
+                InputStream page = body;
+                if (response.headers().firstValue("Content-Encoding").orElse("").equalsIgnoreCase("gzip")) {
+                    page = new GZIPInputStream(body);
+                }
+                fairAccess = new String(page.readNBytes(RATE_PAGE_BYTES), StandardCharsets.ISO_8859_1)
+                        .contains(RATE_THRESHOLD_PAGE);
+            }
+        } catch (IOException e) {
+            // an unreadable page says nothing about the budget
+        }
+        if (fairAccess) {
+            System.out.println("⚠️ SEC fair-access block for " + url);
+            rateLimiter.onThrottled(Math.max(0, retryAfter));
+        }
+        throw new UncheckedIOException(new IOException("HTTP error 403 for " + url));
+    }
+
+    private static InputStream openCached(HttpDiskCache.Entry cached) {
+        try {
+            return cached.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status == 500 || status == 502 || status == 503 || status == 504;
+    }
+
+    /**
+     * Delay requested by {@code Retry-After} (seconds or an HTTP date), else exponential backoff.
+     */
+    private static long retryAfterMillis(HttpResponse<?> response, int attempt) {
+        long retryAfter = retryAfterHeaderMillis(response);
+        return retryAfter >= 0 ? retryAfter : backoffMillis(attempt);
+    }
+
+    /**
+     * Milliseconds {@code Retry-After} asks for, capped at the maximum backoff; -1 when absent or unreadable.
+     */
+    private static long retryAfterHeaderMillis(HttpResponse<?> response) {
+        String retryAfter = response.headers().firstValue("Retry-After").orElse(null);
+        if (retryAfter == null) return -1;
+        try {
+            return Math.min(MAX_BACKOFF_MILLIS, Math.max(0, Long.parseLong(retryAfter.trim()) * 1000));
+        } catch (NumberFormatException e) {
+            try {
+                long until = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                return Math.min(MAX_BACKOFF_MILLIS, Math.max(0, until - System.currentTimeMillis()));
+            } catch (DateTimeParseException ignored) {
+                return -1;
+            }
+        }
+    }
+
+    private static long backoffMillis(int attempt) {
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << (attempt - 1));
+        return backoff + ThreadLocalRandom.current().nextLong(backoff / 4 + 1);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException
+                || cause instanceof UncheckedIOException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // the connection is dropped either way
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
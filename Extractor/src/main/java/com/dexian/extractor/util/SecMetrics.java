@@ -0,0 +1,140 @@
+package com.dexian.extractor.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction metrics, recorded on Micrometer's global registry so the plain (non-Spring) parsers and the
+ * standalone extractor can use them too. Spring Boot adds its Prometheus registry to the global one,
+ * which publishes everything under {@code /actuator/prometheus}.
+ */
+public final class SecMetrics {
+
+    private SecMetrics() {
+    }
+
+    /**
+     * One SEC round trip. {@code status} is the HTTP status, {@code cached} for an archive served from
+     * disk, or the exception name when no response came back.
+     */
+    public static void recordRequest(String url, String status, long nanos) {
+        Timer.builder("sec.http.requests")
+                .description("SEC request latency by endpoint and status")
+                .tag("endpoint", endpoint(url))
+                .tag("status", status)
+                .register(Metrics.globalRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Count the bytes read from a response body (as sent over the wire, i.e. before gzip decoding);
+     * the total is recorded when the stream is closed.
+     */
+    public static InputStream countDownloadedBytes(String url, InputStream body) {
+        DistributionSummary summary = DistributionSummary.builder("sec.http.downloaded")
+                .description("Bytes downloaded per SEC response")
+                .baseUnit("bytes")
+                .tag("endpoint", endpoint(url))
+                .register(Metrics.globalRegistry);
+        return new FilterInputStream(body) {
+            private long bytes;
+            private boolean recorded;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) bytes++;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) bytes += n;
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!recorded) {
+                    recorded = true;
+                    summary.record(bytes);
+                }
+                super.close();
+            }
+        };
+    }
+
+    /**
+     * Time spent parsing one document and the number of rows (table rows or facts) it yielded.
+     */
+    public static void recordParse(String parser, long nanos, int rows) {
+        Timer.builder("sec.parse")
+                .description("Time to parse one document")
+                .tag("parser", parser)
+                .register(Metrics.globalRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("sec.parse.rows")
+                .description("Rows or facts read per document")
+                .tag("parser", parser)
+                .register(Metrics.globalRegistry)
+                .record(rows);
+    }
+
+    /**
+     * A table row whose label matched {@code category}.
+     */
+    public static void recordTagHit(String parser, String category) {
+        Metrics.counter("sec.parse.tag.hits", "parser", parser, "category", category).increment();
+    }
+
+    /**
+     * The company_facts JSON had nothing usable and HTML filings were parsed instead.
+     */
+    public static void recordHtmlFallback() {
+        Metrics.counter("sec.extraction.fallback", "from", "SEC_JSON", "to", "HTML").increment();
+    }
+
+    /**
+     * Wall-clock time of one pipeline stage for one company.
+     */
+    public static void recordStage(String stage, long nanos) {
+        Timer.builder("sec.pipeline.stage")
+                .description("Time per extraction pipeline stage")
+                .tag("stage", stage)
+                .register(Metrics.globalRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * One bulk write of metric values.
+     */
+    public static void recordPersist(int rows, long nanos) {
+        Timer.builder("sec.persist")
+                .description("Time to write the metric values of one company")
+                .register(Metrics.globalRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("sec.persist.rows")
+                .description("Metric values written per company")
+                .register(Metrics.globalRegistry)
+                .record(rows);
+    }
+
+    /**
+     * Low-cardinality name of the SEC endpoint behind {@code url}.
+     */
+    static String endpoint(String url) {
+        if (url.contains("/submissions/")) return "submissions";
+        if (url.contains("/api/xbrl/companyfacts/") || url.contains("/api/xbrl/company_facts/")) return "companyfacts";
+        if (url.contains("/api/xbrl/frames/")) return "frames";
+        if (url.contains("/Archives/edgar/")) return "archives";
+        if (url.contains("/cgi-bin/browse-edgar")) return "browse-edgar";
+        return "other";
+    }
+}
@@ -0,0 +1,50 @@
+package com.dexian.extractor.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Smooth request budget for SEC endpoints (fair-access policy is 10 requests/second per client).
+ * One instance is meant to be shared by every thread that talks to sec.gov, so the budget holds
+ * no matter how many extractions run at once.
+ */
+public class SecRateLimiter implements RequestRateLimiter {
+
+    private long intervalNanos;
+    private long nextFreeSlot = System.nanoTime();
+
+    public SecRateLimiter(double requestsPerSecond) {
+        setRequestsPerSecond(requestsPerSecond);
+    }
+
+    /**
+     * Change the rate; slots already handed out keep their time.
+     */
+    public synchronized void setRequestsPerSecond(double requestsPerSecond) {
+        if (requestsPerSecond <= 0) {
+            throw new IllegalArgumentException("requestsPerSecond must be positive: " + requestsPerSecond);
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+    }
+
+    /**
+     * Hand out no slot for the next {@code nanos}.
+     */
+    public synchronized void pause(long nanos) {
+        nextFreeSlot = Math.max(nextFreeSlot, System.nanoTime() + nanos);
+    }
+
+    @Override
+    public long reserve() {
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(nextFreeSlot, now);
+            nextFreeSlot = slot + intervalNanos;
+            return slot - now;
+        }
+    }
+
+    @Override
+    public void onThrottled(long retryAfterMillis) {
+        pause(TimeUnit.MILLISECONDS.toNanos(retryAfterMillis));
+    }
+}
@@ -0,0 +1,110 @@
+package com.dexian.extractor.util;
+
+import com.dexian.extractor.dto.CompanySubmissions;
+import com.dexian.extractor.dto.SecFiling;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming reader for the SEC submissions feed. Only the column arrays of {@code filings.recent}
+ * that describe a filing are kept; everything else is skipped token by token.
+ */
+public final class SubmissionsParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final Set<String> COLUMNS = Set.of("accessionNumber", "filingDate", "reportDate", "form", "primaryDocument");
+
+    private SubmissionsParser() {
+    }
+
+    /**
+     * Parse the feed, keeping filings whose form is in {@code forms}. The stream is not closed.
+     */
+    public static CompanySubmissions parse(InputStream in, Set<String> forms) throws IOException {
+        String name = null;
+        String fiscalYearEnd = null;
+        Map<String, List<String>> columns = new HashMap<>();
+
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("submissions document is not a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("name".equals(field) && value == JsonToken.VALUE_STRING) {
+                    name = parser.getText();
+                } else if ("fiscalYearEnd".equals(field) && value == JsonToken.VALUE_STRING) {
+                    fiscalYearEnd = parser.getText();
+                } else if ("filings".equals(field) && value == JsonToken.START_OBJECT) {
+                    readFilings(parser, columns);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return new CompanySubmissions(name, fiscalYearEnd, toFilings(columns, forms));
+    }
+
+    private static void readFilings(JsonParser parser, Map<String, List<String>> columns) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!"recent".equals(field) || value != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String column = parser.currentName();
+                JsonToken array = parser.nextToken();
+                if (COLUMNS.contains(column) && array == JsonToken.START_ARRAY) {
+                    List<String> values = new ArrayList<>();
+                    JsonToken token;
+                    while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                        values.add(token == JsonToken.VALUE_NULL ? null : parser.getText());
+                        parser.skipChildren();
+                    }
+                    columns.put(column, values);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static List<SecFiling> toFilings(Map<String, List<String>> columns, Set<String> forms) {
+        List<String> accessions = columns.getOrDefault("accessionNumber", List.of());
+        List<SecFiling> filings = new ArrayList<>();
+        for (int i = 0; i < accessions.size(); i++) {
+            String form = column(columns, "form", i);
+            if (form == null || !forms.contains(form)) continue;
+            String filingDate = column(columns, "filingDate", i);
+            filings.add(new SecFiling(
+                    accessions.get(i),
+                    filingDate == null || filingDate.isEmpty() ? null : LocalDate.parse(filingDate),
+                    column(columns, "reportDate", i),
+                    form,
+                    column(columns, "primaryDocument", i)));
+        }
+        return filings;
+    }
+
+    private static String column(Map<String, List<String>> columns, String name, int index) {
+        List<String> values = columns.get(name);
+        return values == null || index >= values.size() ? null : values.get(index);
+    }
+}
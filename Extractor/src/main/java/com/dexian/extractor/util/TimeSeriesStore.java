@@ -0,0 +1,327 @@
+package com.dexian.extractor.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory metric time series held as primitive columns: per metric, one series per company of period ends
+ * (epoch days), period starts, filing dates and values in parallel {@code int}/{@code double} arrays sorted by
+ * period end. Nothing is boxed, so a scan over every company touches a few arrays per series and allocates
+ * nothing beyond its result.
+ * <p>
+ * A series holds one value per period end: the one from the latest filing, and within a filing the shortest
+ * period (a 10-K's fourth quarter over its full year). Series are immutable and replaced whole on write, so
+ * readers never lock; writers serialize on the store.
+ */
+public class TimeSeriesStore {
+
+    /** Period ends in epoch days of an open range bound. */
+    public static final int MIN_DAY = Integer.MIN_VALUE;
+    public static final int MAX_DAY = Integer.MAX_VALUE;
+
+    private static final Series[] NO_SERIES = new Series[0];
+
+    // Indexed by metric id; each slot holds that metric's series sorted by company id
+    private volatile Series[][] metrics = new Series[0][];
+
+    /**
+     * Visits one point of a series.
+     */
+    @FunctionalInterface
+    public interface PointVisitor {
+        void accept(int companyId, int periodEndDay, double value);
+    }
+
+    /**
+     * @param companies series with at least one point counted
+     * @param points    points counted, at most one per company with {@code latestPerCompany}
+     */
+    public record Aggregate(int companies, long points, double sum, double min, double max) {
+
+        public double mean() {
+            return points == 0 ? Double.NaN : sum / points;
+        }
+    }
+
+    /**
+     * Add or replace a point, following the rule above when the series already has one for that period end.
+     * Putting a point already stored changes nothing.
+     */
+    public synchronized void put(int companyId, int metricId, int startDay, int endDay, int filedDay, double value) {
+        Series[] companies = metricId < metrics.length && metrics[metricId] != null ? metrics[metricId] : NO_SERIES;
+        int index = indexOf(companies, companyId);
+        Series updated = index >= 0
+                ? companies[index].with(startDay, endDay, filedDay, value)
+                : new Series(companyId, new int[]{endDay}, new int[]{startDay}, new int[]{filedDay}, new double[]{value});
+
+        Series[] replaced;
+        if (index >= 0) {
+            if (updated == companies[index]) return;
+            replaced = companies.clone();
+            replaced[index] = updated;
+        } else {
+            int insertAt = -index - 1;
+            replaced = new Series[companies.length + 1];
+            System.arraycopy(companies, 0, replaced, 0, insertAt);
+            replaced[insertAt] = updated;
+            System.arraycopy(companies, insertAt, replaced, insertAt + 1, companies.length - insertAt);
+        }
+        setMetric(metricId, replaced);
+    }
+
+    /**
+     * Replace everything with the contents of {@code builder}.
+     */
+    public synchronized void replaceAll(Builder builder) {
+        metrics = builder.build();
+    }
+
+    /**
+     * Points of one company's series with {@code fromDay <= periodEnd <= toDay}, oldest first.
+     */
+    public void series(int companyId, int metricId, int fromDay, int toDay, PointVisitor visitor) {
+        Series[] companies = metric(metricId);
+        int index = indexOf(companies, companyId);
+        if (index < 0) return;
+
+        Series series = companies[index];
+        for (int i = series.lowerBound(fromDay); i < series.size() && series.endDays[i] <= toDay; i++) {
+            visitor.accept(companyId, series.endDays[i], series.values[i]);
+        }
+    }
+
+    /**
+     * Points of every company's series of a metric with {@code fromDay <= periodEnd <= toDay}, by company and
+     * then period end.
+     */
+    public void forEach(int metricId, int fromDay, int toDay, PointVisitor visitor) {
+        for (Series series : metric(metricId)) {
+            for (int i = series.lowerBound(fromDay); i < series.size() && series.endDays[i] <= toDay; i++) {
+                visitor.accept(series.companyId, series.endDays[i], series.values[i]);
+            }
+        }
+    }
+
+    /**
+     * Count, sum, min and max of a metric over every company in a period-end range.
+     *
+     * @param latestPerCompany only each company's latest point in the range (a cross-section), rather than all
+     */
+    public Aggregate aggregate(int metricId, int fromDay, int toDay, boolean latestPerCompany) {
+        int companies = 0;
+        long points = 0;
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (Series series : metric(metricId)) {
+            int first = series.lowerBound(fromDay);
+            int end = series.lowerBound(toDay == MAX_DAY ? MAX_DAY : toDay + 1);
+            if (first >= end) continue;
+            if (latestPerCompany) first = end - 1;
+
+            companies++;
+            points += end - first;
+            double[] values = series.values;
+            for (int i = first; i < end; i++) {
+                double value = values[i];
+                sum += value;
+                if (value < min) min = value;
+                if (value > max) max = value;
+            }
+        }
+        return new Aggregate(companies, points, sum, min, max);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Series[] companies : metrics) {
+            if (companies == null) continue;
+            for (Series series : companies) {
+                size += series.size();
+            }
+        }
+        return size;
+    }
+
+    private Series[] metric(int metricId) {
+        Series[][] current = metrics;
+        if (metricId < 0 || metricId >= current.length || current[metricId] == null) return NO_SERIES;
+        return current[metricId];
+    }
+
+    private void setMetric(int metricId, Series[] companies) {
+        Series[][] replaced = Arrays.copyOf(metrics, Math.max(metrics.length, metricId + 1));
+        replaced[metricId] = companies;
+        metrics = replaced;
+    }
+
+    private static int indexOf(Series[] companies, int companyId) {
+        int low = 0;
+        int high = companies.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int id = companies[mid].companyId;
+            if (id < companyId) low = mid + 1;
+            else if (id > companyId) high = mid - 1;
+            else return mid;
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Whether a point (start, filed) replaces the one stored for the same period end.
+     */
+    private static boolean supersedes(int startDay, int filedDay, int endDay, int storedStartDay, int storedFiledDay) {
+        if (filedDay != storedFiledDay) return filedDay > storedFiledDay;
+        return endDay - startDay <= endDay - storedStartDay;
+    }
+
+    private record Series(int companyId, int[] endDays, int[] startDays, int[] filedDays, double[] values) {
+
+        int size() {
+            return endDays.length;
+        }
+
+        /**
+         * Index of the first point with a period end of at least {@code day}.
+         */
+        int lowerBound(int day) {
+            int low = 0;
+            int high = endDays.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (endDays[mid] < day) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        Series with(int startDay, int endDay, int filedDay, double value) {
+            int at = lowerBound(endDay);
+            if (at < size() && endDays[at] == endDay) {
+                if (!supersedes(startDay, filedDay, endDay, startDays[at], filedDays[at])) return this;
+                if (startDays[at] == startDay && filedDays[at] == filedDay && values[at] == value) return this;
+                int[] starts = startDays.clone();
+                int[] filed = filedDays.clone();
+                double[] replaced = values.clone();
+                starts[at] = startDay;
+                filed[at] = filedDay;
+                replaced[at] = value;
+                return new Series(companyId, endDays, starts, filed, replaced);
+            }
+            return new Series(companyId, insert(endDays, at, endDay), insert(startDays, at, startDay),
+                    insert(filedDays, at, filedDay), insert(values, at, value));
+        }
+
+        private static int[] insert(int[] array, int at, int element) {
+            int[] result = new int[array.length + 1];
+            System.arraycopy(array, 0, result, 0, at);
+            result[at] = element;
+            System.arraycopy(array, at, result, at + 1, array.length - at);
+            return result;
+        }
+
+        private static double[] insert(double[] array, int at, double element) {
+            double[] result = new double[array.length + 1];
+            System.arraycopy(array, 0, result, 0, at);
+            result[at] = element;
+            System.arraycopy(array, at, result, at + 1, array.length - at);
+            return result;
+        }
+    }
+
+    /**
+     * Collects points in any order for a bulk load, then sorts and deduplicates every series at once
+     * instead of copying it on every point.
+     */
+    public static class Builder {
+
+        private final Map<Long, Buffer> buffers = new HashMap<>();
+
+        public void add(int companyId, int metricId, int startDay, int endDay, int filedDay, double value) {
+            buffers.computeIfAbsent(((long) metricId << 32) | (companyId & 0xFFFFFFFFL), key -> new Buffer())
+                    .add(startDay, endDay, filedDay, value);
+        }
+
+        public long size() {
+            return buffers.values().stream().mapToLong(buffer -> buffer.size).sum();
+        }
+
+        Series[][] build() {
+            int metricCount = 0;
+            for (long key : buffers.keySet()) {
+                metricCount = Math.max(metricCount, (int) (key >>> 32) + 1);
+            }
+            Series[][] metrics = new Series[metricCount][];
+            Long[] keys = buffers.keySet().toArray(new Long[0]);
+            Arrays.sort(keys);
+            int i = 0;
+            while (i < keys.length) {
+                int metricId = (int) (keys[i] >>> 32);
+                int j = i;
+                while (j < keys.length && (int) (keys[j] >>> 32) == metricId) j++;
+                Series[] companies = new Series[j - i];
+                for (int k = i; k < j; k++) {
+                    companies[k - i] = buffers.get(keys[k]).toSeries((int) (long) keys[k]);
+                }
+                metrics[metricId] = companies;
+                i = j;
+            }
+            return metrics;
+        }
+    }
+
+    private static final class Buffer {
+
+        int[] endDays = new int[8];
+        int[] startDays = new int[8];
+        int[] filedDays = new int[8];
+        double[] values = new double[8];
+        int size;
+
+        void add(int startDay, int endDay, int filedDay, double value) {
+            if (size == endDays.length) {
+                int capacity = size * 2;
+                endDays = Arrays.copyOf(endDays, capacity);
+                startDays = Arrays.copyOf(startDays, capacity);
+                filedDays = Arrays.copyOf(filedDays, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            endDays[size] = endDay;
+            startDays[size] = startDay;
+            filedDays[size] = filedDay;
+            values[size] = value;
+            size++;
+        }
+
+        Series toSeries(int companyId) {
+            // Sort positions by period end (stable, so later rows win ties the rule leaves open)
+            long[] order = new long[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = ((long) endDays[i] << 32) | i;
+            }
+            Arrays.sort(order);
+
+            int[] ends = new int[size];
+            int[] starts = new int[size];
+            int[] filed = new int[size];
+            double[] sorted = new double[size];
+            int n = 0;
+            for (long entry : order) {
+                int i = (int) entry;
+                if (n > 0 && ends[n - 1] == endDays[i]) {
+                    if (!supersedes(startDays[i], filedDays[i], endDays[i], starts[n - 1], filed[n - 1])) continue;
+                    n--;
+                }
+                ends[n] = endDays[i];
+                starts[n] = startDays[i];
+                filed[n] = filedDays[i];
+                sorted[n] = values[i];
+                n++;
+            }
+            return new Series(companyId, Arrays.copyOf(ends, n), Arrays.copyOf(starts, n),
+                    Arrays.copyOf(filed, n), Arrays.copyOf(sorted, n));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.dto.BackfillResult;
+import com.dexian.extractor.dto.SecFiling;
+import com.dexian.extractor.model.Company;
+import com.dexian.extractor.model.SourceDocument;
+import com.dexian.extractor.repository.SourceDocumentRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BackfillServiceTest {
+
+    private static final String ARCHIVES = "https://www.sec.gov/Archives/edgar/data/34088/000003408825000045/";
+    private static final String FACTS_URL = "https://data.sec.gov/api/xbrl/companyfacts/CIK0000034088.json";
+
+    private final SecExtractorService extractorService = mock(SecExtractorService.class);
+    private final SourceDocumentRepository repository = mock(SourceDocumentRepository.class);
+    private final BackfillService service = new BackfillService(extractorService, repository, 4);
+
+    @Test
+    void groupsDocumentsPerCompanyAndBlob() {
+        List<BackfillService.StoredBlob> blobs = BackfillService.groupByBlob(List.of(
+                document("34088", "aa/facts.gz", "JSON", FACTS_URL, "0000034088-25-000045", "10-Q"),
+                document("34088", "aa/facts.gz", "JSON", FACTS_URL, "0000034088-25-000030", "10-K"),
+                document("34088", "bb/q2.gz", null, ARCHIVES + "xom-20250630.htm", "0000034088-25-000045", null),
+                // the same blob under another company is that company's own work
+                document("797468", "aa/facts.gz", "JSON", FACTS_URL, "0000797468-25-000001", "10-Q"),
+                // cannot be tied to a filing, or has nothing to name it by
+                document("34088", "cc/orphan.gz", "HTML", ARCHIVES + "orphan.htm", null, "10-Q"),
+                document("34088", "dd/nourl.gz", "JSON", null, "0000034088-25-000050", "10-Q")));
+
+        assertEquals(3, blobs.size());
+        BackfillService.StoredBlob facts = blobs.get(0);
+        assertEquals("34088", facts.cik());
+        assertEquals("aa/facts.gz", facts.blobPath());
+        assertEquals("JSON", facts.fileFormat());
+        assertEquals(List.of("0000034088-25-000045", "0000034088-25-000030"),
+                facts.filings().stream().map(SecFiling::accessionNumber).toList());
+        assertEquals("10-K", facts.filings().get(1).form());
+
+        BackfillService.StoredBlob html = blobs.get(1);
+        assertEquals("HTML", html.fileFormat());
+        SecFiling filing = html.filings().get(0);
+        assertEquals("10-Q", filing.form());
+        assertEquals("xom-20250630.htm", filing.primaryDocument());
+        assertEquals("2025-06-30", filing.reportDate());
+        assertEquals(LocalDate.of(2025, 8, 4), filing.filingDate());
+
+        assertEquals("797468", blobs.get(2).cik());
+    }
+
+    @Test
+    void countsEveryDocumentOnceAcrossTheSplitTasks() throws Exception {
+        // Seven blobs split unevenly (3/4, then 1/2 and 2/2); blob 4 fails, blob 5 yields nothing
+        List<SourceDocument> documents = new ArrayList<>();
+        for (int blob = 0; blob < 7; blob++) {
+            for (int filing = 0; filing <= blob % 3; filing++) {
+                documents.add(document("34088", "blob" + blob, "JSON", FACTS_URL,
+                        String.format("0000034088-25-%06d", blob * 10 + filing), "10-Q"));
+            }
+        }
+        when(repository.findByRawTextBlobPathIsNotNull()).thenReturn(documents);
+        when(extractorService.reparseStoredFiling(eq("34088"), anyString(), eq("JSON"), anyList()))
+                .thenAnswer(invocation -> switch ((String) invocation.getArgument(1)) {
+                    case "blob4" -> throw new IllegalStateException("unreadable blob");
+                    case "blob5" -> Map.of();
+                    default -> Map.of("k", Map.of());
+                });
+        when(extractorService.storeReextractedData(eq("34088"), anyMap(), anyList(), eq("v2")))
+                .thenAnswer(invocation -> ((List<?>) invocation.getArgument(2)).size() * 3);
+
+        BackfillResult result = service.backfill("v2", null);
+
+        int documentsTotal = documents.size();
+        assertEquals(documentsTotal, result.documentsTotal());
+        assertEquals(documentsTotal, result.documentsDone());
+        assertEquals(1, result.failures());
+        // three metrics per filing of the five blobs that stored anything (blobs 0-3 and 6: 1+2+3+1+1 filings)
+        assertEquals(3 * 8, result.metricsStored());
+        assertFalse(result.running());
+        for (int blob = 0; blob < 7; blob++) {
+            verify(extractorService, times(1)).reparseStoredFiling(eq("34088"), eq("blob" + blob), eq("JSON"), anyList());
+        }
+        assertEquals(result, service.progress());
+    }
+
+    @Test
+    void secondBackfillIsTurnedAwayBeforeReadingDocuments() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findByRawTextBlobPathIsNotNull())
+                .thenReturn(List.of(document("34088", "blob0", "JSON", FACTS_URL, "0000034088-25-000001", "10-Q")));
+        when(extractorService.reparseStoredFiling(anyString(), anyString(), anyString(), anyList())).thenAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return Map.of();
+        });
+
+        CompletableFuture<BackfillResult> first = CompletableFuture.supplyAsync(() -> service.backfill("v2", null));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        assertThrows(IllegalStateException.class, () -> service.backfill("v3", null));
+        assertThrows(IllegalStateException.class, () -> service.backfill("v3", "34088"));
+        BackfillResult running = service.progress();
+        assertTrue(running.running());
+        assertEquals("v2", running.version());
+        assertEquals(1, running.documentsTotal());
+
+        release.countDown();
+        assertEquals(1, first.get(10, TimeUnit.SECONDS).documentsDone());
+        verify(repository, times(1)).findByRawTextBlobPathIsNotNull();
+        verify(repository, times(0)).findByCompanySecCikNumberAndRawTextBlobPathIsNotNull(any());
+    }
+
+    @Test
+    void failedDocumentQueryReleasesTheClaim() {
+        assertNull(service.progress());
+        when(repository.findByCompanySecCikNumberAndRawTextBlobPathIsNotNull("34088"))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(List.of());
+
+        assertThrows(IllegalStateException.class, () -> service.backfill("v2", "34088"));
+        BackfillResult retried = service.backfill("v2", "34088");
+
+        assertEquals(0, retried.documentsTotal());
+        assertFalse(retried.running());
+    }
+
+    private static SourceDocument document(String cik, String blobPath, String format, String url,
+                                           String accession, String filingType) {
+        Company company = new Company();
+        company.setSecCikNumber(cik);
+        SourceDocument document = new SourceDocument();
+        document.setCompany(company);
+        document.setRawTextBlobPath(blobPath);
+        document.setFileFormat(format);
+        document.setSourceUrl(url);
+        document.setAccessionNumber(accession);
+        document.setFilingType(filingType);
+        document.setFilingDate(LocalDate.of(2025, 8, 4));
+        document.setPeriodEndDate(LocalDate.of(2025, 6, 30));
+        return document;
+    }
+}
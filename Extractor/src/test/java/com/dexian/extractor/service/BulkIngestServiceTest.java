@@ -0,0 +1,37 @@
+package com.dexian.extractor.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BulkIngestServiceTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void resolvesOnlyArchivesInsideTheIngestDirectory() throws IOException {
+        Path ingestDir = Files.createDirectory(root.resolve("ingest"));
+        Path archive = Files.writeString(ingestDir.resolve("companyfacts.zip"), "zip");
+        Files.createDirectory(ingestDir.resolve("2025"));
+        Path nested = Files.writeString(ingestDir.resolve("2025/submissions.zip"), "zip");
+        Path outside = Files.writeString(root.resolve("secret.txt"), "secret");
+        Files.createSymbolicLink(ingestDir.resolve("link.zip"), outside);
+
+        BulkIngestService service = new BulkIngestService(null, 1, ingestDir);
+
+        assertEquals(archive.toRealPath(), service.resolveArchive("companyfacts.zip"));
+        assertEquals(nested.toRealPath(), service.resolveArchive("2025/submissions.zip"));
+        assertNull(service.resolveArchive("../secret.txt"));
+        assertNull(service.resolveArchive(outside.toString()));
+        assertNull(service.resolveArchive("link.zip"));
+        assertNull(service.resolveArchive("2025"));
+        assertNull(service.resolveArchive("missing.zip"));
+    }
+}
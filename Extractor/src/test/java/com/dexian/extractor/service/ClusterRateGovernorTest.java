@@ -0,0 +1,24 @@
+package com.dexian.extractor.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterRateGovernorTest {
+
+    @Test
+    void staysActiveWhileAReservationWaitsForItsSlot() {
+        // Not started: paces at the minimum rate, one request every 4 s
+        ClusterRateGovernor governor = new ClusterRateGovernor(null, 8, 0.25, 0.5, true);
+        assertFalse(governor.isActive());
+
+        governor.reserve();
+        long waitNanos = governor.reserve();
+
+        assertTrue(waitNanos > TimeUnit.SECONDS.toNanos(3));
+        assertTrue(governor.isActive());
+    }
+}
@@ -0,0 +1,178 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.dto.CompanyMetricValue;
+import com.dexian.extractor.dto.KeysetPage;
+import com.dexian.extractor.dto.MetricPoint;
+import com.dexian.extractor.repository.MetricValueRepository;
+import com.dexian.extractor.repository.ProductionRollupRepository;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MetricQueryServiceTest {
+
+    private static final String CIK = "34088";
+    private static final String OIL = "Oil Production";
+    private static final LocalDate Q2_END = LocalDate.of(2025, 6, 30);
+
+    private final MetricValueRepository metricValueRepository = mock(MetricValueRepository.class);
+    private final ProductionRollupRepository productionRollupRepository = mock(ProductionRollupRepository.class);
+    private final MetricQueryService service =
+            new MetricQueryService(metricValueRepository, productionRollupRepository, null, null);
+
+    /**
+     * Ten quarters with two values on each period end, in the repository's order: newest period, then highest id.
+     */
+    private final List<MetricPoint> series = new ArrayList<>();
+
+    MetricQueryServiceTest() {
+        long id = 1;
+        for (int q = 0; q < 10; q++) {
+            LocalDate end = LocalDate.of(2023, 3, 31).plusMonths(3L * q);
+            for (int i = 0; i < 2; i++) {
+                series.add(new MetricPoint(id++, end.minusMonths(3).plusDays(1), end, 100.0 * q + i, "bbl", "SEC_JSON", null));
+            }
+        }
+        series.sort(Comparator.comparing(MetricPoint::periodEndDate).thenComparing(MetricPoint::metricValueId).reversed());
+
+        when(metricValueRepository.findSeries(eq(CIK), eq(OIL), any(), any(), any(), any(), anyInt()))
+                .thenAnswer(invocation -> {
+                    LocalDate afterPeriod = invocation.getArgument(4);
+                    Long afterId = invocation.getArgument(5);
+                    int limit = invocation.getArgument(6);
+                    return series.stream()
+                            .filter(p -> afterPeriod == null
+                                    || p.periodEndDate().isBefore(afterPeriod)
+                                    || p.periodEndDate().equals(afterPeriod) && p.metricValueId() < afterId)
+                            .limit(limit)
+                            .toList();
+                });
+    }
+
+    @Test
+    void walksTheSeriesPageByPage() {
+        List<MetricPoint> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            KeysetPage<MetricPoint> page = service.getSeries(CIK, OIL, null, null, cursor, 3);
+            seen.addAll(page.items());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(7, pages);
+        assertEquals(series, seen);
+    }
+
+    @Test
+    void cursorCarriesThePositionOfTheLastRow() {
+        KeysetPage<MetricPoint> page = service.getSeries(CIK, OIL, null, null, null, 3);
+
+        // the third row shares its period end with the fourth, so the id breaks the tie
+        MetricPoint last = page.items().get(2);
+        assertEquals(last.periodEndDate() + "/" + last.metricValueId(), decode(page.nextCursor()));
+
+        service.getSeries(CIK, OIL, null, null, page.nextCursor(), 3);
+        verify(metricValueRepository).findSeries(CIK, OIL, null, null, last.periodEndDate(), last.metricValueId(), 4);
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoCursor() {
+        KeysetPage<MetricPoint> page = service.getSeries(CIK, OIL, null, null, null, series.size());
+
+        assertEquals(series.size(), page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void oneRowMoreThanALimitMeansAnotherPage() {
+        KeysetPage<MetricPoint> page = service.getSeries(CIK, OIL, null, null, null, series.size() - 1);
+
+        assertEquals(series.size() - 1, page.items().size());
+        assertNotNull(page.nextCursor());
+    }
+
+    @Test
+    void clampsTheLimit() {
+        service.getSeries(CIK, OIL, null, null, null, null);
+        service.getSeries(CIK, OIL, null, null, null, 0);
+        service.getSeries(CIK, OIL, null, null, null, -5);
+        service.getSeries(CIK, OIL, null, null, null, 50_000);
+
+        verify(metricValueRepository, times(3))
+                .findSeries(CIK, OIL, null, null, null, null, MetricQueryService.DEFAULT_LIMIT + 1);
+        verify(metricValueRepository).findSeries(CIK, OIL, null, null, null, null, MetricQueryService.MAX_LIMIT + 1);
+    }
+
+    @Test
+    void blankCursorStartsAtTheTop() {
+        service.getSeries(CIK, OIL, null, null, "  ", 5);
+
+        verify(metricValueRepository).findSeries(CIK, OIL, null, null, null, null, 6);
+    }
+
+    @Test
+    void rejectsMalformedSeriesCursors() {
+        for (String cursor : List.of("not base64!", encode("2025-06-30"), encode("2025-13-01/7"),
+                encode("2025-06-30/seven"), encode("7"))) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> service.getSeries(CIK, OIL, null, null, cursor, 10), cursor);
+            assertEquals("Invalid cursor: " + cursor, e.getMessage());
+        }
+    }
+
+    @Test
+    void comparesCompaniesByKeyset() {
+        List<CompanyMetricValue> rows = new ArrayList<>();
+        for (int id = 1; id <= 3; id++) {
+            rows.add(new CompanyMetricValue(id, String.valueOf(1000 + id), "Company " + id, "T" + id, Q2_END, 10.0 * id, "BBL"));
+        }
+        when(productionRollupRepository.findAcrossCompanies(eq(OIL), eq(Q2_END), isNull(), eq(3))).thenReturn(rows);
+        when(productionRollupRepository.findAcrossCompanies(eq(OIL), eq(Q2_END), eq(2), eq(3))).thenReturn(rows.subList(2, 3));
+
+        // any date inside the quarter reads the quarter's rollup
+        KeysetPage<CompanyMetricValue> first = service.compareCompanies(OIL, LocalDate.of(2025, 5, 15), null, 2);
+        assertEquals(rows.subList(0, 2), first.items());
+        assertEquals("2", decode(first.nextCursor()));
+
+        KeysetPage<CompanyMetricValue> second = service.compareCompanies(OIL, Q2_END, first.nextCursor(), 2);
+        assertEquals(rows.subList(2, 3), second.items());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void rejectsMalformedCompanyCursors() {
+        for (String cursor : List.of("%%%", encode("two"), encode("2025-06-30/7"))) {
+            assertThrows(IllegalArgumentException.class, () -> service.compareCompanies(OIL, Q2_END, cursor, 10), cursor);
+        }
+        verifyNoInteractions(productionRollupRepository);
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+}
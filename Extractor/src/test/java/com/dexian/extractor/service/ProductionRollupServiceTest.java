@@ -0,0 +1,225 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.model.Company;
+import com.dexian.extractor.model.MetricDefinition;
+import com.dexian.extractor.model.MetricValue;
+import com.dexian.extractor.model.ProductionRollup;
+import com.dexian.extractor.model.SourceDocument;
+import com.dexian.extractor.repository.ProductionRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductionRollupServiceTest {
+
+    private static final LocalDate Q2_START = LocalDate.of(2025, 4, 1);
+    private static final LocalDate Q2_END = LocalDate.of(2025, 6, 30);
+
+    private final Map<String, MetricDefinition> definitions = new HashMap<>();
+    private final ProductionRollupRepository repository = mock(ProductionRollupRepository.class);
+    private final ReferenceDataCache referenceDataCache = mock(ReferenceDataCache.class);
+    private final ProductionRollupService service = new ProductionRollupService(repository, referenceDataCache);
+    private final Company company = new Company();
+
+    ProductionRollupServiceTest() {
+        for (String name : List.of("Oil Production", "Natural Gas Production", "Natural Gas Liquid Production", "Total",
+                ProductionRollupService.BOE_TOTAL_METRIC)) {
+            MetricDefinition definition = new MetricDefinition();
+            definition.setMetricId(definitions.size() + 1);
+            definition.setMetricNameDisplay(name);
+            definitions.put(name, definition);
+        }
+        when(referenceDataCache.getOrCreateMetricDefinitions(anyCollection(), any())).thenReturn(definitions);
+        company.setCompanyId(7);
+    }
+
+    @Test
+    void quarterEndIsTheLastDayOfTheCalendarQuarter() {
+        assertEquals(LocalDate.of(2025, 3, 31), ProductionRollupService.quarterEnd(LocalDate.of(2025, 1, 1)));
+        assertEquals(LocalDate.of(2025, 6, 30), ProductionRollupService.quarterEnd(LocalDate.of(2025, 6, 30)));
+        assertEquals(LocalDate.of(2024, 12, 31), ProductionRollupService.quarterEnd(LocalDate.of(2024, 10, 15)));
+    }
+
+    @Test
+    void laterFilingWinsAndAnUndatedOneLoses() {
+        ProductionRollup may = rollup(LocalDate.of(2025, 5, 1));
+        ProductionRollup august = rollup(LocalDate.of(2025, 8, 1));
+        ProductionRollup undated = rollup(null);
+
+        assertSame(august, ProductionRollupService.laterFiling(may, august));
+        assertSame(august, ProductionRollupService.laterFiling(august, may));
+        assertSame(may, ProductionRollupService.laterFiling(undated, may));
+        assertSame(may, ProductionRollupService.laterFiling(may, undated));
+        // The same day: the one folded in last
+        ProductionRollup amended = rollup(LocalDate.of(2025, 8, 1));
+        assertSame(amended, ProductionRollupService.laterFiling(august, amended));
+    }
+
+    @Test
+    void convertsReportedUnitsToBoe() {
+        assertEquals(1_000, ProductionRollupService.toBoe(1_000, "bbl", Q2_START, Q2_END));
+        assertEquals(2_000, ProductionRollupService.toBoe(2, "MBbls", Q2_START, Q2_END));
+        assertEquals(1_000, ProductionRollupService.toBoe(6_000, "Mcf", Q2_START, Q2_END));
+        assertEquals(1_000, ProductionRollupService.toBoe(6, "MMcf", Q2_START, Q2_END));
+        assertEquals(3_000_000, ProductionRollupService.toBoe(3, "MMBOE", Q2_START, Q2_END));
+        // 91 days in the quarter
+        assertEquals(91_000, ProductionRollupService.toBoe(1_000, "bbl/d", Q2_START, Q2_END));
+        assertNull(ProductionRollupService.toBoe(1_000, "bbl/d", null, Q2_END));
+        assertNull(ProductionRollupService.toBoe(1_000, "bbl/yr", Q2_START, Q2_END));
+        assertNull(ProductionRollupService.toBoe(1_000, "USD", Q2_START, Q2_END));
+        assertNull(ProductionRollupService.toBoe(1_000, null, Q2_START, Q2_END));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rollsUpComponentsInTheirMetricUnitAndRefreshesTheBoeTotal() {
+        service.rollUp(company, List.of(
+                value("Oil Production", 1_000, "bbl"),
+                value("Natural Gas Production", 6, "MMcf"),
+                value("Natural Gas Liquid Production", 10, "bbl/d"),
+                value("Total", 5, null),
+                value("Revenues", 99, "USD")));
+
+        ArgumentCaptor<List<ProductionRollup>> rows = ArgumentCaptor.forClass(List.class);
+        verify(repository).upsertLatest(rows.capture());
+        Map<Integer, ProductionRollup> byMetric = new HashMap<>();
+        rows.getValue().forEach(row -> byMetric.put(row.getMetricId(), row));
+        assertEquals(Set.of(1, 2, 3), byMetric.keySet());
+
+        assertEquals(1_000, byMetric.get(1).getBoeValue());
+        // Gas is kept in Mcf, 6 Mcf to the barrel
+        assertEquals(6_000, byMetric.get(2).getMetricValue(), 1e-6);
+        assertEquals(1_000, byMetric.get(2).getBoeValue(), 1e-6);
+        assertEquals(910, byMetric.get(3).getBoeValue());
+        assertEquals(Q2_END, byMetric.get(1).getQuarterEnd());
+
+        verify(repository).refreshBoeTotals(eq(7), eq(Set.of(Q2_END)), eq(List.of(1, 2, 3)), eq(4), eq(5));
+    }
+
+    @Test
+    void valuesWithoutAKnownUnitAreNotRolledUp() {
+        service.rollUp(company, List.of(value("Oil Production", 1_000, null), value("Total", 5, "widgets")));
+
+        verify(repository, never()).upsertLatest(any());
+        verify(repository, never()).refreshBoeTotals(anyInt(), anyCollection(), anyCollection(), any(), anyInt());
+    }
+
+    @Test
+    void versionedReextractionsAreNotRolledUp() {
+        MetricValue backfilled = value("Oil Production", 1_000, "bbl");
+        backfilled.setExtractionMethod("SEC_HTML:v2");
+
+        service.rollUp(company, List.of(backfilled));
+
+        verify(repository, never()).upsertLatest(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onlyQuarterLongPeriodsAreRolledUp() {
+        // A 10-Q for Q3 tags the quarter and the nine months to date; a 10-K the whole year
+        MetricValue quarter = value("Oil Production", 300, "bbl");
+        period(quarter, LocalDate.of(2024, 7, 1), LocalDate.of(2024, 9, 30));
+        MetricValue yearToDate = value("Oil Production", 900, "bbl");
+        period(yearToDate, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 9, 30));
+        MetricValue annual = value("Natural Gas Production", 7_200, "Mcf");
+        period(annual, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31));
+
+        service.rollUp(company, List.of(yearToDate, quarter, annual));
+
+        ArgumentCaptor<List<ProductionRollup>> rows = ArgumentCaptor.forClass(List.class);
+        verify(repository).upsertLatest(rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertEquals(300, rows.getValue().get(0).getMetricValue());
+        assertEquals(LocalDate.of(2024, 9, 30), rows.getValue().get(0).getQuarterEnd());
+        verify(repository).refreshBoeTotals(eq(7), eq(Set.of(LocalDate.of(2024, 9, 30))), anyCollection(), any(), anyInt());
+    }
+
+    @Test
+    void annualAndUndatedPeriodsAloneRollUpNothing() {
+        MetricValue annual = value("Oil Production", 1_200, "bbl");
+        period(annual, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31));
+        MetricValue noStart = value("Oil Production", 300, "bbl");
+        period(noStart, null, Q2_END);
+
+        service.rollUp(company, List.of(annual, noStart));
+
+        verify(repository, never()).upsertLatest(any());
+    }
+
+    @Test
+    void sameFilingKeepsTheShorterPeriodWhateverTheOrder() {
+        ProductionRollup ninetyTwo = rollup(LocalDate.of(2025, 8, 1));
+        ProductionRollup ninetyOne = rollup(LocalDate.of(2025, 8, 1));
+        ProductionRollup later = rollup(LocalDate.of(2025, 9, 1));
+
+        assertTrue(ProductionRollupService.supersedes(ninetyOne, 91, ninetyTwo, 92));
+        assertFalse(ProductionRollupService.supersedes(ninetyTwo, 92, ninetyOne, 91));
+        // a later filing wins even with a longer period
+        assertTrue(ProductionRollupService.supersedes(later, 92, ninetyOne, 91));
+        assertFalse(ProductionRollupService.supersedes(ninetyOne, 91, later, 92));
+    }
+
+    @Test
+    void quarterLengthBounds() {
+        assertTrue(ProductionRollupService.isQuarter(Q2_START, Q2_END));
+        assertTrue(ProductionRollupService.isQuarter(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31)));
+        // 13-week fiscal quarter
+        assertTrue(ProductionRollupService.isQuarter(LocalDate.of(2025, 3, 30), LocalDate.of(2025, 6, 28)));
+        assertFalse(ProductionRollupService.isQuarter(LocalDate.of(2025, 1, 1), Q2_END));
+        assertFalse(ProductionRollupService.isQuarter(LocalDate.of(2025, 6, 1), Q2_END));
+        assertFalse(ProductionRollupService.isQuarter(null, Q2_END));
+    }
+
+    private static void period(MetricValue mv, LocalDate start, LocalDate end) {
+        mv.setPeriodStartDate(start);
+        mv.setPeriodEndDate(end);
+    }
+
+    private MetricValue value(String metric, double value, String unit) {
+        MetricDefinition definition = definitions.computeIfAbsent(metric, name -> {
+            MetricDefinition extra = new MetricDefinition();
+            extra.setMetricId(99);
+            extra.setMetricNameDisplay(name);
+            return extra;
+        });
+        SourceDocument source = new SourceDocument();
+        source.setFilingDate(LocalDate.of(2025, 8, 1));
+        source.setAccessionNumber("0000034088-25-000045");
+
+        MetricValue mv = new MetricValue();
+        mv.setCompany(company);
+        mv.setMetricDefinition(definition);
+        mv.setSourceDocument(source);
+        mv.setPeriodStartDate(Q2_START);
+        mv.setPeriodEndDate(Q2_END);
+        mv.setExtractedMetricValue(value);
+        mv.setExtractedMetricUnit(unit);
+        mv.setExtractionMethod("SEC_JSON");
+        return mv;
+    }
+
+    private static ProductionRollup rollup(LocalDate filed) {
+        return new ProductionRollup(7, Q2_END, 1, 1.0, 1.0, filed, null, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,34 @@
+package com.dexian.extractor.service;
+
+import com.dexian.extractor.dto.FrameFact;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SecExtractorServiceTest {
+
+    private static final String ACCESSION = "0000034088-25-000045";
+
+    @Test
+    void groupsFrameRowsPerFilingAndPeriodUnderTheirOwnMethod() {
+        Map<String, Map<String, Object>> data = SecExtractorService.groupFrameFacts(List.of(
+                new FrameFact("OilProduction", "bbl", 34088, "Example Corp", ACCESSION, "2025-04-01", "2025-06-30", 1200),
+                new FrameFact("NaturalGasProduction", "Mcf", 34088, "Example Corp", ACCESSION, "2025-04-01", "2025-06-30", 3000),
+                new FrameFact("OilProduction", "bbl", 34088, "Example Corp", ACCESSION, "2025-01-01", "2025-06-30", 2300),
+                new FrameFact("OilProduction", "bbl", 34088, "Example Corp", null, "2025-04-01", "2025-06-30", 9)));
+
+        assertEquals(2, data.size());
+        Map<String, Object> quarter = data.get(ACCESSION + "|2025-04-01|2025-06-30");
+        assertEquals(1200.0, quarter.get("Oil Production"));
+        assertEquals(3000.0, quarter.get("Natural Gas Production"));
+        assertEquals(ACCESSION, quarter.get("accession"));
+        assertEquals("https://www.sec.gov/Archives/edgar/data/34088/000003408825000045/", quarter.get("source"));
+        assertEquals("2025-04-01", quarter.get("periodStart"));
+        assertEquals("2025-06-30", quarter.get("periodEnd"));
+        assertEquals("SEC_FRAMES", quarter.get("extractionMethod"));
+        assertEquals(2300.0, data.get(ACCESSION + "|2025-01-01|2025-06-30").get("Oil Production"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.dexian.extractor.util;
+
+import com.dexian.extractor.dto.CompanyFact;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CompanyFactsParserTest {
+
+    private static final String DOCUMENT = """
+            {"cik": 34088, "entityName": "Example Corp",
+             "facts": {
+               "dei": {"OilProduction": {"units": {"bbl": [{"val": 999}]}}},
+               "us-gaap": {
+                 "Revenues": {"label": "Revenues", "units": {"USD": [{"val": 1, "nested": {"a": [1, 2]}}]}},
+                 "OilProduction": {
+                   "label": "Oil", "description": null,
+                   "units": {
+                     "bbl": [
+                       {"start": "2024-01-01", "end": "2024-03-31", "val": 100, "accn": "0000034088-24-000010",
+                        "fy": 2024, "fp": "Q1", "form": "10-Q", "filed": "2024-05-01", "frame": "CY2024Q1"},
+                       {"end": "2024-06-30", "val": 200.5, "fy": 2024, "fp": "Q2"},
+                       {"end": "2024-09-30", "val": 300}
+                     ]
+                   }
+                 },
+                 "NaturalGasProduction": {"units": {"Mcf": [{"val": 5}]}}
+               }
+             }}
+            """;
+
+    @Test
+    void reportsOnlyRequestedConceptsOfTheTaxonomy() throws Exception {
+        List<CompanyFact> facts = new ArrayList<>();
+
+        CompanyFactsParser.parse(stream(DOCUMENT), "us-gaap", Set.of("OilProduction", "NaturalGasProduction"), fact -> {
+            facts.add(fact);
+            return true;
+        });
+
+        assertEquals(4, facts.size());
+        CompanyFact first = facts.get(0);
+        assertEquals("OilProduction", first.concept());
+        assertEquals("bbl", first.unit());
+        assertEquals(100, first.value());
+        assertEquals("2024-01-01", first.startDate());
+        assertEquals("2024-03-31", first.endDate());
+        assertEquals(2024, first.fiscalYear());
+        assertEquals("Q1", first.fiscalPeriod());
+        assertEquals("10-Q", first.form());
+        assertEquals("0000034088-24-000010", first.accessionNumber());
+        assertEquals("2024-05-01", first.filedDate());
+        assertEquals("CY2024Q1", first.frame());
+        assertNull(facts.get(1).startDate());
+        assertEquals(200.5, facts.get(1).value());
+        assertEquals("NaturalGasProduction", facts.get(3).concept());
+    }
+
+    @Test
+    void stopsMaterializingAUnitArrayWhenTheHandlerDeclines() throws Exception {
+        List<CompanyFact> facts = new ArrayList<>();
+
+        CompanyFactsParser.parse(stream(DOCUMENT), "us-gaap", Set.of("OilProduction", "NaturalGasProduction"), fact -> {
+            facts.add(fact);
+            return !fact.concept().equals("OilProduction");
+        });
+
+        assertEquals(2, facts.size());
+        assertEquals(100, facts.get(0).value());
+        assertEquals(5, facts.get(1).value());
+    }
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,51 @@
+package com.dexian.extractor.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilingBlobStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storesIdenticalContentOnce() throws IOException {
+        FilingBlobStore store = new FilingBlobStore(directory);
+        String filing = "<html><table><tr><td>Oil Production</td><td>1,234</td></tr></table></html>".repeat(100);
+
+        String original = store.put(stream(filing));
+        String amendment = store.put(stream(filing));
+        String other = store.put(stream(filing + "<p>restated</p>"));
+
+        assertEquals(original, amendment);
+        assertNotEquals(original, other);
+        assertTrue(original.matches("[0-9a-f]{2}/[0-9a-f]{64}\\.gz"));
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(2, files.filter(Files::isRegularFile).count());
+        }
+        assertEquals(filing, new String(store.open(original).readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void rejectsPathsOutsideTheStore() {
+        FilingBlobStore store = new FilingBlobStore(directory);
+
+        assertThrows(IllegalArgumentException.class, () -> store.open("../../etc/passwd"));
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
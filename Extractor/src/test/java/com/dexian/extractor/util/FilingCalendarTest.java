@@ -0,0 +1,66 @@
+package com.dexian.extractor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.MonthDay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilingCalendarTest {
+
+    private final FilingCalendar calendar = new FilingCalendar(Duration.ofMinutes(30), Duration.ofHours(6), Duration.ofDays(1));
+
+    @Test
+    void pollsOftenInsideAnOpenWindowUntilFiled() {
+        LocalDateTime now = LocalDateTime.of(2025, 8, 5, 12, 0);
+
+        // Q2 (June 30) 10-Q not filed yet: due window Jul 20 - Aug 19
+        assertEquals(now.plusMinutes(30), calendar.nextCheck("1231", LocalDate.of(2025, 5, 2), now));
+        // Filed: nothing expected before the Q3 window opens, so only the idle check remains
+        assertEquals(now.plusDays(1), calendar.nextCheck("1231", LocalDate.of(2025, 8, 1), now));
+    }
+
+    @Test
+    void waitsForTheNextWindowWhenItIsCloserThanTheIdleInterval() {
+        LocalDateTime now = LocalDateTime.of(2025, 10, 19, 18, 0);
+
+        assertEquals(LocalDate.of(2025, 10, 20).atStartOfDay(),
+                calendar.nextCheck("1231", LocalDate.of(2025, 8, 1), now));
+    }
+
+    @Test
+    void followsTheFiscalYearAndItsLongerAnnualWindow() {
+        // June fiscal year: the 10-K for 2025-06-30 is due until early October
+        LocalDateTime now = LocalDateTime.of(2025, 9, 20, 9, 0);
+
+        assertEquals(now.plusMinutes(30), calendar.nextCheck("0630", LocalDate.of(2025, 5, 10), now));
+        // Read as a calendar year, the same filer would already be late with its June 10-Q
+        assertEquals(now.plusHours(6), calendar.nextCheck(null, LocalDate.of(2025, 5, 10), now));
+    }
+
+    @Test
+    void keepsCheckingLateFilersLessOften() {
+        // Q2 window closed Aug 19, still nothing filed
+        LocalDateTime now = LocalDateTime.of(2025, 9, 10, 9, 0);
+
+        assertEquals(now.plusHours(6), calendar.nextCheck("1231", LocalDate.of(2025, 5, 2), now));
+    }
+
+    @Test
+    void checksNewCompaniesImmediately() {
+        LocalDateTime now = LocalDateTime.of(2025, 9, 10, 9, 0);
+
+        assertEquals(now, calendar.nextCheck("1231", null, now));
+    }
+
+    @Test
+    void quartersOfMonthEndYearsEndOnMonthEnds() {
+        assertTrue(FilingCalendar.periodEnds(MonthDay.of(2, 28), 2025).contains(LocalDate.of(2024, 11, 30)));
+        assertTrue(FilingCalendar.periodEnds(MonthDay.of(12, 31), 2025).contains(LocalDate.of(2025, 9, 30)));
+        assertEquals(MonthDay.of(12, 31), FilingCalendar.parseFiscalYearEnd("13xx"));
+    }
+}
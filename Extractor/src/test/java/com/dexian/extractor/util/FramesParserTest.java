@@ -0,0 +1,41 @@
+package com.dexian.extractor.util;
+
+import com.dexian.extractor.dto.FrameFact;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FramesParserTest {
+
+    private static final String DOCUMENT = """
+            {"taxonomy": "us-gaap", "tag": "OilProduction", "ccp": "CY2025Q2", "uom": "bbl",
+             "label": "Oil Production", "description": "Volume of oil produced.", "pts": 3,
+             "data": [
+               {"accn": "0000034088-25-000045", "cik": 34088, "entityName": "Example Corp", "loc": "US-TX",
+                "start": "2025-04-01", "end": "2025-06-30", "val": 1234500},
+               {"accn": "0000797468-25-000030", "cik": "797468", "entityName": "Other Co", "loc": "US-TX",
+                "start": "2025-04-01", "end": "2025-06-30", "val": 87.5, "extra": {"a": [1, 2]}},
+               {"accn": "0000000001-25-000001", "entityName": "No CIK", "end": "2025-06-30", "val": 1},
+               {"accn": "0000000002-25-000001", "cik": 2, "end": "2025-06-30", "val": null}
+             ]}
+            """;
+
+    @Test
+    void reportsEveryRowWithACikAndAValue() throws Exception {
+        List<FrameFact> rows = new ArrayList<>();
+
+        FramesParser.parse(new ByteArrayInputStream(DOCUMENT.getBytes(StandardCharsets.UTF_8)),
+                "OilProduction", "bbl", rows::add);
+
+        assertEquals(List.of(
+                new FrameFact("OilProduction", "bbl", 34088, "Example Corp", "0000034088-25-000045",
+                        "2025-04-01", "2025-06-30", 1_234_500),
+                new FrameFact("OilProduction", "bbl", 797468, "Other Co", "0000797468-25-000030",
+                        "2025-04-01", "2025-06-30", 87.5)), rows);
+    }
+}
@@ -0,0 +1,52 @@
+package com.dexian.extractor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HtmlTableScannerTest {
+
+    @Test
+    void emitsNormalizedCellTextPerRow() throws IOException {
+        String html = "<html><head><style>td { color: red }</style><script>var s = '<td>x</td>';</script></head>"
+                + "<body><!-- <table><tr><td>hidden</td></tr></table> -->"
+                + "<TABLE><tr><th>Metric</th><th>2024</th></tr>"
+                + "<tr><td><span>Oil&nbsp;Production</span>\n (MBbls)</td><td align=\"right\">1,234</td>"
+                + "<tr><td>AT&amp;T &#36; &#x41;</td><td>5</td></tr></TABLE></body></html>";
+
+        List<List<String>> rows = new ArrayList<>();
+        List<Boolean> headers = new ArrayList<>();
+        HtmlTableScanner.scan(new StringReader(html), row -> {
+            List<String> cells = new ArrayList<>();
+            for (int i = 0; i < row.size(); i++) {
+                cells.add(row.cell(i).toString());
+            }
+            rows.add(cells);
+            headers.add(row.isHeader(0));
+        });
+
+        assertEquals(List.of(
+                List.of("Metric", "2024"),
+                List.of("Oil Production (MBbls)", "1,234"),
+                List.of("AT&T $ A", "5")), rows);
+        assertTrue(headers.get(0));
+        assertFalse(headers.get(1));
+    }
+
+    @Test
+    void capsCellLength() throws IOException {
+        String html = "<table><tr><td>" + "x".repeat(HtmlTableScanner.MAX_CELL_CHARS * 3) + "</td><td>1</td></tr></table>";
+
+        List<Integer> lengths = new ArrayList<>();
+        HtmlTableScanner.scan(new StringReader(html), row -> lengths.add(row.cell(0).length()));
+
+        assertEquals(List.of(HtmlTableScanner.MAX_CELL_CHARS), lengths);
+    }
+}
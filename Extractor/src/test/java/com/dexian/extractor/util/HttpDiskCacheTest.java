@@ -0,0 +1,177 @@
+package com.dexian.extractor.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpDiskCacheTest {
+
+    private static final String ARCHIVE_URL =
+            "https://www.sec.gov/Archives/edgar/data/34088/000003408825000045/xom-20250630.htm";
+    private static final String SUBMISSIONS_URL = "https://data.sec.gov/submissions/CIK0000034088.json";
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Mon, 04 Aug 2025 16:01:02 GMT";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storesAndLooksUpEntries() throws Exception {
+        HttpDiskCache cache = new HttpDiskCache(dir);
+        assertNull(cache.lookup(SUBMISSIONS_URL));
+
+        String body = "{\"name\": \"Example\"}".repeat(1000);
+        assertEquals(body, HttpDiskCache.readString(cache.store(SUBMISSIONS_URL, ETAG, LAST_MODIFIED, text(body))));
+
+        HttpDiskCache.Entry entry = new HttpDiskCache(dir).lookup(SUBMISSIONS_URL);
+        assertNotNull(entry);
+        assertEquals(SUBMISSIONS_URL, entry.url());
+        assertEquals(body, HttpDiskCache.readString(entry.open()));
+        // the body is kept compressed
+        assertTrue(Files.size(entryFile(SUBMISSIONS_URL)) < body.length() / 10);
+    }
+
+    @Test
+    void entriesCarryTheirValidators() throws Exception {
+        HttpDiskCache cache = new HttpDiskCache(dir);
+        cache.store(SUBMISSIONS_URL, ETAG, LAST_MODIFIED, text("a")).close();
+        cache.store(SUBMISSIONS_URL + "?etag", ETAG, null, text("b")).close();
+        cache.store(ARCHIVE_URL, null, null, text("c")).close();
+
+        assertEquals(Map.of("If-None-Match", ETAG, "If-Modified-Since", LAST_MODIFIED), validators(cache.lookup(SUBMISSIONS_URL)));
+        assertEquals(Map.of("If-None-Match", ETAG), validators(cache.lookup(SUBMISSIONS_URL + "?etag")));
+        assertEquals(Map.of(), validators(cache.lookup(ARCHIVE_URL)));
+    }
+
+    @Test
+    void archiveDocumentsAreImmutableAndAlwaysCacheable() {
+        HttpDiskCache cache = new HttpDiskCache(dir);
+
+        assertTrue(cache.isImmutable(ARCHIVE_URL));
+        assertTrue(cache.isCacheable(ARCHIVE_URL, null, null));
+        assertFalse(cache.isImmutable(SUBMISSIONS_URL));
+        assertFalse(cache.isImmutable("https://www.sec.gov/cgi-bin/browse-edgar?action=getcompany&CIK=34088"));
+        assertFalse(cache.isCacheable(SUBMISSIONS_URL, null, null));
+        assertTrue(cache.isCacheable(SUBMISSIONS_URL, ETAG, null));
+        assertTrue(cache.isCacheable(SUBMISSIONS_URL, null, LAST_MODIFIED));
+    }
+
+    @Test
+    void truncatedEntryIsIgnored() throws Exception {
+        HttpDiskCache cache = new HttpDiskCache(dir);
+        cache.store(SUBMISSIONS_URL, ETAG, null, text("{}")).close();
+        Files.write(entryFile(SUBMISSIONS_URL), new byte[]{0, 40, 'h'});
+
+        assertNull(cache.lookup(SUBMISSIONS_URL));
+    }
+
+    @Test
+    void unreadableEntryIsIgnored() throws Exception {
+        HttpDiskCache cache = new HttpDiskCache(dir);
+        Files.createDirectory(entryFile(SUBMISSIONS_URL));
+
+        assertNull(cache.lookup(SUBMISSIONS_URL));
+    }
+
+    @Test
+    void entryOfAnotherUrlIsIgnored() throws Exception {
+        HttpDiskCache cache = new HttpDiskCache(dir);
+        cache.store(ARCHIVE_URL, null, null, text("archive")).close();
+        Files.copy(entryFile(ARCHIVE_URL), entryFile(SUBMISSIONS_URL));
+
+        assertNull(cache.lookup(SUBMISSIONS_URL));
+    }
+
+    @Test
+    void corruptBodyFailsToOpen() throws Exception {
+        HttpDiskCache cache = new HttpDiskCache(dir);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(entryFile(SUBMISSIONS_URL)))) {
+            out.writeUTF(SUBMISSIONS_URL);
+            out.writeUTF(ETAG);
+            out.writeUTF("");
+            out.write("not gzip".getBytes(StandardCharsets.UTF_8));
+        }
+
+        HttpDiskCache.Entry entry = cache.lookup(SUBMISSIONS_URL);
+        assertNotNull(entry);
+        assertThrows(IOException.class, entry::open);
+    }
+
+    @Test
+    void failedStoreKeepsThePreviousEntryAndNoTempFile() throws Exception {
+        HttpDiskCache cache = new HttpDiskCache(dir);
+        cache.store(SUBMISSIONS_URL, ETAG, null, text("old")).close();
+
+        InputStream broken = new InputStream() {
+            private int left = 10_000;
+
+            @Override
+            public int read() throws IOException {
+                if (left-- <= 0) throw new IOException("connection reset");
+                return 'x';
+            }
+        };
+        IOException error = assertThrows(IOException.class, () -> cache.store(SUBMISSIONS_URL, "\"v2\"", null, broken));
+
+        assertEquals("connection reset", error.getMessage());
+        assertEquals("old", HttpDiskCache.readString(cache.lookup(SUBMISSIONS_URL).open()));
+        assertEquals(Map.of("If-None-Match", ETAG), validators(cache.lookup(SUBMISSIONS_URL)));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(entryFile(SUBMISSIONS_URL)), files.toList());
+        }
+    }
+
+    @Test
+    void referencesKeepValidatorsAndBlobPathOnly() throws Exception {
+        HttpDiskCache cache = new HttpDiskCache(dir);
+        assertNull(cache.lookupReference(SUBMISSIONS_URL));
+
+        cache.storeReference(SUBMISSIONS_URL, ETAG, null, "3f/3fa9.gz");
+
+        HttpDiskCache.Reference reference = new HttpDiskCache(dir).lookupReference(SUBMISSIONS_URL);
+        assertEquals(new HttpDiskCache.Reference(SUBMISSIONS_URL, ETAG, null, "3f/3fa9.gz"), reference);
+        Map<String, String> headers = new LinkedHashMap<>();
+        reference.addValidators(headers::put);
+        assertEquals(Map.of("If-None-Match", ETAG), headers);
+        // a reference is not a body entry
+        assertNull(cache.lookup(SUBMISSIONS_URL));
+
+        Files.write(dir.resolve(entryFile(SUBMISSIONS_URL).getFileName().toString().replace(".cache", ".ref")), new byte[]{1});
+        assertNull(cache.lookupReference(SUBMISSIONS_URL));
+    }
+
+    private Path entryFile(String url) throws Exception {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+        return dir.resolve(HexFormat.of().formatHex(hash) + ".cache");
+    }
+
+    private static Map<String, String> validators(HttpDiskCache.Entry entry) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        entry.addValidators(headers::put);
+        return headers;
+    }
+
+    private static InputStream text(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,67 @@
+package com.dexian.extractor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InlineXbrlScannerTest {
+
+    private static final String HEADER = """
+            <div style="display:none"><ix:header><ix:resources>
+            <xbrli:context id="c-1"><xbrli:entity><xbrli:identifier scheme="http://www.sec.gov/CIK">0000034088</xbrli:identifier></xbrli:entity>
+              <xbrli:period><xbrli:startDate>2025-04-01</xbrli:startDate><xbrli:endDate>2025-06-30</xbrli:endDate></xbrli:period></xbrli:context>
+            <xbrli:context id="c-2"><xbrli:entity><xbrli:identifier scheme="http://www.sec.gov/CIK">0000034088</xbrli:identifier>
+              <xbrli:segment><xbrldi:explicitMember dimension="srt:StatementGeographicalAxis">country:US</xbrldi:explicitMember></xbrli:segment></xbrli:entity>
+              <xbrli:period><xbrli:startDate>2025-04-01</xbrli:startDate><xbrli:endDate>2025-06-30</xbrli:endDate></xbrli:period></xbrli:context>
+            <xbrli:context id="c-3"><xbrli:entity><xbrli:identifier scheme="http://www.sec.gov/CIK">0000034088</xbrli:identifier></xbrli:entity>
+              <xbrli:period><xbrli:instant>2025-06-30</xbrli:instant></xbrli:period></xbrli:context>
+            <xbrli:unit id="u-gas"><xbrli:measure>xom:MMcf</xbrli:measure></xbrli:unit>
+            <xbrli:unit id="u-rate"><xbrli:divide>
+              <xbrli:unitNumerator><xbrli:measure>utr:bbl</xbrli:measure></xbrli:unitNumerator>
+              <xbrli:unitDenominator><xbrli:measure>utr:d</xbrli:measure></xbrli:unitDenominator></xbrli:divide></xbrli:unit>
+            </ix:resources></ix:header></div>
+            """;
+
+    @Test
+    void resolvesConceptPeriodScaleAndSign() throws IOException {
+        String html = "<html><body>" + HEADER
+                + "<table><tr><td>Oil (MBbls)</td><td><ix:nonFraction name=\"us-gaap:OilProduction\" contextRef=\"c-1\""
+                + " unitRef=\"bbl\" decimals=\"-3\" scale=\"3\" format=\"ixt:num-dot-decimal\">1,234.5</ix:nonFraction></td></tr>"
+                + "<tr><td>Gas</td><td><IX:NONFRACTION NAME='xom:NaturalGasProduction' CONTEXTREF='c-2' UNITREF='u-gas' SCALE='6'>7</IX:NONFRACTION></td></tr>"
+                + "<tr><td>Revenue</td><td>$<ix:nonFraction name=\"us-gaap:Revenues\" contextRef=\"c-1\" scale=\"6\">99</ix:nonFraction></td></tr>"
+                + "<tr><td>Hedges</td><td><ix:nonFraction name=\"us-gaap:TotalProduction\" contextRef=\"c-3\" sign=\"-\""
+                + " format=\"ixt:fixed-zero\">&#8212;</ix:nonFraction></td></tr>"
+                + "<tr><td>Missing</td><td><ix:nonFraction name=\"us-gaap:OilProduction\" contextRef=\"c-9\">5</ix:nonFraction></td></tr>"
+                + "<tr><td>Nil</td><td><ix:nonFraction name=\"us-gaap:OilProduction\" contextRef=\"c-1\" xsi:nil=\"true\"/></td></tr>"
+                + "</table></body></html>";
+
+        List<InlineXbrlScanner.Fact> facts = InlineXbrlScanner.scan(new StringReader(html),
+                Set.of("OilProduction", "NaturalGasProduction", "TotalProduction"));
+
+        LocalDate start = LocalDate.of(2025, 4, 1);
+        LocalDate end = LocalDate.of(2025, 6, 30);
+        assertEquals(List.of(
+                new InlineXbrlScanner.Fact("OilProduction", start, end, false, "bbl", 1_234_500),
+                new InlineXbrlScanner.Fact("NaturalGasProduction", start, end, true, "MMcf", 7_000_000),
+                new InlineXbrlScanner.Fact("TotalProduction", null, end, false, null, -0.0)), facts);
+    }
+
+    @Test
+    void resolvesFactsAgainstContextsDeclaredAfterThem() throws IOException {
+        String html = "<p>Produced <ix:nonFraction name=\"us-gaap:OilProduction\" contextRef=\"c-1\" unitRef=\"u-rate\""
+                + " format=\"ixt:num-comma-decimal\"><b>1.234</b>,5</ix:nonFraction> barrels</p>" + HEADER;
+
+        List<InlineXbrlScanner.Fact> facts = InlineXbrlScanner.scan(new StringReader(html), Set.of("OilProduction"));
+
+        assertEquals(1, facts.size());
+        assertEquals(1234.5, facts.get(0).value());
+        assertEquals("bbl/d", facts.get(0).unit());
+        assertEquals(LocalDate.of(2025, 6, 30), facts.get(0).end());
+    }
+}
@@ -0,0 +1,52 @@
+package com.dexian.extractor.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LabelMatcherTest {
+
+    private final LabelMatcher<String> matcher = LabelMatcher.<String>builder()
+            .add("OIL", "Oil Production", "Oil", "Crude oil")
+            .add("GAS", "Natural Gas", "Gas (MMcf)")
+            .add("NGL", "Natural Gas Liquids", "NGLs")
+            .add("TOTAL", "Total", "Total (MBOE)")
+            .build();
+
+    @Test
+    void matchesCaseInsensitivelyAnywhereInTheText() {
+        assertEquals("OIL", matcher.match("Net CRUDE OIL production"));
+        assertEquals("GAS", matcher.match("gas (mmcf)"));
+        assertEquals("NGL", matcher.match("Production of NGLs, MBbls"));
+        assertNull(matcher.match("Revenue"));
+        assertNull(matcher.match(""));
+    }
+
+    @Test
+    void categoryRegisteredFirstWinsWhenSeveralMatch() {
+        // Same outcome as checking the OIL, GAS, NGL and TOTAL tag lists one after another
+        assertEquals("GAS", matcher.match("Natural gas liquids"));
+        assertEquals("OIL", matcher.match("Total oil"));
+        assertEquals("TOTAL", matcher.match("Total (MBOE)"));
+    }
+
+    @Test
+    void findsPatternsThatOverlapAPartialMatch() {
+        LabelMatcher<Integer> overlapping = LabelMatcher.<Integer>builder()
+                .add(1, "abcd")
+                .add(2, "bce")
+                .build();
+
+        assertEquals(2, overlapping.match("xabcex"));
+        assertTrue(overlapping.matches("abcd"));
+        assertFalse(overlapping.matches("abc"));
+    }
+
+    @Test
+    void ignoresNonAsciiCharacters() {
+        assertEquals("OIL", matcher.match("Öl — oil"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.dexian.extractor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NumberScannerTest {
+
+    // The pattern SecProductionDataExtractor used before NumberScanner
+    private static final Pattern LEGACY_NUMBER = Pattern.compile("([0-9]+(?:\\.[0-9]+)?)");
+
+    @Test
+    void firstNumberSkipsLeadingText() {
+        assertEquals(1234.5, NumberScanner.firstNumber("Oil (MBbls) 1,234.5 1,100.0"));
+        assertEquals(42.0, NumberScanner.firstNumber("42"));
+        assertEquals(3.0, NumberScanner.firstNumber("Q3 2025"));
+        assertEquals(5.0, NumberScanner.firstNumber(".5"));
+        assertEquals(12.0, NumberScanner.firstNumber("12. Total"));
+        assertEquals(3.25, NumberScanner.firstNumber("3.25.7"));
+        assertTrue(Double.isNaN(NumberScanner.firstNumber("Total production")));
+        assertTrue(Double.isNaN(NumberScanner.firstNumber("")));
+    }
+
+    @Test
+    void plainNumberAcceptsOnlyNumericCells() {
+        assertEquals(1234567.0, NumberScanner.plainNumber("1,234,567"));
+        assertEquals(0.75, NumberScanner.plainNumber("0.75"));
+        assertEquals(12.0, NumberScanner.plainNumber("12."));
+        assertTrue(Double.isNaN(NumberScanner.plainNumber("")));
+        assertTrue(Double.isNaN(NumberScanner.plainNumber(",")));
+        assertTrue(Double.isNaN(NumberScanner.plainNumber("1.2.3")));
+        assertTrue(Double.isNaN(NumberScanner.plainNumber("$1,200")));
+        assertTrue(Double.isNaN(NumberScanner.plainNumber(" 12")));
+        assertTrue(Double.isNaN(NumberScanner.plainNumber("12 MMcf")));
+    }
+
+    @Test
+    void parenthesesAreNotASign() {
+        // accounting negatives keep the unsigned meaning of the regexes NumberScanner replaced
+        assertEquals(1234.0, NumberScanner.firstNumber("(1,234)"));
+        assertEquals(56.7, NumberScanner.firstNumber("Net change (56.7)"));
+        assertEquals(8.0, NumberScanner.firstNumber("-8"));
+        assertTrue(Double.isNaN(NumberScanner.plainNumber("(1,234)")));
+        assertTrue(Double.isNaN(NumberScanner.plainNumber("-8")));
+    }
+
+    @Test
+    void ignoresThousandsSeparatorsWhereverTheyAppear() {
+        assertEquals(1234567.0, NumberScanner.firstNumber("1,234,567"));
+        assertEquals(1234.5, NumberScanner.firstNumber("12,34.5"));
+        assertEquals(1.25, NumberScanner.firstNumber("1.2,5"));
+        assertEquals(1.25, NumberScanner.plainNumber("1.,25"));
+        assertEquals(1000.0, NumberScanner.firstNumber("1,000, 2,000"));
+    }
+
+    @Test
+    void longNumbersFallBackToTheSlowParse() {
+        // more than 18 significant digits
+        assertEquals(12345678901234567890.0, NumberScanner.firstNumber("12,345,678,901,234,567,890 bbl"));
+        assertEquals(Double.parseDouble("0.1234567890123456789"), NumberScanner.plainNumber("0.1234567890123456789"));
+        assertEquals(Double.parseDouble("98765432109876543210.5"), NumberScanner.plainNumber("98765432109876543210.5"));
+        // leading zeros are not significant
+        assertEquals(1.0, NumberScanner.plainNumber("0000000000000000000000001"));
+        // mantissa past 2^53, or a scale past the exact powers of ten
+        assertEquals(Double.parseDouble("123456789012345678"), NumberScanner.plainNumber("123456789012345678"));
+        assertEquals(1e-24, NumberScanner.plainNumber("0.000000000000000000000001"));
+    }
+
+    @Test
+    void matchesTheLegacyRegexOnRandomCells() {
+        Random random = new Random(20251018);
+        String alphabet = "0123456789,.() -aZ";
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder cell = new StringBuilder();
+            int length = 1 + random.nextInt(30);
+            for (int i = 0; i < length; i++) {
+                cell.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String text = cell.toString();
+            Matcher m = LEGACY_NUMBER.matcher(text.replace(",", ""));
+            double expected = m.find() ? Double.parseDouble(m.group(1)) : Double.NaN;
+            assertEquals(expected, NumberScanner.firstNumber(text), text);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.dexian.extractor.util;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SecHttpClientTest {
+
+    @TempDir
+    Path cacheDir;
+
+    @TempDir
+    Path blobDir;
+
+    private HttpServer server;
+    private SecHttpClient client;
+    private String baseUrl;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        client = new SecHttpClient(new SecRateLimiter(1000), new HttpDiskCache(cacheDir), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void stop() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void retriesThrottledRequestsAndDecompressesGzip() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        server.createContext("/facts", exchange -> {
+            if (calls.incrementAndGet() == 1) {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                exchange.sendResponseHeaders(429, -1);
+                exchange.close();
+                return;
+            }
+            assertEquals("gzip", exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            byte[] body = gzip("{\"cik\": 34088}");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        assertEquals("{\"cik\": 34088}", HttpDiskCache.readString(client.open(baseUrl + "/facts", SecHttpClient.JSON)));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void tellsTheRateLimiterHowSecAnswered() throws Exception {
+        List<String> answers = new CopyOnWriteArrayList<>();
+        RequestRateLimiter limiter = new RequestRateLimiter() {
+            @Override
+            public long reserve() {
+                return 0;
+            }
+
+            @Override
+            public void onThrottled(long retryAfterMillis) {
+                answers.add("throttled " + retryAfterMillis);
+            }
+
+            @Override
+            public void onSuccess() {
+                answers.add("ok");
+            }
+        };
+        AtomicInteger calls = new AtomicInteger();
+        server.createContext("/busy", exchange -> {
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            exchange.sendResponseHeaders(calls.incrementAndGet() == 1 ? 503 : 200, -1);
+            exchange.close();
+        });
+
+        try (SecHttpClient governed = new SecHttpClient(limiter, new HttpDiskCache(cacheDir), Duration.ofSeconds(5))) {
+            governed.open(baseUrl + "/busy", SecHttpClient.JSON).close();
+        }
+        assertEquals(List.of("throttled 1000", "ok"), answers);
+    }
+
+    @Test
+    void fairAccessBlocksAreThrottlesAndOtherRefusalsAreNotHealthy() throws Exception {
+        List<String> answers = new CopyOnWriteArrayList<>();
+        RequestRateLimiter limiter = new RequestRateLimiter() {
+            @Override
+            public long reserve() {
+                return 0;
+            }
+
+            @Override
+            public void onThrottled(long retryAfterMillis) {
+                answers.add("throttled " + retryAfterMillis);
+            }
+
+            @Override
+            public void onSuccess() {
+                answers.add("ok");
+            }
+        };
+        AtomicInteger calls = new AtomicInteger();
+        server.createContext("/blocked", exchange -> {
+            calls.incrementAndGet();
+            byte[] body = gzip("<html><head><title>SEC.gov | Request Rate Threshold Exceeded</title></head></html>");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(403, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/retry-later", exchange -> {
+            exchange.getResponseHeaders().add("Retry-After", "2");
+            exchange.sendResponseHeaders(403, -1);
+            exchange.close();
+        });
+        server.createContext("/forbidden", exchange -> {
+            byte[] body = "<html>Access Denied</html>".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(403, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        try (SecHttpClient governed = new SecHttpClient(limiter, new HttpDiskCache(cacheDir), Duration.ofSeconds(5))) {
+            for (String path : List.of("/blocked", "/retry-later", "/forbidden")) {
+                IOException error = assertThrows(IOException.class, () -> governed.open(baseUrl + path, SecHttpClient.HTML));
+                assertEquals("HTTP error 403 for " + baseUrl + path, error.getMessage());
+            }
+        }
+        assertEquals(List.of("throttled 0", "throttled 2000"), answers);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void revalidatesCachedResponses() throws Exception {
+        AtomicInteger notModified = new AtomicInteger();
+        server.createContext("/submissions", exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = "{\"name\": \"Example\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        String url = baseUrl + "/submissions";
+        assertEquals("{\"name\": \"Example\"}", HttpDiskCache.readString(client.open(url, SecHttpClient.JSON)));
+        assertEquals("{\"name\": \"Example\"}", HttpDiskCache.readString(client.open(url, SecHttpClient.JSON)));
+        assertEquals(1, notModified.get());
+    }
+
+    @Test
+    void servesArchiveDocumentsFromDiskWithoutAsking() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        server.createContext("/Archives/edgar/data/34088", exchange -> {
+            calls.incrementAndGet();
+            byte[] body = "<html>10-Q</html>".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        String url = baseUrl + "/Archives/edgar/data/34088/000003408825000045/xom-20250630.htm";
+        assertEquals("<html>10-Q</html>", HttpDiskCache.readString(client.open(url, SecHttpClient.HTML)));
+        assertEquals("<html>10-Q</html>", HttpDiskCache.readString(client.open(url, SecHttpClient.HTML)));
+        assertEquals("<html>10-Q</html>", HttpDiskCache.readString(client.openAsync(url, SecHttpClient.HTML).get()));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void documentsFetchedIntoTheBlobStoreAreStoredOnce() throws Exception {
+        FilingBlobStore blobs = new FilingBlobStore(blobDir);
+        AtomicInteger archiveCalls = new AtomicInteger();
+        server.createContext("/Archives/edgar/data/34088", exchange -> {
+            archiveCalls.incrementAndGet();
+            byte[] body = "<html>10-Q</html>".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        AtomicInteger factsCalls = new AtomicInteger();
+        AtomicInteger notModified = new AtomicInteger();
+        server.createContext("/companyfacts", exchange -> {
+            factsCalls.incrementAndGet();
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = "{\"cik\": 34088}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        String archive = baseUrl + "/Archives/edgar/data/34088/000003408825000045/xom-20250630.htm";
+        String blobPath = client.fetchToBlob(archive, SecHttpClient.HTML, blobs);
+        assertEquals("<html>10-Q</html>", HttpDiskCache.readString(blobs.open(blobPath)));
+        assertEquals(blobPath, client.fetchToBlob(archive, SecHttpClient.HTML, blobs));
+        assertEquals(1, archiveCalls.get());
+
+        String facts = baseUrl + "/companyfacts";
+        String factsPath = client.fetchToBlob(facts, SecHttpClient.JSON, blobs);
+        assertEquals(factsPath, client.fetchToBlob(facts, SecHttpClient.JSON, blobs));
+        assertEquals(1, notModified.get());
+
+        // the cache holds references, not second copies of the bodies
+        try (var entries = Files.list(cacheDir)) {
+            assertEquals(List.of(".ref", ".ref"), entries.map(path -> path.toString().substring(path.toString().lastIndexOf('.'))).toList());
+        }
+
+        // a blob gone from the store is fetched again, unconditionally
+        Files.delete(blobDir.resolve(factsPath));
+        assertEquals(factsPath, client.fetchToBlob(facts, SecHttpClient.JSON, blobs));
+        assertEquals(3, factsCalls.get());
+        assertEquals(1, notModified.get());
+    }
+
+    @Test
+    void refetchesOverACorruptCacheEntry() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        server.createContext("/submissions", exchange -> {
+            calls.incrementAndGet();
+            assertNull(exchange.getRequestHeaders().getFirst("If-None-Match"));
+            byte[] body = "{\"name\": \"Example\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        String url = baseUrl + "/submissions";
+        HttpDiskCache.readString(client.open(url, SecHttpClient.JSON));
+        try (var entries = Files.list(cacheDir)) {
+            for (Path entry : entries.toList()) {
+                Files.write(entry, new byte[]{1});
+            }
+        }
+
+        assertEquals("{\"name\": \"Example\"}", HttpDiskCache.readString(client.open(url, SecHttpClient.JSON)));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void reportsMissingDocumentsAsNullAndOtherErrorsAsExceptions() throws Exception {
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/forbidden", exchange -> {
+            exchange.sendResponseHeaders(403, -1);
+            exchange.close();
+        });
+
+        assertNull(client.open(baseUrl + "/missing", SecHttpClient.JSON));
+        assertNull(client.openAsync(baseUrl + "/missing", SecHttpClient.JSON).get());
+        IOException error = assertThrows(IOException.class, () -> client.open(baseUrl + "/forbidden", SecHttpClient.HTML));
+        assertEquals("HTTP error 403 for " + baseUrl + "/forbidden", error.getMessage());
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,197 @@
+package com.dexian.extractor.util;
+
+import com.dexian.extractor.dto.CompanySubmissions;
+import com.dexian.extractor.dto.SecFiling;
+import com.dexian.extractor.model.Company;
+import com.dexian.extractor.repository.CompanyRepository;
+import com.dexian.extractor.service.ReferenceDataCache;
+import com.dexian.extractor.service.SecExtractorService;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubmissionsParserTest {
+
+    private static final String CIK = "34088";
+    private static final Set<String> PERIODIC_FORMS = Set.of("10-Q", "10-K", "10-Q/A", "10-K/A");
+
+    private static final String DOCUMENT = """
+            {"cik": "34088", "entityType": "operating", "name": "Example Corp",
+             "tickers": ["EXC"], "exchanges": ["NYSE"], "fiscalYearEnd": "1231",
+             "addresses": {"mailing": {"street1": "1 Main St", "city": "Houston"}},
+             "filings": {
+               "recent": {
+                 "accessionNumber": ["0000034088-25-000050", "0000034088-25-000045", "0000034088-25-000040", "0000034088-25-000031"],
+                 "filingDate": ["2025-08-20", "2025-08-04", "2025-05-02", ""],
+                 "reportDate": ["", "2025-06-30", "2025-03-31", null],
+                 "acceptanceDateTime": ["2025-08-20T16:01:02.000Z", "2025-08-04T16:01:02.000Z", "2025-05-02T16:01:02.000Z", "x"],
+                 "form": ["8-K", "10-Q", "10-Q", "10-K"],
+                 "primaryDocument": ["ex8k.htm", "exc-20250630.htm", "exc-20250331.htm", "exc-20241231.htm"],
+                 "items": [["2.02", "9.01"], [], [], []]
+               },
+               "files": [{"name": "CIK0000034088-submissions-001.json", "filingCount": 1000}]
+             }}
+            """;
+
+    private final CompanyRepository companyRepository = mock(CompanyRepository.class);
+    private final ReferenceDataCache referenceDataCache = mock(ReferenceDataCache.class);
+    private final SecExtractorService service = new SecExtractorService(
+            companyRepository, null, null, null, referenceDataCache, null, null, null, null);
+
+    @Test
+    void keepsPeriodicFilingsFromTheRecentColumns() throws Exception {
+        CompanySubmissions submissions = parse(DOCUMENT);
+
+        assertEquals("Example Corp", submissions.name());
+        assertEquals("1231", submissions.fiscalYearEnd());
+        assertEquals(3, submissions.filings().size());
+        SecFiling latest = submissions.filings().get(0);
+        assertEquals("0000034088-25-000045", latest.accessionNumber());
+        assertEquals(LocalDate.of(2025, 8, 4), latest.filingDate());
+        assertEquals("2025-06-30", latest.reportDate());
+        assertEquals("10-Q", latest.form());
+        assertEquals("https://www.sec.gov/Archives/edgar/data/34088/000003408825000045/exc-20250630.htm",
+                latest.documentUrl(CIK));
+
+        SecFiling annual = submissions.filings().get(2);
+        assertEquals("10-K", annual.form());
+        assertNull(annual.filingDate());
+        assertNull(annual.reportDate());
+    }
+
+    @Test
+    void toleratesMissingColumnsAndFilings() throws Exception {
+        CompanySubmissions shortColumns = parse("""
+                {"name": "Example Corp", "filings": {"recent": {
+                  "accessionNumber": ["0000034088-25-000045", "0000034088-25-000040"],
+                  "form": ["10-Q", "10-Q"], "filingDate": ["2025-08-04"]}}}
+                """);
+        assertNull(shortColumns.fiscalYearEnd());
+        assertEquals(2, shortColumns.filings().size());
+        assertNull(shortColumns.filings().get(1).filingDate());
+        assertNull(shortColumns.filings().get(1).primaryDocument());
+
+        assertEquals(List.of(), parse("{\"name\": \"Example Corp\"}").filings());
+    }
+
+    @Test
+    void rejectsADocumentThatIsNotAnObject() {
+        assertThrows(IOException.class, () -> parse("[]"));
+    }
+
+    @Test
+    void firstRunTakesTheLatestFewFilings() {
+        when(companyRepository.findBySecCikNumber(CIK)).thenReturn(Optional.empty());
+
+        List<SecFiling> newFilings = service.newFilingsSince(CIK, submissions(6, null));
+
+        assertEquals(4, newFilings.size());
+        assertEquals("0000034088-25-000006", newFilings.get(0).accessionNumber());
+        assertEquals("0000034088-25-000003", newFilings.get(3).accessionNumber());
+    }
+
+    @Test
+    void companyWithoutALastFilingIsAlsoCapped() {
+        when(companyRepository.findBySecCikNumber(CIK)).thenReturn(Optional.of(company(null, null)));
+
+        assertEquals(4, service.newFilingsSince(CIK, submissions(6, null)).size());
+    }
+
+    @Test
+    void stopsAtTheLastProcessedAccession() {
+        when(companyRepository.findBySecCikNumber(CIK))
+                .thenReturn(Optional.of(company("0000034088-25-000002", null)));
+
+        List<SecFiling> newFilings = service.newFilingsSince(CIK, submissions(8, null));
+
+        assertEquals(6, newFilings.size());
+        assertEquals("0000034088-25-000008", newFilings.get(0).accessionNumber());
+        assertEquals("0000034088-25-000003", newFilings.get(5).accessionNumber());
+    }
+
+    @Test
+    void upToDateCompanyHasNoNewFilings() {
+        when(companyRepository.findBySecCikNumber(CIK))
+                .thenReturn(Optional.of(company("0000034088-25-000003", null)));
+
+        assertEquals(List.of(), service.newFilingsSince(CIK, submissions(3, null)));
+    }
+
+    @Test
+    void stopsAtFilingsOlderThanTheLastFilingDate() {
+        // the last accession is gone from the feed; its filing date still bounds the walk, same-day filings included
+        when(companyRepository.findBySecCikNumber(CIK))
+                .thenReturn(Optional.of(company("0000034088-24-999999", LocalDate.of(2025, 4, 4))));
+
+        List<SecFiling> newFilings = service.newFilingsSince(CIK, submissions(6, null));
+
+        assertEquals(List.of("0000034088-25-000006", "0000034088-25-000005", "0000034088-25-000004"),
+                newFilings.stream().map(SecFiling::accessionNumber).toList());
+    }
+
+    @Test
+    void savesAChangedFiscalYearEnd() {
+        Company company = company("0000034088-25-000001", null);
+        company.setFiscalYearEnd("1231");
+        when(companyRepository.findBySecCikNumber(CIK)).thenReturn(Optional.of(company));
+        when(companyRepository.save(any(Company.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.newFilingsSince(CIK, submissions(2, "0630"));
+
+        assertEquals("0630", company.getFiscalYearEnd());
+        verify(companyRepository).save(company);
+        verify(referenceDataCache).refreshCompany(company);
+    }
+
+    @Test
+    void leavesAnUnchangedFiscalYearEndAlone() {
+        Company company = company("0000034088-25-000001", null);
+        company.setFiscalYearEnd("1231");
+        when(companyRepository.findBySecCikNumber(CIK)).thenReturn(Optional.of(company));
+
+        service.newFilingsSince(CIK, submissions(2, "1231"));
+
+        verify(companyRepository, never()).save(any());
+        verify(referenceDataCache, never()).refreshCompany(any());
+    }
+
+    private static CompanySubmissions parse(String json) throws IOException {
+        return SubmissionsParser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), PERIODIC_FORMS);
+    }
+
+    /**
+     * {@code count} quarterly filings, newest first; filing {@code n} is dated the fourth of month {@code n}.
+     */
+    private static CompanySubmissions submissions(int count, String fiscalYearEnd) {
+        List<SecFiling> filings = new ArrayList<>();
+        for (int n = count; n >= 1; n--) {
+            filings.add(new SecFiling(String.format("0000034088-25-%06d", n), LocalDate.of(2025, n, 4),
+                    null, "10-Q", "exc.htm"));
+        }
+        return new CompanySubmissions("Example Corp", fiscalYearEnd, filings);
+    }
+
+    private static Company company(String lastAccessionNumber, LocalDate lastFilingDate) {
+        Company company = new Company();
+        company.setSecCikNumber(CIK);
+        company.setLastAccessionNumber(lastAccessionNumber);
+        company.setLastFilingDate(lastFilingDate);
+        return company;
+    }
+}
@@ -0,0 +1,72 @@
+package com.dexian.extractor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimeSeriesStoreTest {
+
+    private static final int OIL = 3;
+
+    @Test
+    void keepsTheLatestFilingAndWithinAFilingTheShortestPeriod() {
+        TimeSeriesStore store = new TimeSeriesStore();
+        store.put(7, OIL, day("2024-10-01"), day("2024-12-31"), day("2025-02-20"), 100);
+        // Same 10-K, full year ending the same day
+        store.put(7, OIL, day("2024-01-01"), day("2024-12-31"), day("2025-02-20"), 400);
+        // Older filing (the comparative in last year's report) loses
+        store.put(7, OIL, day("2024-10-01"), day("2024-12-31"), day("2024-11-05"), 90);
+        assertEquals(List.of("2024-12-31=100.0"), points(store, 7));
+
+        // An amendment replaces it
+        store.put(7, OIL, day("2024-10-01"), day("2024-12-31"), day("2025-04-01"), 105);
+        assertEquals(List.of("2024-12-31=105.0"), points(store, 7));
+    }
+
+    @Test
+    void aggregatesEveryCompanyInARange() {
+        TimeSeriesStore store = new TimeSeriesStore();
+        store.put(2, OIL, day("2024-04-01"), day("2024-06-30"), day("2024-08-01"), 10);
+        store.put(2, OIL, day("2024-07-01"), day("2024-09-30"), day("2024-11-01"), 20);
+        store.put(1, OIL, day("2024-07-01"), day("2024-09-30"), day("2024-11-01"), 5);
+        store.put(1, OIL + 1, day("2024-07-01"), day("2024-09-30"), day("2024-11-01"), 1000);
+
+        TimeSeriesStore.Aggregate all = store.aggregate(OIL, day("2024-06-30"), day("2024-09-30"), false);
+        assertEquals(new TimeSeriesStore.Aggregate(2, 3, 35, 5, 20), all);
+
+        TimeSeriesStore.Aggregate latest = store.aggregate(OIL, TimeSeriesStore.MIN_DAY, TimeSeriesStore.MAX_DAY, true);
+        assertEquals(new TimeSeriesStore.Aggregate(2, 2, 25, 5, 20), latest);
+
+        assertEquals(0, store.aggregate(OIL, day("2025-01-01"), TimeSeriesStore.MAX_DAY, false).points());
+        assertEquals(0, store.aggregate(99, TimeSeriesStore.MIN_DAY, TimeSeriesStore.MAX_DAY, false).points());
+    }
+
+    @Test
+    void bulkLoadAppliesTheSameRules() {
+        TimeSeriesStore.Builder builder = new TimeSeriesStore.Builder();
+        builder.add(7, OIL, day("2024-07-01"), day("2024-09-30"), day("2024-11-01"), 20);
+        builder.add(7, OIL, day("2024-01-01"), day("2024-12-31"), day("2025-02-20"), 400);
+        builder.add(7, OIL, day("2024-10-01"), day("2024-12-31"), day("2025-02-20"), 100);
+        builder.add(7, OIL, day("2024-10-01"), day("2024-12-31"), day("2024-11-05"), 90);
+
+        TimeSeriesStore store = new TimeSeriesStore();
+        store.replaceAll(builder);
+        assertEquals(List.of("2024-09-30=20.0", "2024-12-31=100.0"), points(store, 7));
+        assertEquals(2, store.size());
+    }
+
+    private static List<String> points(TimeSeriesStore store, int companyId) {
+        List<String> points = new ArrayList<>();
+        store.series(companyId, OIL, TimeSeriesStore.MIN_DAY, TimeSeriesStore.MAX_DAY,
+                (company, periodEnd, value) -> points.add(LocalDate.ofEpochDay(periodEnd) + "=" + value));
+        return points;
+    }
+
+    private static int day(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+}